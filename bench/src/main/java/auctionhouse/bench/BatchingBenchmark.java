@@ -0,0 +1,105 @@
+package auctionhouse.bench;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import auctionhouse.AuctionHouseImp;
+import auctionhouse.BankingService;
+import auctionhouse.BatchingBankingService;
+import auctionhouse.Money;
+import auctionhouse.Parameters;
+import auctionhouse.SettlementPipeline;
+
+/**
+ * Time to close BURST sold lots through a SettlementPipeline when the bank
+ * takes LATENCY_MILLIS per request and allows CONNECTIONS requests at once:
+ * each transfer sent on its own, or gathered by a BatchingBankingService
+ * into batches of up to MAX_BATCH.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchingBenchmark {
+
+    private static final int BURST = 500;
+    private static final int BANKING_THREADS = 64;
+    private static final int CONNECTIONS = 4;
+    private static final long LATENCY_MILLIS = 5;
+    private static final int MAX_BATCH = 64;
+    private static final long WINDOW_MILLIS = 1;
+
+    @Param({ "single", "batched" })
+    public String transfers;
+
+    private AuctionHouseImp house;
+    private BatchingBankingService batching;
+    private SettlementPipeline pipeline;
+    private int firstLot;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        LatencyBankingService remote = new LatencyBankingService(LATENCY_MILLIS, CONNECTIONS);
+        BankingService bank = remote;
+        if (transfers.equals("batched")) {
+            bank = batching = new BatchingBankingService(remote, MAX_BATCH, WINDOW_MILLIS);
+        }
+        house = new AuctionHouseImp(new Parameters(
+                10.0,
+                15.0,
+                Houses.INCREMENT,
+                "AH A/C",
+                "AH-auth",
+                new NoOpMessagingService(),
+                bank));
+        Houses.registerBuyers(house, 0, 1);
+        Houses.registerSellers(house);
+        pipeline = new SettlementPipeline(house, bank, BANKING_THREADS);
+    }
+
+    @Setup(Level.Invocation)
+    public void openBurst() {
+        firstLot += BURST;
+        String buyer = Houses.BUYER_NAMES[0];
+        Money bid = Houses.RESERVE.add(Houses.INCREMENT);
+        Houses.addLots(house, firstLot, firstLot + BURST);
+        for (int lot = firstLot; lot < firstLot + BURST; lot++) {
+            house.noteInterest(buyer, lot);
+            house.openAuction(Houses.AUCTIONEER, "@" + Houses.AUCTIONEER, lot);
+            house.makeBid(buyer, lot, bid);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        pipeline.close();
+        if (batching != null) {
+            batching.close();
+        }
+    }
+
+    @Benchmark
+    public void closeBurst() {
+        CompletableFuture<?>[] closes = new CompletableFuture<?>[BURST];
+        for (int i = 0; i < BURST; i++) {
+            closes[i] = pipeline.closeAuction(Houses.AUCTIONEER, firstLot + i);
+        }
+        CompletableFuture.allOf(closes).join();
+    }
+}
@@ -0,0 +1,56 @@
+package auctionhouse.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import auctionhouse.AuctionHouse;
+import auctionhouse.Money;
+import auctionhouse.Status;
+
+/**
+ * Accepted makeBid calls on open lots with 10^3 interested buyers each, so
+ * every bid fans out to about 10^3 bidAccepted messages. Bids rotate over
+ * all hot lots, each one clearing that lot's previous bid by the increment.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BidBenchmark {
+
+    private AuctionHouse house;
+    private long[] nextPence;
+    private int lot;
+    private int bidder;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        house = Houses.full(true);
+        nextPence = new long[Houses.HOT_LOTS];
+        for (int l = 0; l < Houses.HOT_LOTS; l++) {
+            nextPence[l] = Houses.INCREMENT.pence();
+        }
+    }
+
+    @Benchmark
+    public Status makeBid() {
+        if (++lot == Houses.HOT_LOTS) lot = 0;
+        if (++bidder == Houses.WATCHERS) bidder = 0;
+        Money bid = Money.ofPence(nextPence[lot]);
+        nextPence[lot] += Houses.INCREMENT.pence();
+        return house.makeBid(Houses.watcher(lot, bidder), lot, bid);
+    }
+}
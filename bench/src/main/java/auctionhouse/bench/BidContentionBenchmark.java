@@ -0,0 +1,106 @@
+package auctionhouse.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+import auctionhouse.AuctionHouse;
+import auctionhouse.AuctionHouseImp;
+import auctionhouse.Money;
+import auctionhouse.Parameters;
+import auctionhouse.Status;
+
+/**
+ * Throughput of makeBid when every thread bids on the same lot.
+ * <p>
+ * Each thread keeps raising its own bid by the increment, so at every level
+ * only one of the competing bids can win and the rest are rejected after
+ * re-checking against the newer snapshot. Reports attempted and accepted bids
+ * per second for 1 to 64 threads.
+ * <p>
+ * Usage: BidContentionBenchmark [seconds per run]
+ */
+public class BidContentionBenchmark {
+
+    private static final int[] THREAD_COUNTS = { 1, 2, 4, 8, 16, 32, 64 };
+    private static final int LOT = 1;
+    private static final Money INCREMENT = new Money("1.00");
+
+    private static AuctionHouse newHouse(int bidders) {
+        AuctionHouse house = new AuctionHouseImp(
+                new Parameters(
+                        10.0,
+                        15.0,
+                        INCREMENT,
+                        "AH A/C",
+                        "AH-auth",
+                        new NoOpMessagingService(),
+                        new NoOpBankingService()));
+        house.registerSeller("Seller", "@Seller", "S A/C");
+        house.addLot("Seller", LOT, "Hot lot", new Money("1.00"));
+        for (int b = 0; b < bidders; b++) {
+            house.registerBuyer("Buyer" + b, "@Buyer" + b, "B" + b + " A/C", "B" + b + "-auth");
+            house.noteInterest("Buyer" + b, LOT);
+        }
+        house.openAuction("Auctioneer", "@Auctioneer", LOT);
+        return house;
+    }
+
+    private static long[] run(int threadCount, long millis) throws InterruptedException {
+        final AuctionHouse house = newHouse(threadCount);
+        final LongAdder attempts = new LongAdder();
+        final LongAdder accepted = new LongAdder();
+        final CountDownLatch start = new CountDownLatch(1);
+        final long[] deadline = new long[1];
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < threadCount; t++) {
+            final String buyer = "Buyer" + t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                Money bid = INCREMENT;
+                long n = 0;
+                long ok = 0;
+                while ((n & 0xFF) != 0 || System.nanoTime() < deadline[0]) {
+                    if (house.makeBid(buyer, LOT, bid).kind == Status.Kind.OK) {
+                        ok++;
+                    }
+                    bid = bid.add(INCREMENT);
+                    n++;
+                }
+                attempts.add(n);
+                accepted.add(ok);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        deadline[0] = System.nanoTime() + millis * 1_000_000L;
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return new long[] { attempts.sum(), accepted.sum() };
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        long millis = 1000L * (args.length > 0 ? Integer.parseInt(args[0]) : 2);
+
+        // Warm up the bid path before taking any measurements.
+        run(Runtime.getRuntime().availableProcessors(), millis);
+
+        System.out.println("threads  attempts/s  accepted/s");
+        for (int threadCount : THREAD_COUNTS) {
+            long[] result = run(threadCount, millis);
+            System.out.println(String.format("%7d  %10.0f  %10.0f",
+                    threadCount,
+                    result[0] * 1000.0 / millis,
+                    result[1] * 1000.0 / millis));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package auctionhouse.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import auctionhouse.AuctionHouse;
+import auctionhouse.CatalogueEntry;
+import auctionhouse.LotStatus;
+
+/**
+ * viewCatalogue on a house with 10^5 lots and no changes between calls,
+ * and fetching one 50-lot page of it filtered by status.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogueBenchmark {
+
+    private AuctionHouse house;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        house = Houses.full(false);
+    }
+
+    @Benchmark
+    public List<CatalogueEntry> viewCatalogue() {
+        return house.viewCatalogue();
+    }
+
+    @Benchmark
+    public List<CatalogueEntry> viewCataloguePage() {
+        return house.viewCatalogue(LotStatus.UNSOLD, Houses.LOTS / 2, 50);
+    }
+}
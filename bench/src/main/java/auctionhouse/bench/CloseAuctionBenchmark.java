@@ -0,0 +1,52 @@
+package auctionhouse.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import auctionhouse.AuctionHouse;
+import auctionhouse.Money;
+import auctionhouse.Status;
+
+/**
+ * Time to close all 10^3 hot lots, each sold above its reserve and with
+ * 10^3 interested buyers to tell. A lot can only be closed once, so each
+ * measured batch starts from a freshly built house.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = Houses.HOT_LOTS)
+@Measurement(iterations = 10, batchSize = Houses.HOT_LOTS)
+@Fork(1)
+@State(Scope.Thread)
+public class CloseAuctionBenchmark {
+
+    private static final Money WINNING_BID = new Money("100.00");
+
+    private AuctionHouse house;
+    private int lot;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        house = Houses.full(true);
+        for (int l = 0; l < Houses.HOT_LOTS; l++) {
+            house.makeBid(Houses.watcher(l, 0), l, WINNING_BID);
+        }
+        lot = 0;
+    }
+
+    @Benchmark
+    public Status closeAuction() {
+        return house.closeAuction(Houses.AUCTIONEER, lot++);
+    }
+}
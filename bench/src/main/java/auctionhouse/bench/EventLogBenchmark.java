@@ -0,0 +1,83 @@
+package auctionhouse.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import auctionhouse.AuctionHouse;
+import auctionhouse.AuctionHouseImp;
+import auctionhouse.EventLog;
+import auctionhouse.Money;
+import auctionhouse.Parameters;
+import auctionhouse.Status;
+
+/**
+ * What recording a bid in an EventLog adds to makeBid. One lot with a single
+ * interested buyer, so messaging costs next to nothing, with no log, a log
+ * that is written but not forced to disk, and one that is fsynced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventLogBenchmark {
+
+    @Param({ "none", "write", "fsync" })
+    public String log;
+
+    private Path dir;
+    private EventLog eventLog;
+    private AuctionHouse house;
+    private long nextPence;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Parameters parameters = Houses.parameters();
+        if (log.equals("none")) {
+            house = new AuctionHouseImp(parameters);
+        } else {
+            dir = Files.createTempDirectory("auctionhouse-bench");
+            eventLog = new EventLog(dir.resolve("events.log"), 1 << 20, 5, log.equals("fsync"));
+            house = new AuctionHouseImp(parameters, eventLog);
+        }
+        house.registerSeller("Seller", "@Seller", "S A/C");
+        house.registerBuyer("Buyer", "@Buyer", "B A/C", "B-auth");
+        house.addLot("Seller", 1, "Lot", Houses.RESERVE);
+        house.noteInterest("Buyer", 1);
+        house.openAuction(Houses.AUCTIONEER, "@" + Houses.AUCTIONEER, 1);
+        nextPence = Houses.INCREMENT.pence();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (eventLog != null) {
+            eventLog.close();
+            Files.delete(dir.resolve("events.log"));
+            Files.delete(dir);
+        }
+    }
+
+    @Benchmark
+    public Status makeBid() {
+        Money bid = Money.ofPence(nextPence);
+        nextPence += Houses.INCREMENT.pence();
+        return house.makeBid("Buyer", 1, bid);
+    }
+}
@@ -0,0 +1,80 @@
+package auctionhouse.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import auctionhouse.AuctionHouse;
+import auctionhouse.EventLoopAuctionHouse;
+import auctionhouse.Money;
+import auctionhouse.ShardedAuctionHouse;
+import auctionhouse.Status;
+
+/**
+ * makeBid from 8 threads on 4 shards, each shard either locked and called
+ * on the bidders' threads or run by a thread of its own. Bids go round
+ * HOT_LOTS open lots, each raising its lot's bid by the increment. Reports
+ * throughput and the latency distribution, including p99.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class EventLoopBenchmark {
+
+    private static final int SHARDS = 4;
+
+    @Param({ "locked", "eventLoop" })
+    public String engine;
+
+    private AuctionHouse house;
+    private final AtomicInteger nextBid = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        house = engine.equals("locked")
+                ? new ShardedAuctionHouse(Houses.parameters(), SHARDS)
+                : new EventLoopAuctionHouse(Houses.parameters(), SHARDS);
+        Houses.registerBuyers(house, 0, Houses.WATCHERS);
+        Houses.registerSellers(house);
+        Houses.addLots(house, 0, Houses.HOT_LOTS);
+        for (int lot = 0; lot < Houses.HOT_LOTS; lot++) {
+            house.noteInterest(Houses.BUYER_NAMES[lot % Houses.WATCHERS], lot);
+            house.openAuction(Houses.AUCTIONEER, "@" + Houses.AUCTIONEER, lot);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        if (house instanceof EventLoopAuctionHouse) {
+            ((EventLoopAuctionHouse) house).close();
+        }
+    }
+
+    @Benchmark
+    public Status makeBid() {
+        int n = nextBid.getAndIncrement();
+        int lot = n % Houses.HOT_LOTS;
+        // Rounds of bids on a lot rise by the increment; threads racing in
+        // the same round tie, and all but the first are rejected.
+        Money bid = Money.ofPence((n / Houses.HOT_LOTS + 1) * Houses.INCREMENT.pence());
+        return house.makeBid(Houses.BUYER_NAMES[n % Houses.WATCHERS], lot, bid);
+    }
+}
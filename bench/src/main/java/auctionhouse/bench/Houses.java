@@ -0,0 +1,101 @@
+package auctionhouse.bench;
+
+import auctionhouse.AuctionHouse;
+import auctionhouse.AuctionHouseImp;
+import auctionhouse.Money;
+import auctionhouse.Parameters;
+
+/**
+ * Builds auction houses at the scales used by the benchmarks.
+ * <p>
+ * A full house has BUYERS registered buyers and LOTS lots from SELLERS
+ * sellers. The first HOT_LOTS lots each have WATCHERS interested buyers;
+ * giving every lot that many would need 10^8 interest entries.
+ */
+final class Houses {
+
+    static final int BUYERS = 100_000;
+    static final int SELLERS = 1_000;
+    static final int LOTS = 100_000;
+    static final int HOT_LOTS = 1_000;
+    static final int WATCHERS = 1_000;
+
+    static final Money INCREMENT = new Money("1.00");
+    static final Money RESERVE = new Money("50.00");
+    static final String AUCTIONEER = "Auctioneer";
+
+    static final String[] BUYER_NAMES = names("Buyer", 2 * BUYERS);
+    static final String[] SELLER_NAMES = names("Seller", SELLERS);
+
+    private Houses() {
+    }
+
+    private static String[] names(String prefix, int n) {
+        String[] names = new String[n];
+        for (int i = 0; i < n; i++) {
+            names[i] = prefix + i;
+        }
+        return names;
+    }
+
+    static Parameters parameters() {
+        return new Parameters(
+                10.0,
+                15.0,
+                INCREMENT,
+                "AH A/C",
+                "AH-auth",
+                new NoOpMessagingService(),
+                new NoOpBankingService());
+    }
+
+    static AuctionHouse empty() {
+        return new AuctionHouseImp(parameters());
+    }
+
+    static void registerBuyers(AuctionHouse house, int from, int to) {
+        for (int b = from; b < to; b++) {
+            String name = BUYER_NAMES[b];
+            house.registerBuyer(name, "@" + name, name + " A/C", name + "-auth");
+        }
+    }
+
+    static void registerSellers(AuctionHouse house) {
+        for (String name : SELLER_NAMES) {
+            house.registerSeller(name, "@" + name, name + " A/C");
+        }
+    }
+
+    static void addLots(AuctionHouse house, int from, int to) {
+        for (int lot = from; lot < to; lot++) {
+            house.addLot(SELLER_NAMES[lot % SELLERS], lot, "Lot " + lot, RESERVE);
+        }
+    }
+
+    /**
+     * Buyer w of the WATCHERS buyers interested in hot lot lot.
+     */
+    static String watcher(int lot, int w) {
+        return BUYER_NAMES[(lot * WATCHERS + w) % BUYERS];
+    }
+
+    /**
+     * A house with all buyers, sellers and lots, where every hot lot has its
+     * watchers and, if open is set, is in auction.
+     */
+    static AuctionHouse full(boolean open) {
+        AuctionHouse house = empty();
+        registerBuyers(house, 0, BUYERS);
+        registerSellers(house);
+        addLots(house, 0, LOTS);
+        for (int lot = 0; lot < HOT_LOTS; lot++) {
+            for (int w = 0; w < WATCHERS; w++) {
+                house.noteInterest(watcher(lot, w), lot);
+            }
+            if (open) {
+                house.openAuction(AUCTIONEER, "@" + AUCTIONEER, lot);
+            }
+        }
+        return house;
+    }
+}
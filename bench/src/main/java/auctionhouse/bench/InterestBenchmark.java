@@ -0,0 +1,49 @@
+package auctionhouse.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import auctionhouse.AuctionHouse;
+import auctionhouse.Status;
+
+/**
+ * noteInterest on lots that already have 10^3 interested buyers, cycling
+ * through all buyers and hot lots.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InterestBenchmark {
+
+    private AuctionHouse house;
+    private int buyer;
+    private int lot;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        house = Houses.full(false);
+        buyer = 0;
+        lot = 0;
+    }
+
+    @Benchmark
+    public Status noteInterest() {
+        if (++buyer == Houses.BUYERS) buyer = 0;
+        if (++lot == Houses.HOT_LOTS) lot = 0;
+        return house.noteInterest(Houses.BUYER_NAMES[buyer], lot);
+    }
+}
@@ -0,0 +1,69 @@
+package auctionhouse.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import auctionhouse.BatchBankingService;
+import auctionhouse.Money;
+import auctionhouse.Status;
+import auctionhouse.Transfer;
+
+/**
+ * Stand-in for a remote bank: every request succeeds after blocking the
+ * caller for a fixed time, as a network round trip would. A batch costs one
+ * round trip however many transfers it holds.
+ * <p>
+ * Given a number of connections, at most that many requests are in flight
+ * at once and the rest queue for a connection, as with a bank that limits
+ * how many calls each client may make.
+ */
+public class LatencyBankingService implements BatchBankingService {
+
+    private static final Status OK = Status.OK();
+
+    private final long latencyNanos;
+    private final Semaphore connections;
+
+    public LatencyBankingService(long latencyMillis) {
+        this(latencyMillis, Integer.MAX_VALUE);
+    }
+
+    public LatencyBankingService(long latencyMillis, int connections) {
+        this.latencyNanos = TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+        this.connections = new Semaphore(connections);
+    }
+
+    private void roundTrip() {
+        connections.acquireUninterruptibly();
+        try {
+            long deadline = System.nanoTime() + latencyNanos;
+            long left;
+            while ((left = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(left);
+            }
+        } finally {
+            connections.release();
+        }
+    }
+
+    public Status transfer(
+            String senderAccount,
+            String senderAuthCode,
+            String receiverAccount,
+            Money amount) {
+        roundTrip();
+        return OK;
+    }
+
+    public List<Status> transferBatch(List<Transfer> transfers) {
+        roundTrip();
+        List<Status> statuses = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            statuses.add(OK);
+        }
+        return statuses;
+    }
+}
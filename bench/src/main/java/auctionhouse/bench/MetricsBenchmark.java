@@ -0,0 +1,63 @@
+package auctionhouse.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import auctionhouse.AuctionHouse;
+import auctionhouse.AuctionHouseImp;
+import auctionhouse.MeteredAuctionHouse;
+import auctionhouse.Metrics;
+import auctionhouse.Money;
+import auctionhouse.Status;
+import auctionhouse.Tracer;
+
+/**
+ * What metering adds to makeBid on a lot with a single interested buyer:
+ * the bare house, or one wrapped in a MeteredAuctionHouse.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsBenchmark {
+
+    @Param({ "off", "metered" })
+    public String metrics;
+
+    private AuctionHouse house;
+    private long nextPence;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        AuctionHouseImp imp = new AuctionHouseImp(Houses.parameters());
+        imp.setTracer(Tracer.OFF);
+        house = metrics.equals("metered") ? new MeteredAuctionHouse(imp, new Metrics()) : imp;
+        house.registerSeller("Seller", "@Seller", "S A/C");
+        house.registerBuyer("Buyer", "@Buyer", "B A/C", "B-auth");
+        house.addLot("Seller", 1, "Lot", Houses.RESERVE);
+        house.noteInterest("Buyer", 1);
+        house.openAuction(Houses.AUCTIONEER, "@" + Houses.AUCTIONEER, 1);
+        nextPence = Houses.INCREMENT.pence();
+    }
+
+    @Benchmark
+    public Status makeBid() {
+        Money bid = Money.ofPence(nextPence);
+        nextPence += Houses.INCREMENT.pence();
+        return house.makeBid("Buyer", 1, bid);
+    }
+}
@@ -0,0 +1,67 @@
+package auctionhouse.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import auctionhouse.Money;
+
+/**
+ * Money arithmetic as used when checking bids and settling sales.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+    private String text = "1234.56";
+    private Money bid = new Money("1234.56");
+    private Money current = new Money("1200.00");
+    private Money increment = new Money("10.00");
+
+    @Benchmark
+    public Money parse() {
+        return new Money(text);
+    }
+
+    @Benchmark
+    public Money add() {
+        return current.add(increment);
+    }
+
+    @Benchmark
+    public Money subtract() {
+        return bid.subtract(current);
+    }
+
+    @Benchmark
+    public Money addPercent() {
+        return bid.addPercent(10.0);
+    }
+
+    @Benchmark
+    public int compareTo() {
+        return bid.compareTo(current);
+    }
+
+    @Benchmark
+    public int compareToSum() {
+        return bid.compareToSum(current, increment);
+    }
+
+    @Benchmark
+    public String format() {
+        return bid.toString();
+    }
+}
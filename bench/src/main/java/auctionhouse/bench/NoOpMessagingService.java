@@ -0,0 +1,23 @@
+package auctionhouse.bench;
+
+import auctionhouse.MessagingService;
+import auctionhouse.Money;
+
+/**
+ * MessagingService that drops every message, so that benchmarks measure
+ * the auction house rather than the stub.
+ */
+public class NoOpMessagingService implements MessagingService {
+
+    public void auctionOpened(String address, int lotNumber) {
+    }
+
+    public void bidAccepted(String address, int lotNumber, Money amount) {
+    }
+
+    public void lotSold(String address, int lotNumber) {
+    }
+
+    public void lotUnsold(String address, int lotNumber) {
+    }
+}
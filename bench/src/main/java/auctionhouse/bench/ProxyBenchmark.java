@@ -0,0 +1,70 @@
+package auctionhouse.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import auctionhouse.BidEngine;
+import auctionhouse.BidHistory;
+import auctionhouse.BuyerActivity;
+import auctionhouse.LotStore;
+import auctionhouse.Money;
+import auctionhouse.ProxySet;
+
+/**
+ * BidEngine.offer on a lot holding a given number of proxy bids, all with
+ * maxima too high to exhaust, so that every bid is answered by a proxy.
+ * The engine is driven directly, since through a house each bid would also
+ * be sent to every buyer watching, and there is one per proxy. The cost
+ * should barely grow with the number of proxies.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProxyBenchmark {
+
+    @Param({ "1", "1000", "100000" })
+    public int proxies;
+
+    private BidEngine engine;
+    private LotStore lots;
+    private int slot;
+    private long nextPence;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        lots = new LotStore();
+        engine = new BidEngine(Houses.INCREMENT, lots, new BidHistory(), new BuyerActivity(lots));
+        slot = lots.add(1, 0, "Lot", Houses.RESERVE.pence());
+        engine.open(slot);
+        ProxySet set = lots.proxiesOrCreate(slot);
+        // Buyer 0 bids by hand; the rest leave proxies.
+        for (int buyer = 1; buyer <= proxies; buyer++) {
+            set.put(buyer, Long.MAX_VALUE / 4 - buyer);
+        }
+        engine.answerProxies(slot);
+        nextPence = lots.highestBid(slot).amount.pence() + Houses.INCREMENT.pence();
+    }
+
+    @Benchmark
+    public BidEngine.Outcome offer() {
+        BidEngine.Outcome outcome = engine.offer(slot, 0, Money.ofPence(nextPence));
+        // The proxy answers one increment higher.
+        nextPence += 2 * Houses.INCREMENT.pence();
+        return outcome;
+    }
+}
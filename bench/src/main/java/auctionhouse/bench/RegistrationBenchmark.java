@@ -0,0 +1,55 @@
+package auctionhouse.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import auctionhouse.AuctionHouse;
+import auctionhouse.Status;
+
+/**
+ * Time to register 10^5 new buyers, or add 10^5 new lots, to a house that
+ * already holds 10^5 of each. Each measured batch starts from a fresh house.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = Houses.BUYERS)
+@Measurement(iterations = 10, batchSize = Houses.BUYERS)
+@Fork(1)
+@State(Scope.Thread)
+public class RegistrationBenchmark {
+
+    private AuctionHouse house;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        house = Houses.empty();
+        Houses.registerBuyers(house, 0, Houses.BUYERS);
+        Houses.registerSellers(house);
+        Houses.addLots(house, 0, Houses.LOTS);
+        next = 0;
+    }
+
+    @Benchmark
+    public Status registerBuyer() {
+        String name = Houses.BUYER_NAMES[Houses.BUYERS + next++];
+        return house.registerBuyer(name, name, name, name);
+    }
+
+    @Benchmark
+    public Status addLot() {
+        int lot = Houses.LOTS + next++;
+        return house.addLot(Houses.SELLER_NAMES[lot % Houses.SELLERS], lot, "New lot", Houses.RESERVE);
+    }
+}
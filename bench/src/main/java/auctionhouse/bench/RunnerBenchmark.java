@@ -0,0 +1,95 @@
+package auctionhouse.bench;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import auctionhouse.AuctionHouse;
+import auctionhouse.AuctionHouseImp;
+import auctionhouse.AuctionHouseRunner;
+import auctionhouse.Money;
+import auctionhouse.Parameters;
+
+/**
+ * Time to close a burst of BURST sold lots through an AuctionHouseRunner
+ * when each bank transfer takes LATENCY_MILLIS. A pool of POOL threads
+ * gets through POOL closes per two round trips; a thread per request
+ * (virtual on Java 21 and later) waits on all of them at once.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RunnerBenchmark {
+
+    private static final int BURST = 2_000;
+    private static final int POOL = 64;
+    private static final long LATENCY_MILLIS = 20;
+
+    @Param({ "pool", "perRequest" })
+    public String threads;
+
+    private AuctionHouse house;
+    private AuctionHouseRunner runner;
+    private int firstLot;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        house = new AuctionHouseImp(new Parameters(
+                10.0,
+                15.0,
+                Houses.INCREMENT,
+                "AH A/C",
+                "AH-auth",
+                new NoOpMessagingService(),
+                new LatencyBankingService(LATENCY_MILLIS)));
+        Houses.registerBuyers(house, 0, 1);
+        Houses.registerSellers(house);
+        runner = threads.equals("pool")
+                ? new AuctionHouseRunner(house, Executors.newFixedThreadPool(POOL))
+                : AuctionHouseRunner.perRequest(house);
+    }
+
+    @Setup(Level.Invocation)
+    public void openBurst() {
+        firstLot += BURST;
+        String buyer = Houses.BUYER_NAMES[0];
+        Money bid = Houses.RESERVE.add(Houses.INCREMENT);
+        Houses.addLots(house, firstLot, firstLot + BURST);
+        for (int lot = firstLot; lot < firstLot + BURST; lot++) {
+            house.noteInterest(buyer, lot);
+            house.openAuction(Houses.AUCTIONEER, "@" + Houses.AUCTIONEER, lot);
+            house.makeBid(buyer, lot, bid);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        runner.close();
+    }
+
+    @Benchmark
+    public void closeBurst() {
+        CompletableFuture<?>[] closes = new CompletableFuture<?>[BURST];
+        for (int i = 0; i < BURST; i++) {
+            closes[i] = runner.closeAuction(Houses.AUCTIONEER, firstLot + i);
+        }
+        CompletableFuture.allOf(closes).join();
+    }
+}
@@ -0,0 +1,102 @@
+package auctionhouse.bench;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import auctionhouse.AuctionHouseImp;
+import auctionhouse.BankingService;
+import auctionhouse.Money;
+import auctionhouse.Parameters;
+import auctionhouse.SettlementPipeline;
+
+/**
+ * Time for one thread to close BURST sold lots, as at the end of a sale
+ * day, when each bank transfer takes LATENCY_MILLIS: one closeAuction after
+ * another, or through a SettlementPipeline with BANKING_THREADS threads.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SettlementBenchmark {
+
+    private static final int BURST = 200;
+    private static final int BANKING_THREADS = 32;
+    private static final long LATENCY_MILLIS = 5;
+
+    @Param({ "serial", "pipeline" })
+    public String settle;
+
+    private AuctionHouseImp house;
+    private SettlementPipeline pipeline;
+    private int firstLot;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BankingService bank = new LatencyBankingService(LATENCY_MILLIS);
+        house = new AuctionHouseImp(new Parameters(
+                10.0,
+                15.0,
+                Houses.INCREMENT,
+                "AH A/C",
+                "AH-auth",
+                new NoOpMessagingService(),
+                bank));
+        Houses.registerBuyers(house, 0, 1);
+        Houses.registerSellers(house);
+        if (settle.equals("pipeline")) {
+            pipeline = new SettlementPipeline(house, bank, BANKING_THREADS);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void openBurst() {
+        firstLot += BURST;
+        String buyer = Houses.BUYER_NAMES[0];
+        Money bid = Houses.RESERVE.add(Houses.INCREMENT);
+        Houses.addLots(house, firstLot, firstLot + BURST);
+        for (int lot = firstLot; lot < firstLot + BURST; lot++) {
+            house.noteInterest(buyer, lot);
+            house.openAuction(Houses.AUCTIONEER, "@" + Houses.AUCTIONEER, lot);
+            house.makeBid(buyer, lot, bid);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    @Benchmark
+    public void closeBurst() {
+        if (pipeline == null) {
+            for (int i = 0; i < BURST; i++) {
+                house.closeAuction(Houses.AUCTIONEER, firstLot + i);
+            }
+            return;
+        }
+        CompletableFuture<?>[] closes = new CompletableFuture<?>[BURST];
+        for (int i = 0; i < BURST; i++) {
+            closes[i] = pipeline.closeAuction(Houses.AUCTIONEER, firstLot + i);
+        }
+        CompletableFuture.allOf(closes).join();
+    }
+}
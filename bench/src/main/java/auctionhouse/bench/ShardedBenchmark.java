@@ -0,0 +1,65 @@
+package auctionhouse.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import auctionhouse.Money;
+import auctionhouse.ShardedAuctionHouse;
+import auctionhouse.Status;
+
+/**
+ * Throughput of whole auctions over a ShardedAuctionHouse with 1 to 8
+ * shards, from 8 threads at once. Each operation adds a fresh lot, opens it,
+ * takes two bids and closes it, so every call locks or indexes in the lot's
+ * shard only. Throughput should grow with the shard count up to the number
+ * of cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ShardedBenchmark {
+
+    private static final Money FIRST = new Money("60.00");
+    private static final Money SECOND = new Money("61.00");
+
+    @Param({ "1", "2", "4", "8" })
+    public int shards;
+
+    private ShardedAuctionHouse house;
+    private final AtomicInteger nextLot = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        house = new ShardedAuctionHouse(Houses.parameters(), shards);
+        Houses.registerBuyers(house, 0, Houses.WATCHERS);
+        Houses.registerSellers(house);
+    }
+
+    @Benchmark
+    public Status auction() {
+        int lot = nextLot.getAndIncrement();
+        house.addLot(Houses.SELLER_NAMES[lot % Houses.SELLERS], lot, "Lot", Houses.RESERVE);
+        house.openAuction(Houses.AUCTIONEER, "@" + Houses.AUCTIONEER, lot);
+        house.makeBid(Houses.BUYER_NAMES[lot % Houses.WATCHERS], lot, FIRST);
+        house.makeBid(Houses.BUYER_NAMES[(lot + 1) % Houses.WATCHERS], lot, SECOND);
+        return house.closeAuction(Houses.AUCTIONEER, lot);
+    }
+}
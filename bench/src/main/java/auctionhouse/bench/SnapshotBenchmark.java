@@ -0,0 +1,76 @@
+package auctionhouse.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import auctionhouse.AuctionHouse;
+import auctionhouse.AuctionHouseImp;
+
+/**
+ * Writing a snapshot of a house with BUYERS buyers and the given number of
+ * lots, and a cold start that loads it.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+    @Param({ "1000000" })
+    public int lots;
+
+    private Path dir;
+    private Path snapshot;
+    private AuctionHouseImp house;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        house = new AuctionHouseImp(Houses.parameters());
+        Houses.registerBuyers(house, 0, Houses.BUYERS);
+        Houses.registerSellers(house);
+        Houses.addLots(house, 0, lots);
+        for (int lot = 0; lot < Houses.HOT_LOTS; lot++) {
+            for (int w = 0; w < Houses.WATCHERS; w++) {
+                house.noteInterest(Houses.watcher(lot, w), lot);
+            }
+            house.openAuction(Houses.AUCTIONEER, "@" + Houses.AUCTIONEER, lot);
+        }
+        dir = Files.createTempDirectory("auctionhouse-bench");
+        snapshot = dir.resolve("auctionhouse.snapshot");
+        house.snapshot(snapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot);
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public void snapshot() throws IOException {
+        house.snapshot(snapshot);
+    }
+
+    @Benchmark
+    public AuctionHouse coldStart() throws IOException {
+        return new AuctionHouseImp(Houses.parameters(), snapshot, null);
+    }
+}
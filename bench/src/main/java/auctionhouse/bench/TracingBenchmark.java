@@ -0,0 +1,76 @@
+package auctionhouse.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import auctionhouse.AsyncTracer;
+import auctionhouse.AuctionHouseImp;
+import auctionhouse.Money;
+import auctionhouse.Status;
+import auctionhouse.Tracer;
+
+/**
+ * What tracing adds to makeBid on a lot with a single interested buyer:
+ * none, or an AsyncTracer whose sink only consumes each event. Run with
+ * -prof gc to see allocation per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TracingBenchmark {
+
+    @Param({ "off", "async" })
+    public String tracing;
+
+    private AuctionHouseImp house;
+    private AsyncTracer tracer;
+    private long nextPence;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) {
+        house = new AuctionHouseImp(Houses.parameters());
+        if (tracing.equals("async")) {
+            tracer = new AsyncTracer(1 << 16, e -> blackhole.consume(e.value));
+            house.setTracer(tracer);
+        } else {
+            house.setTracer(Tracer.OFF);
+        }
+        house.registerSeller("Seller", "@Seller", "S A/C");
+        house.registerBuyer("Buyer", "@Buyer", "B A/C", "B-auth");
+        house.addLot("Seller", 1, "Lot", Houses.RESERVE);
+        house.noteInterest("Buyer", 1);
+        house.openAuction(Houses.AUCTIONEER, "@" + Houses.AUCTIONEER, 1);
+        nextPence = Houses.INCREMENT.pence();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        if (tracer != null) {
+            tracer.close();
+        }
+    }
+
+    @Benchmark
+    public Status makeBid() {
+        Money bid = Money.ofPence(nextPence);
+        nextPence += Houses.INCREMENT.pence();
+        return house.makeBid("Buyer", 1, bid);
+    }
+}
@@ -15,7 +15,13 @@ import org.junit.runners.Suite.SuiteClasses;
  *
  */
 @RunWith(Suite.class)
-@SuiteClasses({ MoneyTest.class, AuctionHouseTest.class })
+@SuiteClasses({ MoneyTest.class, AuctionHouseTest.class, AuctionHouseConcurrencyTest.class,
+    InterestSetTest.class, AsyncMessagingServiceTest.class, EventLogTest.class,
+    SnapshotTest.class, LotStoreTest.class, ParticipantRegistryTest.class,
+    ShardedAuctionHouseTest.class, EventLoopAuctionHouseTest.class, AsyncAuctionHouseTest.class,
+    AuctionHouseRunnerTest.class, SettlementPipelineTest.class, BatchingBankingServiceTest.class,
+    PaymentRetrierTest.class, TracerTest.class, MetricsTest.class, BidHistoryTest.class,
+    BuyerActivityTest.class, ProxyBidTest.class })
 public class AllTests {
 
     public static void main(String[] args) {
@@ -0,0 +1,59 @@
+/**
+ * 
+ */
+package auctionhouse;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The operations of AuctionHouse, each returning a future of its result
+ * instead of waiting for it.
+ */
+public interface AsyncAuctionHouse {
+
+    CompletableFuture<Status> registerBuyer(
+            String name,
+            String address,
+            String bankAccount,
+            String bankAuthCode);
+
+    CompletableFuture<Status> registerSeller(
+            String name,
+            String address,
+            String bankAccount);
+
+    CompletableFuture<Status> addLot(
+            String sellerName,
+            int number,
+            String description,
+            Money reservePrice);
+
+    CompletableFuture<List<CatalogueEntry>> viewCatalogue();
+
+    /**
+     * @see AuctionHouse#viewCatalogue(LotStatus, int, int)
+     */
+    CompletableFuture<List<CatalogueEntry>> viewCatalogue(
+            LotStatus status,
+            int fromLotNumber,
+            int pageSize);
+
+    CompletableFuture<Status> noteInterest(
+            String buyerName,
+            int lotNumber);
+
+    CompletableFuture<Status> openAuction(
+            String auctioneerName,
+            String auctioneerAddress,
+            int lotNumber);
+
+    CompletableFuture<Status> makeBid(
+            String buyerName,
+            int lotNumber,
+            Money bid);
+
+    CompletableFuture<Status> closeAuction(
+            String auctioneerName,
+            int lotNumber);
+}
@@ -0,0 +1,80 @@
+package auctionhouse;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * AsyncAuctionHouse over an AuctionHouseImp.
+ * <p>
+ * closeAuction is the only operation that waits on anything but memory: it
+ * makes its two payments through an AsyncBankingService and records the
+ * outcome when both have completed, on whichever thread completes the second.
+ * No thread waits for the bank in between, so the number of closes in
+ * progress is not limited by the number of threads. Outcomes are exactly
+ * those of AuctionHouseImp.closeAuction; a transfer whose future fails
+ * counts as a failed transfer.
+ * <p>
+ * Every other operation runs at once on the caller's thread and returns a
+ * completed future. Give the house an AsyncMessagingService so that sending
+ * messages does not block either.
+ */
+public class AsyncAuctionHouseImp implements AsyncAuctionHouse {
+
+    private final AuctionHouseImp house;
+    private final AsyncBankingService bankingService;
+
+    /**
+     * @param house the house whose logic to run; its own BankingService is
+     *        not used by closeAuction here
+     * @param bankingService makes the payments of closeAuction
+     */
+    public AsyncAuctionHouseImp(AuctionHouseImp house, AsyncBankingService bankingService) {
+        this.house = house;
+        this.bankingService = bankingService;
+    }
+
+    public CompletableFuture<Status> registerBuyer(
+            String name, String address, String bankAccount, String bankAuthCode) {
+        return CompletableFuture.completedFuture(house.registerBuyer(name, address, bankAccount, bankAuthCode));
+    }
+
+    public CompletableFuture<Status> registerSeller(String name, String address, String bankAccount) {
+        return CompletableFuture.completedFuture(house.registerSeller(name, address, bankAccount));
+    }
+
+    public CompletableFuture<Status> addLot(String sellerName, int number, String description, Money reservePrice) {
+        return CompletableFuture.completedFuture(house.addLot(sellerName, number, description, reservePrice));
+    }
+
+    public CompletableFuture<List<CatalogueEntry>> viewCatalogue() {
+        return CompletableFuture.completedFuture(house.viewCatalogue());
+    }
+
+    public CompletableFuture<List<CatalogueEntry>> viewCatalogue(LotStatus status, int fromLotNumber, int pageSize) {
+        return CompletableFuture.completedFuture(house.viewCatalogue(status, fromLotNumber, pageSize));
+    }
+
+    public CompletableFuture<Status> noteInterest(String buyerName, int lotNumber) {
+        return CompletableFuture.completedFuture(house.noteInterest(buyerName, lotNumber));
+    }
+
+    public CompletableFuture<Status> openAuction(String auctioneerName, String auctioneerAddress, int lotNumber) {
+        return CompletableFuture.completedFuture(house.openAuction(auctioneerName, auctioneerAddress, lotNumber));
+    }
+
+    public CompletableFuture<Status> makeBid(String buyerName, int lotNumber, Money bid) {
+        return CompletableFuture.completedFuture(house.makeBid(buyerName, lotNumber, bid));
+    }
+
+    public CompletableFuture<Status> closeAuction(String auctioneerName, int lotNumber) {
+        Settlement settlement = house.beginClose(auctioneerName, lotNumber);
+        if (settlement.result != null) {
+            house.notifyUnsold(settlement);
+            return CompletableFuture.completedFuture(settlement.result);
+        }
+        // Paid one after the other, in the same order as closeAuction.
+        return settlement.payHouseAsync(bankingService).thenCompose(buyerToHouse ->
+                settlement.paySellerAsync(bankingService).thenApply(houseToSeller ->
+                        house.finishClose(settlement, buyerToHouse, houseToSeller)));
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ *
+ */
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncAuctionHouseTest {
+
+    /*
+     * Hands out transfers for the test to complete when it chooses, or
+     * throws while down.
+     */
+    private static class PendingBank implements AsyncBankingService {
+        final List<CompletableFuture<Status>> transfers = new ArrayList<>();
+        volatile boolean down;
+
+        public synchronized CompletableFuture<Status> transfer(
+                String senderAccount, String senderAuthCode, String receiverAccount, Money amount) {
+            if (down) {
+                throw new IllegalStateException("Bank unavailable");
+            }
+            CompletableFuture<Status> transfer = new CompletableFuture<>();
+            transfers.add(transfer);
+            return transfer;
+        }
+    }
+
+    private PendingBank bank;
+    private AuctionHouseImp house;
+    private AsyncAuctionHouse async;
+
+    @Before
+    public void setup() {
+        house = new AuctionHouseImp(MockServices.parameters(MockServices.SILENT, new MockBankingService()));
+        bank = new PendingBank();
+        async = new AsyncAuctionHouseImp(house, bank);
+        assertOK(async.registerSeller("SellerY", "@SellerY", "SY A/C"));
+        assertOK(async.registerBuyer("BuyerA", "@BuyerA", "BA A/C", "BA-auth"));
+    }
+
+    private static void assertOK(CompletableFuture<Status> status) {
+        assertEquals(Status.Kind.OK, status.join().kind);
+    }
+
+    private void sellToBuyerA(AsyncAuctionHouse async, int lot) {
+        assertOK(async.addLot("SellerY", lot, "Lot " + lot, new Money("10.00")));
+        assertOK(async.noteInterest("BuyerA", lot));
+        assertOK(async.openAuction("Auctioneer", "@Auctioneer", lot));
+        assertOK(async.makeBid("BuyerA", lot, new Money("20.00")));
+    }
+
+    @Test
+    public void testThrowingTransferLeavesSalePending() {
+        sellToBuyerA(async, 1);
+        bank.down = true;
+        assertEquals(Status.Kind.SALE_PENDING_PAYMENT, async.closeAuction("Auctioneer", 1).join().kind);
+        assertEquals(LotStatus.SOLD_PENDING_PAYMENT, house.viewCatalogue().get(0).status);
+    }
+
+    @Test
+    public void testCloseWaitsForPayments() {
+        sellToBuyerA(async, 1);
+        CompletableFuture<Status> close = async.closeAuction("Auctioneer", 1);
+        assertFalse(close.isDone());
+        assertEquals(1, bank.transfers.size());
+        assertEquals(Status.Kind.ERROR, async.closeAuction("Auctioneer", 1).join().kind);
+        assertEquals(Status.Kind.ERROR, async.makeBid("BuyerA", 1, new Money("30.00")).join().kind);
+        assertEquals(LotStatus.IN_AUCTION, house.viewCatalogue().get(0).status);
+
+        bank.transfers.get(0).complete(Status.OK());
+        assertFalse(close.isDone());
+        bank.transfers.get(1).complete(Status.OK());
+        assertEquals(Status.Kind.SALE, close.join().kind);
+        assertEquals(LotStatus.SOLD, house.viewCatalogue().get(0).status);
+    }
+
+    @Test
+    public void testFailedTransferLeavesPaymentPending() {
+        sellToBuyerA(async, 1);
+        CompletableFuture<Status> close = async.closeAuction("Auctioneer", 1);
+        bank.transfers.get(0).completeExceptionally(new IllegalStateException("Bank unreachable"));
+        bank.transfers.get(1).complete(Status.OK());
+        assertEquals(Status.Kind.SALE_PENDING_PAYMENT, close.join().kind);
+        assertEquals(LotStatus.SOLD_PENDING_PAYMENT, house.viewCatalogue().get(0).status);
+    }
+
+    @Test
+    public void testNoSaleCompletesAtOnce() {
+        assertOK(async.addLot("SellerY", 1, "Lot 1", new Money("10.00")));
+        assertOK(async.openAuction("Auctioneer", "@Auctioneer", 1));
+        assertEquals(Status.Kind.NO_SALE, async.closeAuction("Auctioneer", 1).join().kind);
+        assertEquals(0, bank.transfers.size());
+    }
+
+    @Test
+    public void testThousandClosesOnTwoThreads() {
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+        try {
+            AsyncAuctionHouse slow = new AsyncAuctionHouseImp(house,
+                    (senderAccount, senderAuthCode, receiverAccount, amount) -> {
+                        CompletableFuture<Status> transfer = new CompletableFuture<>();
+                        scheduler.schedule(() -> transfer.complete(Status.OK()), 50, TimeUnit.MILLISECONDS);
+                        return transfer;
+                    });
+            int lots = 1000;
+            List<CompletableFuture<Status>> closes = new ArrayList<>();
+            for (int lot = 0; lot < lots; lot++) {
+                sellToBuyerA(slow, lot);
+                closes.add(slow.closeAuction("Auctioneer", lot));
+            }
+            for (CompletableFuture<Status> close : closes) {
+                assertEquals(Status.Kind.SALE, close.join().kind);
+            }
+            assertEquals(lots, house.viewCatalogue(LotStatus.SOLD, 0, lots).size());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package auctionhouse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A BankingService whose transfers complete later instead of blocking the
+ * caller.
+ */
+public interface AsyncBankingService {
+
+    CompletableFuture<Status> transfer(
+            String senderAccount,
+            String senderAuthCode,
+            String receiverAccount,
+            Money amount);
+
+    /**
+     * A transfer with the idempotency key of an IdempotentBankingService.
+     * Services that cannot pass keys on ignore it.
+     */
+    default CompletableFuture<Status> transfer(
+            String idempotencyKey,
+            String senderAccount,
+            String senderAuthCode,
+            String receiverAccount,
+            Money amount) {
+        return transfer(senderAccount, senderAuthCode, receiverAccount, amount);
+    }
+
+    /**
+     * Run the transfers of a blocking BankingService on executor. The callers
+     * no longer wait, but each transfer in progress still ties up a thread
+     * of executor. Idempotency keys are passed on if bank is an
+     * IdempotentBankingService.
+     */
+    static AsyncBankingService on(Executor executor, BankingService bank) {
+        return new AsyncBankingService() {
+            public CompletableFuture<Status> transfer(
+                    String senderAccount, String senderAuthCode, String receiverAccount, Money amount) {
+                return CompletableFuture.supplyAsync(
+                        () -> bank.transfer(senderAccount, senderAuthCode, receiverAccount, amount), executor);
+            }
+
+            public CompletableFuture<Status> transfer(
+                    String idempotencyKey,
+                    String senderAccount,
+                    String senderAuthCode,
+                    String receiverAccount,
+                    Money amount) {
+                if (!(bank instanceof IdempotentBankingService)) {
+                    return transfer(senderAccount, senderAuthCode, receiverAccount, amount);
+                }
+                IdempotentBankingService idempotent = (IdempotentBankingService) bank;
+                return CompletableFuture.supplyAsync(() -> idempotent.transfer(
+                        idempotencyKey, senderAccount, senderAuthCode, receiverAccount, amount), executor);
+            }
+        };
+    }
+}
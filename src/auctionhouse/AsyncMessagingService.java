@@ -0,0 +1,325 @@
+package auctionhouse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * MessagingService that hands messages to background workers instead of
+ * sending them on the caller's thread.
+ * <p>
+ * Each worker owns a bounded queue and sends what it finds there in batches
+ * of up to batchSize. Every address is always routed to the same worker, so
+ * messages to one address are delivered in the order they were sent. When a
+ * worker's queue is full the caller waits for room, so a slow messaging
+ * backend slows senders down rather than filling the heap.
+ * <p>
+ * With coalescing turned on, a bidAccepted for an address and lot that
+ * still has an undelivered bidAccepted waiting does not queue a second
+ * message: the waiting one is changed to carry the higher of the two
+ * amounts. Bids on a lot only ever rise, so that is the latest bid even if
+ * the two were sent in the wrong order. Watchers of a hot lot then get the
+ * latest bid rather than every bid. Another message to the same address
+ * and lot ends the waiting bid's run, so a later bid queues behind it;
+ * other messages are never merged, dropped or reordered.
+ * <p>
+ * Wrap the real service and pass this to Parameters; call flush() to wait
+ * for everything sent so far and shutdown() when done.
+ */
+public class AsyncMessagingService implements MessagingService {
+
+    private static Logger logger = Logger.getLogger("auctionhouse");
+
+    /**
+     * One message waiting to be delivered.
+     */
+    static class Message {
+        enum Kind { OPENED, BID, SOLD, UNSOLD }
+
+        final Kind kind;
+        final String address;
+        final int lotNumber;
+        // Only changed by coalescing, inside pendingBids.compute.
+        Money amount;
+
+        Message(Kind kind, String address, int lotNumber, Money amount) {
+            this.kind = kind;
+            this.address = address;
+            this.lotNumber = lotNumber;
+            this.amount = amount;
+        }
+
+        void deliver(MessagingService target) {
+            switch (kind) {
+            case OPENED: target.auctionOpened(address, lotNumber); break;
+            case BID:    target.bidAccepted(address, lotNumber, amount); break;
+            case SOLD:   target.lotSold(address, lotNumber); break;
+            case UNSOLD: target.lotUnsold(address, lotNumber); break;
+            }
+        }
+    }
+
+    /**
+     * A bidAccepted that later bids to the same address and lot can update.
+     */
+    static final class Bid extends Message {
+        final Key key;
+
+        Bid(Key key, Money amount) {
+            super(Kind.BID, key.address, key.lotNumber, amount);
+            this.key = key;
+        }
+    }
+
+    static final class Key {
+        final String address;
+        final int lotNumber;
+
+        Key(String address, int lotNumber) {
+            this.address = address;
+            this.lotNumber = lotNumber;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return lotNumber == k.lotNumber && address.equals(k.address);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * address.hashCode() + lotNumber;
+        }
+    }
+
+    private static final Message STOP = new Message(null, null, 0, null);
+
+    private final class Worker implements Runnable {
+        final BlockingQueue<Message> queue;
+        final AtomicLong enqueued = new AtomicLong();
+        volatile long delivered;
+
+        Worker(int capacity) {
+            queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void put(Message m) {
+            enqueued.incrementAndGet();
+            try {
+                queue.put(m);
+            } catch (InterruptedException e) {
+                enqueued.decrementAndGet();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while queueing a message", e);
+            }
+        }
+
+        public void run() {
+            List<Message> batch = new ArrayList<>(batchSize);
+            try {
+                boolean stop = false;
+                while (!stop) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, batchSize - 1);
+                    int n = 0;
+                    for (Message m : batch) {
+                        if (m == STOP) {
+                            stop = true;
+                            break;
+                        }
+                        if (m instanceof Bid) {
+                            // From here on a new bid queues a new message, and
+                            // every earlier update to this one is visible.
+                            pendingBids.remove(((Bid) m).key, m);
+                        }
+                        try {
+                            m.deliver(target);
+                        } catch (RuntimeException e) {
+                            logger.log(Level.WARNING, "Failed to deliver message to " + m.address, e);
+                        }
+                        n++;
+                    }
+                    delivered += n;
+                    batch.clear();
+                    signalDelivered();
+                }
+            } catch (InterruptedException e) {
+                // Shutting down without draining.
+            }
+        }
+    }
+
+    private final MessagingService target;
+    private final int batchSize;
+    private final Worker[] workers;
+    private final Thread[] threads;
+
+    // Undelivered bids by address and lot; null unless coalescing.
+    private final ConcurrentHashMap<Key, Bid> pendingBids;
+    private final LongAdder coalesced = new LongAdder();
+
+    private final ReentrantLock deliveredLock = new ReentrantLock();
+    private final Condition deliveredCondition = deliveredLock.newCondition();
+
+    /**
+     * @param target the service that actually sends messages
+     * @param workerCount number of background threads
+     * @param capacity messages each worker may have waiting before senders block
+     * @param batchSize most messages a worker takes from its queue at once
+     * @param coalesceBids whether waiting bidAccepted messages are updated
+     *        in place rather than followed by another
+     */
+    public AsyncMessagingService(
+            MessagingService target,
+            int workerCount,
+            int capacity,
+            int batchSize,
+            boolean coalesceBids) {
+        this.target = target;
+        this.batchSize = batchSize;
+        pendingBids = coalesceBids ? new ConcurrentHashMap<Key, Bid>() : null;
+        workers = new Worker[workerCount];
+        threads = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Worker(capacity);
+            threads[i] = new Thread(workers[i], "auctionhouse-messaging-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+    }
+
+    public AsyncMessagingService(MessagingService target, int workerCount, int capacity, int batchSize) {
+        this(target, workerCount, capacity, batchSize, false);
+    }
+
+    public AsyncMessagingService(MessagingService target) {
+        this(target, 2, 8192, 256);
+    }
+
+    private Worker workerFor(String address) {
+        return workers[Math.floorMod(address.hashCode(), workers.length)];
+    }
+
+    private void send(Message m) {
+        workerFor(m.address).put(m);
+    }
+
+    /*
+     * Send a message other than a bid. A bid still waiting for the same
+     * address and lot stays where it is, but later bids queue behind this.
+     */
+    private void sendAfterBids(Message m) {
+        if (pendingBids != null) {
+            pendingBids.remove(new Key(m.address, m.lotNumber));
+        }
+        send(m);
+    }
+
+    private void signalDelivered() {
+        deliveredLock.lock();
+        try {
+            deliveredCondition.signalAll();
+        } finally {
+            deliveredLock.unlock();
+        }
+    }
+
+    /*
+     * Implementation of MessagingService interface
+     */
+
+    public void auctionOpened(String address, int lotNumber) {
+        sendAfterBids(new Message(Message.Kind.OPENED, address, lotNumber, null));
+    }
+
+    public void bidAccepted(String address, int lotNumber, Money amount) {
+        if (pendingBids == null) {
+            send(new Message(Message.Kind.BID, address, lotNumber, amount));
+            return;
+        }
+        final Bid[] created = new Bid[1];
+        pendingBids.compute(new Key(address, lotNumber), (key, waiting) -> {
+            if (waiting != null) {
+                if (amount.compareTo(waiting.amount) > 0) {
+                    waiting.amount = amount;
+                }
+                return waiting;
+            }
+            created[0] = new Bid(key, amount);
+            return created[0];
+        });
+        if (created[0] != null) {
+            send(created[0]);
+        } else {
+            coalesced.increment();
+        }
+    }
+
+    public void lotSold(String address, int lotNumber) {
+        sendAfterBids(new Message(Message.Kind.SOLD, address, lotNumber, null));
+    }
+
+    public void lotUnsold(String address, int lotNumber) {
+        sendAfterBids(new Message(Message.Kind.UNSOLD, address, lotNumber, null));
+    }
+
+    /**
+     * @return messages accepted but not yet delivered
+     */
+    public long pending() {
+        long pending = 0;
+        for (Worker w : workers) {
+            pending += w.enqueued.get() - w.delivered;
+        }
+        return pending;
+    }
+
+    /**
+     * @return bidAccepted messages folded into one that was already waiting
+     */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Wait until every message sent before this call has been delivered.
+     */
+    public void flush() throws InterruptedException {
+        long[] targets = new long[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            targets[i] = workers[i].enqueued.get();
+        }
+        deliveredLock.lock();
+        try {
+            for (int i = 0; i < workers.length; i++) {
+                while (workers[i].delivered < targets[i]) {
+                    deliveredCondition.await();
+                }
+            }
+        } finally {
+            deliveredLock.unlock();
+        }
+    }
+
+    /**
+     * Deliver everything sent so far, then stop the workers. Nothing may be
+     * sent after this is called.
+     */
+    public void shutdown() throws InterruptedException {
+        for (Worker w : workers) {
+            w.queue.put(STOP);
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+    }
+}
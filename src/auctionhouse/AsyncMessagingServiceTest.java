@@ -0,0 +1,184 @@
+/**
+ *
+ */
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncMessagingServiceTest {
+
+    /*
+     * Records, per address, the amounts bid in the order they arrive.
+     */
+    private static class RecordingMessagingService implements MessagingService {
+        final Map<String, List<String>> received = new HashMap<>();
+        volatile CountDownLatch gate = new CountDownLatch(0);
+        final CountDownLatch entered = new CountDownLatch(1);
+
+        private synchronized void record(String address, String event) {
+            received.computeIfAbsent(address, a -> new ArrayList<String>()).add(event);
+        }
+        public void auctionOpened(String address, int lotNumber) {
+            record(address, "opened " + lotNumber);
+        }
+        public void bidAccepted(String address, int lotNumber, Money amount) {
+            entered.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            record(address, lotNumber + " " + amount);
+        }
+        public void lotSold(String address, int lotNumber) {
+            record(address, "sold " + lotNumber);
+        }
+        public void lotUnsold(String address, int lotNumber) {
+            record(address, "unsold " + lotNumber);
+        }
+    }
+
+    private RecordingMessagingService target;
+    private AsyncMessagingService async;
+    private AsyncMessagingService coalescing;
+
+    @Before
+    public void setup() {
+        target = new RecordingMessagingService();
+        async = new AsyncMessagingService(target, 4, 16, 8);
+        coalescing = new AsyncMessagingService(target, 1, 16, 8, true);
+    }
+
+    @After
+    public void teardown() throws InterruptedException {
+        target.gate.countDown();
+        async.shutdown();
+        coalescing.shutdown();
+    }
+
+    @Test
+    public void testOrderPerAddress() throws InterruptedException {
+        for (int lot = 0; lot < 10; lot++) {
+            for (int a = 0; a < 20; a++) {
+                async.auctionOpened("@" + a, lot);
+            }
+            for (int bid = 1; bid <= 50; bid++) {
+                for (int a = 0; a < 20; a++) {
+                    async.bidAccepted("@" + a, lot, Money.ofPence(bid));
+                }
+            }
+            for (int a = 0; a < 20; a++) {
+                async.lotSold("@" + a, lot);
+            }
+        }
+        async.flush();
+        assertEquals(0, async.pending());
+
+        for (int a = 0; a < 20; a++) {
+            List<String> events = target.received.get("@" + a);
+            assertEquals(10 * 52, events.size());
+            int i = 0;
+            for (int lot = 0; lot < 10; lot++) {
+                assertEquals("opened " + lot, events.get(i++));
+                for (int bid = 1; bid <= 50; bid++) {
+                    assertEquals(lot + " " + Money.ofPence(bid), events.get(i++));
+                }
+                assertEquals("sold " + lot, events.get(i++));
+            }
+        }
+    }
+
+    @Test
+    public void testSendersWaitWhenQueueIsFull() throws InterruptedException {
+        target.gate = new CountDownLatch(1);
+        final AsyncMessagingService service = async;
+        Thread sender = new Thread(() -> {
+            for (int bid = 1; bid <= 100; bid++) {
+                service.bidAccepted("@Buyer", 1, Money.ofPence(bid));
+            }
+        });
+        sender.start();
+        sender.join(200);
+
+        // At most a batch of 8 is stuck in delivery, the queue holds 16 more
+        // and the sender is waiting to add one.
+        assertTrue(sender.isAlive());
+        assertTrue(async.pending() <= 8 + 16 + 1);
+
+        target.gate.countDown();
+        sender.join();
+        async.flush();
+        assertEquals(100, target.received.get("@Buyer").size());
+    }
+
+    @Test
+    public void testCoalescingKeepsLatestBid() throws InterruptedException {
+        target.gate = new CountDownLatch(1);
+        coalescing.auctionOpened("@Buyer", 1);
+        coalescing.bidAccepted("@Buyer", 1, Money.ofPence(1));
+        target.entered.await();
+
+        // The first bid is being delivered; the rest fold into one message.
+        for (int bid = 2; bid <= 100; bid++) {
+            coalescing.bidAccepted("@Buyer", 1, Money.ofPence(bid));
+            coalescing.bidAccepted("@Other", 1, Money.ofPence(bid));
+        }
+        // A lower bid sent late does not replace the higher one.
+        coalescing.bidAccepted("@Buyer", 1, Money.ofPence(60));
+        coalescing.bidAccepted("@Other", 1, Money.ofPence(60));
+        coalescing.lotSold("@Buyer", 1);
+        coalescing.lotSold("@Other", 1);
+        assertEquals(99 * 2, coalescing.coalesced());
+
+        target.gate.countDown();
+        coalescing.flush();
+
+        List<String> expected = new ArrayList<String>();
+        expected.add("opened 1");
+        expected.add("1 " + Money.ofPence(1));
+        expected.add("1 " + Money.ofPence(100));
+        expected.add("sold 1");
+        assertEquals(expected, target.received.get("@Buyer"));
+
+        expected.clear();
+        expected.add("1 " + Money.ofPence(100));
+        expected.add("sold 1");
+        assertEquals(expected, target.received.get("@Other"));
+    }
+
+    @Test
+    public void testBidAfterOtherMessageIsNotCoalescedWithEarlierBid() throws InterruptedException {
+        target.gate = new CountDownLatch(1);
+        coalescing.bidAccepted("@Buyer", 9, Money.ofPence(1));
+        target.entered.await();
+
+        // Stalled on the first bid; the second waits behind it.
+        coalescing.bidAccepted("@Buyer", 1, Money.ofPence(500));
+        coalescing.lotUnsold("@Buyer", 1);
+        coalescing.auctionOpened("@Buyer", 1);
+        coalescing.bidAccepted("@Buyer", 1, Money.ofPence(20));
+        assertEquals(0, coalescing.coalesced());
+
+        target.gate.countDown();
+        coalescing.flush();
+
+        List<String> expected = new ArrayList<String>();
+        expected.add("9 " + Money.ofPence(1));
+        expected.add("1 " + Money.ofPence(500));
+        expected.add("unsold 1");
+        expected.add("opened 1");
+        expected.add("1 " + Money.ofPence(20));
+        assertEquals(expected, target.received.get("@Buyer"));
+    }
+}
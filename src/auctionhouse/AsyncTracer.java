@@ -0,0 +1,124 @@
+package auctionhouse;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tracer that hands events to a sink on a background thread.
+ * <p>
+ * Events are written into a ring of TraceEvents allocated up front, so
+ * tracing a call allocates nothing and costs a compare-and-set and a few
+ * field writes on the caller's thread. The sink sees each event on the
+ * background thread, in the order the slots were claimed. When the sink
+ * falls a whole ring behind, new events are dropped and counted rather than
+ * making callers wait, so the cost to callers stays bounded however slow
+ * the sink is.
+ */
+public class AsyncTracer implements Tracer, AutoCloseable {
+
+    private static Logger logger = Logger.getLogger("auctionhouse");
+
+    private static final long IDLE_NANOS = 1_000_000;
+
+    private final TraceEvent[] ring;
+    // Sequence number last published in each slot, -1 before the first.
+    private final AtomicLong[] published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    private final LongAdder dropped = new LongAdder();
+    private final Consumer<TraceEvent> sink;
+    private volatile boolean enabled = true;
+    private volatile boolean closing;
+    private final Thread drainer;
+
+    /**
+     * @param capacity events that may wait for the sink; rounded up to a
+     *        power of two
+     * @param sink given every event kept, on the background thread
+     */
+    public AsyncTracer(int capacity, Consumer<TraceEvent> sink) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        ring = new TraceEvent[size];
+        published = new AtomicLong[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new TraceEvent();
+            published[i] = new AtomicLong(-1);
+        }
+        mask = size - 1;
+        this.sink = sink;
+        drainer = new Thread(this::drainLoop, "auctionhouse-tracer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Turn tracing on or off while the house runs.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void trace(TraceEvent.Op op, String participant, int lotNumber, long value) {
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed >= ring.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+        int i = (int) seq & mask;
+        ring[i].set(op, participant, lotNumber, value);
+        published[i].set(seq);
+    }
+
+    private void drainLoop() {
+        long next = 0;
+        while (true) {
+            int i = (int) next & mask;
+            if (published[i].get() != next) {
+                if (closing && claimed.get() == next) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_NANOS);
+                continue;
+            }
+            try {
+                sink.accept(ring[i]);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Trace sink failed", e);
+            }
+            ring[i].participant = null;
+            consumed = ++next;
+        }
+    }
+
+    /**
+     * @return the number of events dropped because the sink was behind
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stop tracing and wait for the sink to see every event kept so far.
+     */
+    public void close() {
+        enabled = false;
+        closing = true;
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package auctionhouse;
+
+/**
+ * Receives every change AuctionHouseImp makes to its state, after the
+ * change has been checked and made.
+ * <p>
+ * Buyers are identified by the ID the house gave them on registration.
+ * The same events, read back, are enough to rebuild the house.
+ */
+public interface AuctionEvents {
+
+    AuctionEvents NONE = new AuctionEvents() {
+        public void buyerRegistered(int buyerId, String name, String address, String bankAccount, String bankAuthCode) {}
+        public void sellerRegistered(String name, String address, String bankAccount) {}
+        public void lotAdded(String sellerName, int number, String description, Money reservePrice) {}
+        public void interestNoted(int buyerId, int lotNumber) {}
+        public void auctionOpened(String auctioneerName, String auctioneerAddress, int lotNumber) {}
+        public void bidAccepted(int buyerId, int lotNumber, Money bid) {}
+        public void auctionClosed(int lotNumber, LotStatus status) {}
+    };
+
+    void buyerRegistered(
+            int buyerId,
+            String name,
+            String address,
+            String bankAccount,
+            String bankAuthCode);
+
+    void sellerRegistered(
+            String name,
+            String address,
+            String bankAccount);
+
+    void lotAdded(
+            String sellerName,
+            int number,
+            String description,
+            Money reservePrice);
+
+    void interestNoted(
+            int buyerId,
+            int lotNumber);
+
+    void auctionOpened(
+            String auctioneerName,
+            String auctioneerAddress,
+            int lotNumber);
+
+    void bidAccepted(
+            int buyerId,
+            int lotNumber,
+            Money bid);
+
+    /**
+     * @param status the status the lot was left in: UNSOLD, SOLD or
+     *        SOLD_PENDING_PAYMENT
+     */
+    void auctionClosed(
+            int lotNumber,
+            LotStatus status);
+}
@@ -30,6 +30,20 @@ public interface AuctionHouse {
     
     List<CatalogueEntry> viewCatalogue();
     
+    /**
+     * View one page of the catalogue in lot number order.
+     * <p>
+     * To fetch the next page, pass one more than the lot number of the last
+     * entry returned as fromLotNumber.
+     * @param status only include lots with this status, or every lot if null
+     * @param fromLotNumber lowest lot number to include
+     * @param pageSize most entries to return; must be positive
+     */
+    List<CatalogueEntry> viewCatalogue(
+            LotStatus status,
+            int fromLotNumber,
+            int pageSize);
+    
     Status noteInterest(
             String buyerName,
             int lotNumber);
@@ -0,0 +1,142 @@
+/**
+ *
+ */
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that AuctionHouseImp stays consistent when it is called from
+ * several threads at once.
+ */
+public class AuctionHouseConcurrencyTest {
+
+    private static final Money INCREMENT = new Money("1.00");
+    private static final int THREADS = 8;
+    private static final int BIDS_PER_THREAD = 500;
+
+    private AuctionHouse house;
+    private MockServices.RecordingMessagingService messagingService;
+    private MockServices.RecordingBankingService bankingService;
+
+    /**
+     * @return the bids announced to the auctioneer, as "lot amount"
+     */
+    private List<String> auctioneerBids() {
+        List<String> bids = new ArrayList<>();
+        for (String b : messagingService.sent("bid")) {
+            if (b.startsWith("@Auctioneer ")) {
+                bids.add(b.substring("@Auctioneer ".length()));
+            }
+        }
+        return bids;
+    }
+
+    private static void assertOK(Status status) {
+        assertEquals(Status.Kind.OK, status.kind);
+    }
+
+    private interface Work {
+        void run(int thread);
+    }
+
+    private static void runConcurrently(final Work work) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int id = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                work.run(id);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    @Before
+    public void setup() {
+        messagingService = new MockServices.RecordingMessagingService();
+        bankingService = new MockServices.RecordingBankingService();
+        house = new AuctionHouseImp(
+                    MockServices.parameters(messagingService, bankingService));
+        assertOK(house.registerSeller("Seller", "@Seller", "S A/C"));
+        for (int t = 0; t < THREADS; t++) {
+            assertOK(house.registerBuyer("Buyer" + t, "@Buyer" + t, "B" + t + " A/C", "B" + t + "-auth"));
+        }
+    }
+
+    @Test
+    public void testConcurrentBidsOnOneLot() throws InterruptedException {
+        assertOK(house.addLot("Seller", 1, "Vase", new Money("1.00")));
+        for (int t = 0; t < THREADS; t++) {
+            assertOK(house.noteInterest("Buyer" + t, 1));
+        }
+        assertOK(house.openAuction("Auctioneer", "@Auctioneer", 1));
+
+        final AtomicInteger accepted = new AtomicInteger();
+        runConcurrently(thread -> {
+            for (int i = 1; i <= BIDS_PER_THREAD; i++) {
+                Money bid = new Money(Integer.toString(i * 2));
+                if (house.makeBid("Buyer" + thread, 1, bid).kind == Status.Kind.OK) {
+                    accepted.incrementAndGet();
+                }
+            }
+        });
+
+        // Every accepted bid must clear the one it replaced by the increment,
+        // and they are announced in the order they were accepted.
+        List<Money> bids = new ArrayList<>();
+        for (String b : auctioneerBids()) {
+            bids.add(new Money(b.substring(b.indexOf(' ') + 1)));
+        }
+        assertEquals(accepted.get(), bids.size());
+        Money previous = new Money("0");
+        for (Money amount : bids) {
+            assertTrue(previous.add(INCREMENT).lessEqual(amount));
+            previous = amount;
+        }
+
+        assertEquals(Status.Kind.SALE, house.closeAuction("Auctioneer", 1).kind);
+        assertEquals(2, bankingService.transfers().size());
+        assertTrue(bankingService.transfers().get(0).endsWith(previous.addPercent(10.0).toString()));
+    }
+
+    @Test
+    public void testConcurrentBidsOnManyLots() throws InterruptedException {
+        runConcurrently(thread -> {
+            for (int i = 0; i < BIDS_PER_THREAD; i++) {
+                int lot = thread * BIDS_PER_THREAD + i;
+                assertOK(house.addLot("Seller", lot, "Lot " + lot, new Money("5.00")));
+                assertOK(house.noteInterest("Buyer" + thread, lot));
+                assertOK(house.openAuction("Auctioneer", "@Auctioneer", lot));
+                assertOK(house.makeBid("Buyer" + thread, lot, new Money("10.00")));
+            }
+        });
+
+        List<CatalogueEntry> catalogue = house.viewCatalogue();
+        assertEquals(THREADS * BIDS_PER_THREAD, catalogue.size());
+        for (int i = 0; i < catalogue.size(); i++) {
+            assertEquals(i, catalogue.get(i).lotNumber);
+            assertEquals(LotStatus.IN_AUCTION, catalogue.get(i).status);
+        }
+        assertEquals(THREADS * BIDS_PER_THREAD, auctioneerBids().size());
+    }
+}
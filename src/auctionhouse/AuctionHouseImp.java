@@ -3,39 +3,233 @@
  */
 package auctionhouse;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import javax.tools.Diagnostic.Kind;
 import java.util.Map;
-import java.util.HashMap;
-import java.util.Arrays;
 /**
  * @author pbj
  *
+ * <p>
+ * Participants are held in registries under integer IDs, buyers and
+ * sellers off the heap in ParticipantRegistries, and lots in the
+ * columns of a LotStore, which refer to participants by those IDs. Opening
+ * and closing an auction is done while holding the lot's lock, though not
+ * while the payments of a sale are made; bids never lock, so calls on
+ * different lots hardly ever wait for each other.
+ * <p>
+ * Every change of state is reported to an AuctionEvents listener once it has
+ * been made, under the same lock, and only after checking that the log can
+ * take it. Given an EventLog, the house first rebuilds its state from the
+ * log and then records each new change in it. snapshot() saves the whole
+ * state so that a restart need only replay the log written since.
  */
 public class AuctionHouseImp implements AuctionHouse {
 
     private static Logger logger = Logger.getLogger("auctionhouse");
-    private static final String LS = System.lineSeparator();
-    private Map<String, Buyer> buyerMap = new HashMap<>();
-    private Map<String, Seller> sellerMap = new HashMap<>();
-    private Map<String, Auctioneer> auctioneerMap = new HashMap<>();
-    private Map<Integer, Lot> lotMap = new HashMap<>();
-    private Map<Integer, CatalogueEntry> entryMap = new HashMap<>();
+    private ParticipantRegistry buyers;
+    private ParticipantRegistry sellers;
+    private Registry<Auctioneer> auctioneers = new Registry<>();
+    private LotStore lots = new LotStore();
+    private Catalogue catalogue = new Catalogue(lots);
+    private BidHistory bidHistory = new BidHistory();
+    private BuyerActivity activity = new BuyerActivity(lots);
     private Parameters parameters;
+    private BidEngine bidEngine;
+    private AuctionEvents events = AuctionEvents.NONE;
+    private EventLog log;
+    // Slots of lots between beginClose and finishClose.
+    private final Set<Integer> settling = ConcurrentHashMap.newKeySet();
+    private final AtomicLong settlements = new AtomicLong();
+    private volatile PaymentRetrier retrier;
+    private volatile Tracer tracer = Tracer.LOG;
     
     
-    private String startBanner(String messageName) {
-        return  LS 
-          + "-------------------------------------------------------------" + LS
-          + "MESSAGE IN: " + messageName + LS
-          + "-------------------------------------------------------------";
-    }
    
     public AuctionHouseImp(Parameters parameters) {
+    	this(parameters, new ParticipantRegistry(), new ParticipantRegistry());
+    }
+    
+    /*
+     * A house that shares its buyers and sellers with others, as the shards
+     * of a ShardedAuctionHouse do.
+     */
+    AuctionHouseImp(Parameters parameters, ParticipantRegistry buyers, ParticipantRegistry sellers) {
     	this.parameters = parameters;
+    	this.buyers = buyers;
+    	this.sellers = sellers;
+    	this.bidEngine = new BidEngine(parameters.increment, lots, bidHistory, activity);
+    }
+    
+    /**
+     * Restore the house from log, then record all further changes in it.
+     * Nothing is sent to the messaging or banking services while restoring.
+     */
+    public AuctionHouseImp(Parameters parameters, EventLog log) throws IOException {
+    	this(parameters, null, log);
+    }
+    
+    /**
+     * Restore the house from snapshot, if that file exists, and the part of
+     * log written since it was taken; then record all further changes in log.
+     * Without a log, only the snapshot is loaded and nothing is recorded.
+     */
+    public AuctionHouseImp(Parameters parameters, Path snapshot, EventLog log) throws IOException {
+    	this(parameters);
+    	long from = 0;
+    	boolean fromSnapshot = snapshot != null && Files.exists(snapshot);
+    	if (fromSnapshot) {
+    		logger.fine("Loading snapshot...");
+    		from = Snapshot.read(snapshot, buyers, sellers, auctioneers, lots, catalogue);
+    		indexActivity();
+    	}
+    	if (log == null) {
+    		return;
+    	}
+    	logger.fine("Replaying event log...");
+    	Restorer restorer = new Restorer(fromSnapshot);
+    	log.replay(restorer, from);
+    	restorer.registerBuyers();
+    	this.log = log;
+    	this.events = log;
+    }
+    
+    /*
+     * Fill in BuyerActivity from lots loaded directly into the store.
+     */
+    private void indexActivity() {
+    	for (int slot = 0, n = lots.size(); slot < n; slot++) {
+    		if (!lots.isCurrent(slot)) continue;
+    		InterestSet interested = lots.interested(slot);
+    		for (int i = 0, m = interested == null ? 0 : interested.size(); i < m; i++) {
+    			activity.watch(interested.get(i), slot);
+    		}
+    		HighestBid highest = lots.highestBid(slot);
+    		if (highest.open && highest.bidder >= 0) {
+    			activity.lead(highest.bidder, slot);
+    		}
+    	}
+    }
+    
+    /**
+     * Send a TraceEvent for every call from now on to tracer. By default
+     * calls are logged at FINE when that level is enabled.
+     */
+    public void setTracer(Tracer tracer) {
+    	this.tracer = tracer;
+    }
+    
+    /**
+     * Write the current state to path, without stopping other calls. With an
+     * EventLog, a restart from the snapshot and that log loses nothing.
+     */
+    public void snapshot(Path path) throws IOException {
+    	long position = log == null ? 0 : log.position();
+    	Snapshot.write(path, position, buyers, sellers, auctioneers, lots);
+    }
+    
+    /*
+     * Applies logged events directly to the house state.
+     * <p>
+     * Buyers are held back until all of them are known and then each is
+     * registered under the ID it had when logged, so that a buyer whose
+     * record was lost, or that an older log has out of order, cannot shift
+     * the IDs of the rest; a lost buyer's ID is left empty. After a
+     * snapshot the log may repeat changes the snapshot already holds; these
+     * are skipped or do no harm when applied again.
+     */
+    private class Restorer implements AuctionEvents {
+    	private final boolean fromSnapshot;
+    	private final TreeMap<Integer, Map.Entry<String, Buyer>> pendingBuyers = new TreeMap<>();
+    	
+    	Restorer(boolean fromSnapshot) {
+    		this.fromSnapshot = fromSnapshot;
+    	}
+    	
+    	void registerBuyers() {
+    		if (pendingBuyers.isEmpty()) return;
+    		for (Map.Entry<Integer, Map.Entry<String, Buyer>> e : pendingBuyers.entrySet()) {
+    			String name = e.getValue().getKey();
+    			if (buyers.contains(name)) continue;
+    			Buyer b = e.getValue().getValue();
+    			if (buyers.registerAt(e.getKey(), name, b.address, b.bankAccount, b.bankAuthCode) < 0) {
+    				logger.warning("Buyer " + name + " logged as " + e.getKey() + " but that ID is taken");
+    			}
+    		}
+    		pendingBuyers.clear();
+    	}
+    	
+    	public void buyerRegistered(int buyerId, String name, String address, String bankAccount, String bankAuthCode) {
+    		pendingBuyers.put(buyerId, Map.entry(name, new Buyer(address, bankAccount, bankAuthCode)));
+    	}
+    	
+    	public void sellerRegistered(String name, String address, String bankAccount) {
+    		sellers.register(name, address, bankAccount, null);
+    	}
+    	
+    	public void lotAdded(String sellerName, int number, String description, Money reservePrice) {
+    		int sellerId = sellers.id(sellerName);
+    		int existing = lots.slot(number);
+    		if (fromSnapshot && existing >= 0
+    				&& lots.sellerId(existing) == sellerId
+    				&& lots.description(existing).equals(description)
+    				&& lots.reservePence(existing) == reservePrice.pence()) {
+    			return;
+    		}
+    		catalogue.add(number, sellerId, description, reservePrice.pence());
+    	}
+    	
+    	public void interestNoted(int buyerId, int lotNumber) {
+    		registerBuyers();
+    		int slot = lots.slot(lotNumber);
+    		lots.interestedOrCreate(slot).add(buyerId);
+    		activity.watch(buyerId, slot);
+    	}
+    	
+    	public void auctionOpened(String auctioneerName, String auctioneerAddress, int lotNumber) {
+    		int slot = lots.slot(lotNumber);
+    		lots.setAuctioneerId(slot, auctioneerId(auctioneerName, auctioneerAddress));
+    		catalogue.setStatus(slot, LotStatus.IN_AUCTION);
+    		bidEngine.open(slot);
+    	}
+    	
+    	public void bidAccepted(int buyerId, int lotNumber, Money bid) {
+    		registerBuyers();
+    		bidEngine.restore(lots.slot(lotNumber), buyerId, bid);
+    	}
+    	
+    	public void auctionClosed(int lotNumber, LotStatus status) {
+    		int slot = lots.slot(lotNumber);
+    		bidEngine.close(slot);
+    		catalogue.setStatus(slot, status);
+    	}
+    }
+
+    /*
+     * Check, before making a change, that the log could record it: an
+     * error Status if texts are too long for one event, otherwise null. A
+     * log that has failed or been closed throws, as appending to it would.
+     * Changes are logged while still holding the lock they were made under,
+     * so the log has them in the order they were made.
+     */
+    private Status unloggable(String... texts) {
+    	EventLog l = log;
+    	if (l == null) return null;
+    	try {
+    		l.checkAppend(texts);
+    	} catch (IllegalArgumentException e) {
+    		return Status.error("Too long to record: " + e.getMessage());
+    	}
+    	return null;
     }
 
     public Status registerBuyer(
@@ -43,16 +237,21 @@ public class AuctionHouseImp implements AuctionHouse {
             String address,
             String bankAccount,
             String bankAuthCode) {
-    	logger.fine(startBanner("registerBuyer " + name));
-    	Buyer buyer = new Buyer(address, bankAccount, bankAuthCode);
+    	Tracer t = tracer;
+    	if (t.enabled()) t.trace(TraceEvent.Op.REGISTER_BUYER, name, -1, -1);
     	
-    	logger.fine("Checking if the name is already in database...");
-    	if (buyerMap.keySet().contains(name)) {
-    		return Status.error("Username already registered.");
-    	}
+    	Status unloggable = unloggable(name, address, bankAccount, bankAuthCode);
+    	if (unloggable != null) return unloggable;
     	
-    	logger.fine("Registering new buyer...");
-    	buyerMap.put(name, buyer);
+    	logger.fine("Registering new buyer if the name is not already in database...");
+    	// Logged under the registry's lock, so in ID order.
+    	synchronized (buyers) {
+    		int id = buyers.register(name, address, bankAccount, bankAuthCode);
+    		if (id < 0) {
+    			return Status.error("Username already registered.");
+    		}
+    		events.buyerRegistered(id, name, address, bankAccount, bankAuthCode);
+    	}
         return Status.OK();
     }
 
@@ -60,16 +259,20 @@ public class AuctionHouseImp implements AuctionHouse {
             String name,
             String address,
             String bankAccount) {
-    	logger.fine(startBanner("registerSeller " + name));
-    	Seller seller = new Seller(address, bankAccount);
+    	Tracer t = tracer;
+    	if (t.enabled()) t.trace(TraceEvent.Op.REGISTER_SELLER, name, -1, -1);
     	
-    	logger.fine("Checking if the name is already in database...");
-    	if (sellerMap.keySet().contains(name)) {
-    		return Status.error("Username already registered");
-    	}
+    	Status unloggable = unloggable(name, address, bankAccount);
+    	if (unloggable != null) return unloggable;
     	
-    	logger.fine("Registering new seller...");
-    	sellerMap.put(name, seller);
+    	logger.fine("Registering new seller if the name is not already in database...");
+    	// Sellers are restored in log order, which must be ID order.
+    	synchronized (sellers) {
+    		if (sellers.register(name, address, bankAccount, null) < 0) {
+    			return Status.error("Username already registered");
+    		}
+    		events.sellerRegistered(name, address, bankAccount);
+    	}
         return Status.OK();      
     }
 
@@ -78,97 +281,208 @@ public class AuctionHouseImp implements AuctionHouse {
             int number,
             String description,
             Money reservePrice) {
-    	logger.fine(startBanner("addLot " + sellerName + " " + number));
-    	Lot lot = new Lot(sellerName, number, description, reservePrice);
+    	Tracer t = tracer;
+    	if (t.enabled()) t.trace(TraceEvent.Op.ADD_LOT, sellerName, number, reservePrice.pence());
     	
     	logger.fine("Checking if the seller is registered in the database...");
-    	if (!sellerMap.keySet().contains(sellerName)) {
+    	int sellerId = sellers.id(sellerName);
+    	if (sellerId < 0) {
     		return Status.error("Unregistered seller");
     	}
     	
-    	logger.fine("Seller authorised. Adding new lot...");
-    	lotMap.put(number, lot);
+    	Status unloggable = unloggable(sellerName, description);
+    	if (unloggable != null) return unloggable;
     	
-    	CatalogueEntry catEntry = new CatalogueEntry(number, description, LotStatus.UNSOLD);
-    	entryMap.put(number, catEntry);
+    	logger.fine("Seller authorised. Adding new lot...");
+    	// Under the catalogue's lock, so that of two lots added with one number
+    	// the one logged last is the one kept.
+    	synchronized (catalogue) {
+    		catalogue.add(number, sellerId, description, reservePrice.pence());
+    		events.lotAdded(sellerName, number, description, reservePrice);
+    	}
         return Status.OK();    
     }
 
     public List<CatalogueEntry> viewCatalogue() {
-        logger.fine(startBanner("viewCatalogue"));
-        List<CatalogueEntry> catalogue = new ArrayList<CatalogueEntry>();
-        
-        int[] keys = new int[entryMap.keySet().size()];
-        int i = 0;
-        
-        for(Integer key : entryMap.keySet()) {
-        	keys[i] = key;
-        	i++;
+        Tracer t = tracer;
+        if (t.enabled()) t.trace(TraceEvent.Op.VIEW_CATALOGUE, null, -1, -1);
+        return catalogue.view();
+    }
+
+    public List<CatalogueEntry> viewCatalogue(
+            LotStatus status,
+            int fromLotNumber,
+            int pageSize) {
+        Tracer t = tracer;
+        if (t.enabled()) t.trace(TraceEvent.Op.VIEW_CATALOGUE, null, fromLotNumber, pageSize);
+        return catalogue.page(status, fromLotNumber, pageSize);
+    }
+
+    /**
+     * @return the number of lots with the given status
+     */
+    public int lotCount(LotStatus status) {
+        return catalogue.count(status);
+    }
+
+    /**
+     * A page of the bids accepted on a lot, newest first. Bids restored
+     * from a snapshot or log are not included.
+     * @param fromSequence -1 to start from the newest bid, or the sequence
+     *        of the last entry of the previous page to continue from there
+     * @param pageSize the largest number of entries to return
+     * @return the entries found, or an empty list if there is no such lot
+     */
+    public List<BidHistoryEntry> bidHistory(int lotNumber, int fromSequence, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
         }
-        
-        Arrays.sort(keys);
-        
-        for (int key : keys) {
-        	catalogue.add(entryMap.get(key));
+        if (fromSequence < -1 || fromSequence >= bidHistory.size()) {
+            throw new IllegalArgumentException("No such bid: " + fromSequence);
         }
-       
-        logger.fine("Catalogue: " + catalogue.toString());
-        return catalogue;
+        List<BidHistoryEntry> page = new ArrayList<>(Math.min(pageSize, 64));
+        int slot = lots.slot(lotNumber);
+        if (slot < 0) {
+            return page;
+        }
+        int position = fromSequence < 0 ? lots.highestBid(slot).history : bidHistory.previous(fromSequence);
+        while (position >= 0 && page.size() < pageSize) {
+            page.add(historyEntry(lotNumber, bidHistory.bidder(position), position));
+            position = bidHistory.previous(position);
+        }
+        return page;
+    }
+
+    /**
+     * @return the buyer's last bids accepted on any lot, newest first; at
+     *         most BidHistory.RECENT of them
+     */
+    public List<BidHistoryEntry> recentBids(String buyerName) {
+        List<BidHistoryEntry> bids = new ArrayList<>();
+        int buyerId = buyers.id(buyerName);
+        if (buyerId < 0) {
+            return bids;
+        }
+        for (long bid : bidHistory.recent(buyerId)) {
+            bids.add(historyEntry(lots.number((int) (bid >>> 32)), buyerId, (int) bid));
+        }
+        return bids;
+    }
+
+    /**
+     * @return the lots the buyer has noted interest in, in no particular
+     *         order
+     */
+    public List<CatalogueEntry> watchedLots(String buyerName) {
+        int buyerId = buyers.id(buyerName);
+        return catalogueEntries(buyerId < 0 ? new int[0] : activity.watching(buyerId));
+    }
+
+    /**
+     * @return the lots in auction on which the buyer holds the highest bid,
+     *         in no particular order
+     */
+    public List<CatalogueEntry> leadingLots(String buyerName) {
+        int buyerId = buyers.id(buyerName);
+        return catalogueEntries(buyerId < 0 ? new int[0] : activity.leading(buyerId));
+    }
+
+    private List<CatalogueEntry> catalogueEntries(int[] slots) {
+        List<CatalogueEntry> entries = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            entries.add(new CatalogueEntry(lots.number(slot), lots.description(slot), lots.status(slot)));
+        }
+        return entries;
+    }
+
+    private BidHistoryEntry historyEntry(int lotNumber, int buyerId, int position) {
+        return new BidHistoryEntry(lotNumber, buyers.name(buyerId),
+                Money.ofPence(bidHistory.pence(position)), bidHistory.millis(position), position);
     }
 
     public Status noteInterest(
             String buyerName,
             int lotNumber) {
-    	logger.fine(startBanner("noteInterest " + buyerName + " " + lotNumber));
+    	Tracer t = tracer;
+    	if (t.enabled()) t.trace(TraceEvent.Op.NOTE_INTEREST, buyerName, lotNumber, -1);
     	logger.fine("Checking if lot exists...");
     	
     	
-    	if (lotMap.keySet().contains(lotNumber)) {
-    		logger.fine("Lot found, noting interest...");
-   			lotMap.get(lotNumber).interestedBuyers.add(buyerName); 
-   			return Status.OK();
-    		}
+    	int slot = lots.slot(lotNumber);
+    	if (slot < 0) {
+    		return Status.error("Lot not found.");
+    	}
     	
-   
-        return Status.error("Lot not found.");   
+    	logger.fine("Lot found, checking if the buyer is registered...");
+    	int buyerId = buyers.id(buyerName);
+    	if (buyerId < 0) {
+    		return Status.error("Unregistered buyer");
+    	}
+    	
+    	unloggable();
+    	
+    	logger.fine("Noting interest...");
+    	if (lots.interestedOrCreate(slot).add(buyerId)) {
+    		activity.watch(buyerId, slot);
+    		events.interestNoted(buyerId, lotNumber);
+    	}
+        return Status.OK();   
+    }
+
+    /*
+     * The ID of the named auctioneer, registering them first if need be.
+     */
+    private int auctioneerId(String auctioneerName, String auctioneerAddress) {
+    	int id = auctioneers.id(auctioneerName);
+    	if (id < 0) {
+    		auctioneers.register(auctioneerName, new Auctioneer(auctioneerAddress));
+    		id = auctioneers.id(auctioneerName);
+    	}
+    	return id;
     }
 
     public Status openAuction(
             String auctioneerName,
             String auctioneerAddress,
             int lotNumber) {
-    	logger.fine(startBanner("openAuction " + auctioneerName + " " + lotNumber));
-    	
-    	Auctioneer auctioneer = new Auctioneer(auctioneerAddress);
+    	Tracer t = tracer;
+    	if (t.enabled()) t.trace(TraceEvent.Op.OPEN_AUCTION, auctioneerName, lotNumber, -1);
     	
-    	if (!auctioneerMap.keySet().contains(auctioneerName)) {
-    		auctioneerMap.put(auctioneerName, auctioneer);
-    	}
+    	Status unloggable = unloggable(auctioneerName, auctioneerAddress);
+    	if (unloggable != null) return unloggable;
     	
-    	boolean checkLot = false;
+    	int auctioneerId = auctioneerId(auctioneerName, auctioneerAddress);
     	
     	logger.fine("Looking for lot in database...");
     	
-    	if (entryMap.keySet().contains(lotNumber) && entryMap.get(lotNumber).status == LotStatus.UNSOLD) {
-    		entryMap.get(lotNumber).status = LotStatus.IN_AUCTION;
-    		checkLot = true;
-    		logger.fine("Lot found, auction in progress.");
-    	}
-    	
+    	int slot = lots.slot(lotNumber);
+    	if (slot < 0) return Status.error("Lot not found");
     	
-    	if (!checkLot) return Status.error("Lot not found");
+    	// Seller first, then the interested buyers; sent once the lock is released.
+    	ArrayList<String> addresses = new ArrayList<>();
+    	lots.lock(slot).lock();
+    	try {
+    		if (lots.status(slot) != LotStatus.UNSOLD) return Status.error("Lot not found");
+    		catalogue.setStatus(slot, LotStatus.IN_AUCTION);
+    		logger.fine("Lot found, auction in progress.");
     	
-    	Lot auctionLot = lotMap.get(lotNumber);
+    		addresses.add(sellers.address(lots.sellerId(slot)));
+    			
+    		lots.setAuctioneerId(slot, auctioneerId);
+    		InterestSet interested = lots.interested(slot);
+    		for (int i = 0, n = interested == null ? 0 : interested.size(); i < n; i++) {
+    			addresses.add(buyers.address(interested.get(i)));
+    		}
+    		
+    		// Publishes the auctioneer to makeBid, which reads it after the snapshot.
+    		bidEngine.open(slot);
+    		events.auctionOpened(auctioneerName, auctioneerAddress, lotNumber);
+    	} finally {
+    		lots.lock(slot).unlock();
+    	}
     	
     	logger.fine("Sending messages:");
-    	
-    	String sellerName = auctionLot.sellerName;
-    	
-        parameters.messagingService.auctionOpened(sellerMap.get(sellerName).address, lotNumber);
-    			
-    	auctionLot.auctioneerName = auctioneerName;
-    	for (String name : auctionLot.interestedBuyers) {
-    		String address = buyerMap.get(name).address;
+    	for (String address : addresses) {
     		parameters.messagingService.auctionOpened(address, lotNumber);
     	}
     			
@@ -180,136 +494,329 @@ public class AuctionHouseImp implements AuctionHouse {
             String buyerName,
             int lotNumber,
             Money bid) {
-        logger.fine(startBanner("makeBid " + buyerName + " " + lotNumber + " " + bid));
+        Tracer t = tracer;
+        if (t.enabled()) t.trace(TraceEvent.Op.MAKE_BID, buyerName, lotNumber, bid.pence());
         
-        Lot auctionLot = lotMap.get(lotNumber);
-        Money currentBid = auctionLot.currentHighestBid;
-        String auctioneerName = auctionLot.auctioneerName;
-        String sellerName = auctionLot.sellerName;
+        int slot = lots.slot(lotNumber);
+        if (slot < 0) return Status.error("Lot not found.");
         
         
         logger.fine("Checking if the buyer is interested in a lot...");
         
-        if (!auctionLot.interestedBuyers.contains(buyerName)) {
+        InterestSet interested = lots.interested(slot);
+        int buyerId = buyers.id(buyerName);
+        if (buyerId < 0 || interested == null || !interested.contains(buyerId)) {
         	return Status.error("You can't bid on a lot you haven't noted interest in");
         }
         
         logger.fine("Checking if the bid is above the minimum increment...");
         
-        if (bid.lessEqual(currentBid.add(parameters.increment))) {
-        	if (bid.compareTo(currentBid.add(parameters.increment)) != 0) {
-        		return Status.error("Bid is not above the minimum increment.");
-        	}
+        BidEngine.Outcome outcome = bidEngine.offer(slot, buyerId, bid);
+        if (outcome.highest == null) {
+        	return outcome.status;
         }
+        // The bidder already knows of their bid if it stands as made.
+        HighestBid highest = outcome.highest;
+        boolean asMade = highest.bidder == buyerId && highest.amount.pence() == bid.pence();
+        announceBid(slot, lotNumber, highest, asMade ? buyerId : -1);
+        return outcome.status;
+    }
+
+    /*
+     * Record a new highest bid on the lot in slot and tell everyone
+     * concerned of it, apart from known, a buyer who knows already, or -1.
+     * Bids on one lot are recorded and sent in the order they were
+     * accepted, though perhaps by the thread of a later bid.
+     */
+    private void announceBid(int slot, int lotNumber, HighestBid highest, int known) {
+        lots.announcements(slot).announce(highest, known, (h, k) -> sendBid(slot, lotNumber, h, k));
+    }
+
+    private void sendBid(int slot, int lotNumber, HighestBid highest, int known) {
+        Money bid = highest.amount;
+        events.bidAccepted(highest.bidder, lotNumber, bid);
         
         logger.fine("Sending messages:");
         
-        auctionLot.number = lotNumber;
-        auctionLot.currentHighestBid = bid;
-        auctionLot.currentHighestBidder = buyerName;
-        
-    	String auctioneerAddress = auctioneerMap.get(auctioneerName).auctioneerAddress;   
+    	String auctioneerAddress = auctioneers.get(lots.auctioneerId(slot)).auctioneerAddress;   
         parameters.messagingService.bidAccepted(auctioneerAddress, lotNumber, bid);
         
-        String sellerAddress = sellerMap.get(sellerName).address;
+        String sellerAddress = sellers.address(lots.sellerId(slot));
         parameters.messagingService.bidAccepted(sellerAddress, lotNumber, bid);
         
-        for (String buyer : auctionLot.interestedBuyers) {
-        	String address = buyerMap.get(buyer).address;
-        	if (!buyer.equals(buyerName)) {
-        		parameters.messagingService.bidAccepted(address, lotNumber, bid);
+        InterestSet interested = lots.interested(slot);
+        for (int i = 0, n = interested.size(); i < n; i++) {
+        	int buyer = interested.get(i);
+        	if (buyer != known) {
+        		parameters.messagingService.bidAccepted(buyers.address(buyer), lotNumber, bid);
         	}
         }
+    }
+
+    /**
+     * Have the house bid for the buyer on a lot in auction whenever they are
+     * outbid, by the minimum increment, up to maximum. Setting a proxy again
+     * replaces the buyer's earlier one; proxies last until the auction
+     * closes. A proxy may outbid the current highest bid at once, which is
+     * announced as any other bid. Only the bids proxies make are logged, so
+     * proxies themselves do not survive a restart.
+     */
+    public Status setProxyBid(
+            String buyerName,
+            int lotNumber,
+            Money maximum) {
+        Tracer t = tracer;
+        if (t.enabled()) t.trace(TraceEvent.Op.SET_PROXY_BID, buyerName, lotNumber, maximum.pence());
         
-        return Status.OK();    
+        int slot = lots.slot(lotNumber);
+        if (slot < 0) return Status.error("Lot not found.");
+        
+        InterestSet interested = lots.interested(slot);
+        int buyerId = buyers.id(buyerName);
+        if (buyerId < 0 || interested == null || !interested.contains(buyerId)) {
+        	return Status.error("You can't bid on a lot you haven't noted interest in");
+        }
+        
+        HighestBid current = lots.highestBid(slot);
+        if (!current.open) {
+        	return Status.error("Lot is not in auction.");
+        }
+        if (current.bidder != buyerId && maximum.compareToSum(current.amount, parameters.increment) < 0) {
+        	return Status.error("Maximum is not above the minimum increment.");
+        }
+        lots.proxiesOrCreate(slot).put(buyerId, maximum.pence());
+        
+        HighestBid raised = bidEngine.answerProxies(slot);
+        if (raised != null) {
+        	announceBid(slot, lotNumber, raised, -1);
+        }
+        return Status.OK();
     }
 
     public Status closeAuction(
             String auctioneerName,
             int lotNumber) {
-        logger.fine(startBanner("closeAuction " + auctioneerName + " " + lotNumber));
+        Settlement settlement = beginClose(auctioneerName, lotNumber);
+        if (settlement.result != null) {
+        	notifyUnsold(settlement);
+        	return settlement.result;
+        }
+        logger.fine("Getting money from buyer...");
+        Status buyerToHouse = settlement.payHouse(parameters.bankingService);
+        Status houseToSeller = settlement.paySeller(parameters.bankingService);
+        return finishClose(settlement, buyerToHouse, houseToSeller);
+    }
+
+    /**
+     * First half of closeAuction: check the close is allowed, stop bidding
+     * and decide the outcome. A lot that goes unsold is recorded as UNSOLD
+     * here; the caller then sends lotUnsold with notifyUnsold().
+     * <p>
+     * Until finishClose() the lot stays IN_AUCTION and further closes of it
+     * are refused, so the payments can be made without holding its lock.
+     * @return the payments to make, or the final Status if there are none
+     */
+    Settlement beginClose(String auctioneerName, int lotNumber) {
+        Tracer t = tracer;
+        if (t.enabled()) t.trace(TraceEvent.Op.CLOSE_AUCTION, auctioneerName, lotNumber, -1);
         
         logger.fine("Find lot, and retrieve information from said lot.");
-        Lot closingLot = lotMap.get(lotNumber);   
-        CatalogueEntry c = entryMap.get(lotNumber);
-        String sellerName = closingLot.sellerName;
-        Money currentBid = closingLot.currentHighestBid;
-        String openerName = closingLot.auctioneerName;
-        Money reservePrice = closingLot.reservePrice;
-        String highestBidder = closingLot.currentHighestBidder;
+        int slot = lots.slot(lotNumber);   
+        if (slot < 0) return Settlement.done(Status.error("Lot not found."));
         
-        logger.fine("Getting addresses of interested buyers of lot...");
-        ArrayList<String>intBuyersAddress = new ArrayList<>();
-        for (String name : closingLot.interestedBuyers) {
-        	intBuyersAddress.add(buyerMap.get(name).address);
+        lots.lock(slot).lock();
+        try {
+        	return beginClose(slot, auctioneerName, lotNumber);
+        } finally {
+        	lots.lock(slot).unlock();
         }
-        String winnerAddress = buyerMap.get(highestBidder).address;
+    }
+
+    /*
+     * Body of beginClose, run while holding the lock of the lot in slot.
+     * Bids are shut out by closing the lot's HighestBid.
+     */
+    private Settlement beginClose(
+            int slot,
+            String auctioneerName,
+            int lotNumber) {
+        int sellerId = lots.sellerId(slot);
+        int openerId = lots.auctioneerId(slot);
+        Money reservePrice = Money.ofPence(lots.reservePence(slot));
         
-        logger.fine("Getting address of the seller...");
-        String sellerAddress = sellerMap.get(sellerName).address;
+        logger.fine("Checking if the lot is in auction...");
+        if (lots.status(slot) != LotStatus.IN_AUCTION) {
+        	return Settlement.done(Status.error("Lot is not in auction."));
+        }
        
         logger.fine("Checking if auctioneer is authorized to close it...");
-        if (!openerName.equals(auctioneerName)) {
-        	return Status.error("You are not authorised to close this auction.");
+        if (!auctioneers.name(openerId).equals(auctioneerName)) {
+        	return Settlement.done(Status.error("You are not authorised to close this auction."));
         }
         logger.fine("Auctioneer is authorized.");
         
-        logger.fine("Retrieving winner's banking details...");
-        String account = buyerMap.get(highestBidder).bankAccount;
-        String authCode = buyerMap.get(highestBidder).bankAuthCode;
+        if (settling.contains(slot)) {
+        	return Settlement.done(Status.error("Lot is already being closed."));
+        }
+        unloggable();
         
-        logger.fine("Retrieving seller's banking details...");
-        String sellerAccount = sellerMap.get(sellerName).bankAccount;
+        logger.fine("Closing bidding on the lot...");
+        HighestBid finalBid = bidEngine.close(slot);
+        Money currentBid = finalBid.amount;
+        int highestBidder = finalBid.bidder;
         
+        logger.fine("Getting addresses of interested buyers of lot...");
+        ArrayList<String>intBuyersAddress = new ArrayList<>();
+        InterestSet interested = lots.interested(slot);
+        for (int i = 0, n = interested == null ? 0 : interested.size(); i < n; i++) {
+        	intBuyersAddress.add(buyers.address(interested.get(i)));
+        }
+        
+        logger.fine("Getting address of the seller...");
+        String sellerAddress = sellers.address(sellerId);
         
         logger.fine("Checking if reserve price was met...");
-        if (currentBid.compareTo(reservePrice) < 0) {
+        if (highestBidder < 0 || currentBid.compareTo(reservePrice) < 0) {
             logger.fine("Update catalogue entry to unsold.");
-            c.status = LotStatus.UNSOLD;
-            parameters.messagingService.lotUnsold(sellerAddress, lotNumber);
-            for (String address : intBuyersAddress) {
-              parameters.messagingService.lotUnsold(address, lotNumber);
-            }
-        	return new Status(Status.Kind.NO_SALE, "Reserve price not met.");
+            catalogue.setStatus(slot, LotStatus.UNSOLD);
+            events.auctionClosed(lotNumber, LotStatus.UNSOLD);
+        	return Settlement.unsold(slot, lotNumber, new Status(Status.Kind.NO_SALE, "Reserve price not met."),
+        			sellerAddress, intBuyersAddress);
         }
         logger.fine("Reserve price met. Executing transactions...");
+        settling.add(slot);
         
-    
-        String houseAccount = parameters.houseBankAccount;
-        String houseAuthCode = parameters.houseBankAuthCode;
-        logger.fine("Getting money from buyer...");
-        Status buyerToHouse = parameters.bankingService.transfer(account,
-        		authCode,
-        		houseAccount,
-        		currentBid.addPercent(parameters.buyerPremium));
-        
-        Status.Kind bTH = buyerToHouse.kind;
         logger.fine("Calculating seller cut...");
         Money sellerCut = currentBid.addPercent(100 - parameters.commission).subtract(currentBid);
         
-        Status houseToSeller = parameters.bankingService.transfer(houseAccount,
-        		houseAuthCode,
-        		sellerAccount,
-        		sellerCut);
-        
-        Status.Kind hTS = houseToSeller.kind;
-        logger.fine("Checking if both transactions were successful...");
-        if (hTS == Status.Kind.OK && bTH == Status.Kind.OK	) {
-        	logger.fine("Update catalogue entry to sold");
-        	c.status = LotStatus.SOLD;
-        	parameters.messagingService.lotSold(winnerAddress, lotNumber);
-			parameters.messagingService.lotSold(sellerAddress, lotNumber);
-			for (String address : intBuyersAddress) {
-				parameters.messagingService.lotSold(address, lotNumber);
-			}
-			
-			return new Status(Status.Kind.SALE, "Transaction successful.");
+        return new Settlement(
+        		slot,
+        		lotNumber,
+        		closeKey(lotNumber),
+        		null,
+        		buyers.bankAccount(highestBidder),
+        		buyers.bankAuthCode(highestBidder),
+        		currentBid.addPercent(parameters.buyerPremium),
+        		parameters.houseBankAccount,
+        		parameters.houseBankAuthCode,
+        		sellers.bankAccount(sellerId),
+        		sellerCut,
+        		buyers.address(highestBidder),
+        		sellerAddress,
+        		intBuyersAddress);
+    }
+
+    /*
+     * Idempotency key of a close of lotNumber. With a log it is the log
+     * position at the close: the lot is logged as reopened before it can be
+     * closed again, and positions carry on growing after a restart, so no
+     * key is used for two closes. Without a log nothing survives a restart
+     * and a count of closes will do.
+     */
+    private String closeKey(int lotNumber) {
+        EventLog l = log;
+        long close = l == null ? settlements.incrementAndGet() : l.position();
+        return "lot-" + lotNumber + "-close-" + close;
+    }
+
+    /**
+     * Second half of closeAuction: record the sale as SOLD if both payments
+     * of settlement went through, otherwise as SOLD_PENDING_PAYMENT, and
+     * tell everyone concerned if it sold.
+     */
+    Status finishClose(Settlement settlement, Status buyerToHouse, Status houseToSeller) {
+        Status status = recordClose(settlement, buyerToHouse, houseToSeller);
+        if (status.kind == Status.Kind.SALE) {
+        	notifySold(settlement);
+        }
+        return status;
+    }
+
+    /**
+     * finishClose without sending any messages.
+     */
+    Status recordClose(Settlement settlement, Status buyerToHouse, Status houseToSeller) {
+        int slot = settlement.slot;
+        int lotNumber = settlement.lotNumber;
+        lots.lock(slot).lock();
+        try {
+        	settling.remove(slot);
+        	logger.fine("Checking if both transactions were successful...");
+        	if (houseToSeller.kind == Status.Kind.OK && buyerToHouse.kind == Status.Kind.OK) {
+        		logger.fine("Update catalogue entry to sold");
+        		catalogue.setStatus(slot, LotStatus.SOLD);
+        		events.auctionClosed(lotNumber, LotStatus.SOLD);
+        		return new Status(Status.Kind.SALE, "Transaction successful.");
+        	}
+        	
+        	logger.fine("Update catalogue entry to sold pending payment.");
+        	catalogue.setStatus(slot, LotStatus.SOLD_PENDING_PAYMENT);
+        	events.auctionClosed(lotNumber, LotStatus.SOLD_PENDING_PAYMENT);
+        	PaymentRetrier r = retrier;
+        	if (r != null) {
+        		r.pending(settlement, buyerToHouse.kind == Status.Kind.OK, houseToSeller.kind == Status.Kind.OK);
+        	}
+        	return new Status(Status.Kind.SALE_PENDING_PAYMENT, "Transaction unsuccessful.");
+        } finally {
+        	lots.lock(slot).unlock();
+        }
+    }
+
+    /**
+     * Have retrier finish the payments of sales left SOLD_PENDING_PAYMENT
+     * from now on.
+     */
+    void retryPaymentsWith(PaymentRetrier retrier) {
+        this.retrier = retrier;
+    }
+
+    /**
+     * Record a SOLD_PENDING_PAYMENT sale as SOLD once its missing payments
+     * have been made, and send lotSold.
+     * @return false if the lot was no longer pending payment
+     */
+    boolean completePayment(Settlement settlement) {
+        int slot = settlement.slot;
+        int lotNumber = settlement.lotNumber;
+        lots.lock(slot).lock();
+        try {
+        	if (!lots.isCurrent(slot) || lots.status(slot) != LotStatus.SOLD_PENDING_PAYMENT) {
+        		return false;
+        	}
+        	logger.fine("Payment completed, update catalogue entry to sold");
+        	catalogue.setStatus(slot, LotStatus.SOLD);
+        	events.auctionClosed(lotNumber, LotStatus.SOLD);
+        } finally {
+        	lots.lock(slot).unlock();
+        }
+        notifySold(settlement);
+        return true;
+    }
+
+    /**
+     * Send lotUnsold for a close that found the reserve not met; do nothing
+     * for any other close.
+     */
+    void notifyUnsold(Settlement settlement) {
+        if (settlement.result.kind != Status.Kind.NO_SALE) {
+        	return;
+        }
+        int lotNumber = settlement.lotNumber;
+        parameters.messagingService.lotUnsold(settlement.sellerAddress, lotNumber);
+        for (String address : settlement.interestedAddresses) {
+        	parameters.messagingService.lotUnsold(address, lotNumber);
+        }
+    }
+
+    /**
+     * Send lotSold for a settlement that recordClose found paid.
+     */
+    void notifySold(Settlement settlement) {
+        int lotNumber = settlement.lotNumber;
+        parameters.messagingService.lotSold(settlement.winnerAddress, lotNumber);
+        parameters.messagingService.lotSold(settlement.sellerAddress, lotNumber);
+        for (String address : settlement.interestedAddresses) {
+        	parameters.messagingService.lotSold(address, lotNumber);
         }
-        
-        logger.fine("Update catalogue entry to sold pending payment.");
-        c.status = LotStatus.SOLD_PENDING_PAYMENT;
-		return new Status(Status.Kind.SALE_PENDING_PAYMENT, "Transaction unsuccessful.");
-       
-        
     }
 }
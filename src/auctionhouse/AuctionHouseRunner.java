@@ -0,0 +1,125 @@
+package auctionhouse;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Serves AsyncAuctionHouse requests by running each one, blocking calls and
+ * all, on a thread of an ExecutorService.
+ * <p>
+ * This suits BankingService and MessagingService implementations that block
+ * on network I/O. With a fixed pool, a burst of closeAuction calls waiting
+ * on transfers takes every thread and later requests queue behind them.
+ * perRequest() instead starts a thread for every request: a virtual thread
+ * where the runtime has them (Java 21 on), so that thousands can wait at
+ * once for the cost of their stacks, and otherwise a platform thread.
+ * <p>
+ * The engine never blocks while holding a monitor: lots, the event log and
+ * the messaging queues are guarded by ReentrantLocks, and the few
+ * synchronized methods only update memory. Nor does it call the bank or
+ * send messages while holding a lot's lock. A virtual thread waiting on the
+ * bank or the network therefore always releases its carrier thread, and
+ * no other request waits meanwhile for a lock it holds.
+ */
+public class AuctionHouseRunner implements AsyncAuctionHouse, AutoCloseable {
+
+    private static Logger logger = Logger.getLogger("auctionhouse");
+
+    private final AuctionHouse house;
+    private final ExecutorService executor;
+
+    /**
+     * @param house the house whose calls to run
+     * @param executor runs the calls; shut down by close()
+     */
+    public AuctionHouseRunner(AuctionHouse house, ExecutorService executor) {
+        this.house = house;
+        this.executor = executor;
+    }
+
+    /**
+     * A runner that gives every request a new thread, virtual if possible.
+     */
+    public static AuctionHouseRunner perRequest(AuctionHouse house) {
+        return new AuctionHouseRunner(house, newThreadPerRequestExecutor());
+    }
+
+    /**
+     * @return an executor that starts a virtual thread per task if the
+     *         runtime has them, otherwise a daemon platform thread per task
+     */
+    public static ExecutorService newThreadPerRequestExecutor() {
+        try {
+            // Looked up by name so that the code still builds for Java 17.
+            ExecutorService virtual = (ExecutorService)
+                    Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            logger.fine("Running requests on virtual threads");
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            logger.fine("No virtual threads, running requests on platform threads");
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "auctionhouse-request");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    private <T> CompletableFuture<T> run(Supplier<T> request) {
+        return CompletableFuture.supplyAsync(request, executor);
+    }
+
+    public CompletableFuture<Status> registerBuyer(
+            String name, String address, String bankAccount, String bankAuthCode) {
+        return run(() -> house.registerBuyer(name, address, bankAccount, bankAuthCode));
+    }
+
+    public CompletableFuture<Status> registerSeller(String name, String address, String bankAccount) {
+        return run(() -> house.registerSeller(name, address, bankAccount));
+    }
+
+    public CompletableFuture<Status> addLot(String sellerName, int number, String description, Money reservePrice) {
+        return run(() -> house.addLot(sellerName, number, description, reservePrice));
+    }
+
+    public CompletableFuture<List<CatalogueEntry>> viewCatalogue() {
+        return run(() -> house.viewCatalogue());
+    }
+
+    public CompletableFuture<List<CatalogueEntry>> viewCatalogue(LotStatus status, int fromLotNumber, int pageSize) {
+        return run(() -> house.viewCatalogue(status, fromLotNumber, pageSize));
+    }
+
+    public CompletableFuture<Status> noteInterest(String buyerName, int lotNumber) {
+        return run(() -> house.noteInterest(buyerName, lotNumber));
+    }
+
+    public CompletableFuture<Status> openAuction(String auctioneerName, String auctioneerAddress, int lotNumber) {
+        return run(() -> house.openAuction(auctioneerName, auctioneerAddress, lotNumber));
+    }
+
+    public CompletableFuture<Status> makeBid(String buyerName, int lotNumber, Money bid) {
+        return run(() -> house.makeBid(buyerName, lotNumber, bid));
+    }
+
+    public CompletableFuture<Status> closeAuction(String auctioneerName, int lotNumber) {
+        return run(() -> house.closeAuction(auctioneerName, lotNumber));
+    }
+
+    /**
+     * Stop taking requests and wait for those already started.
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
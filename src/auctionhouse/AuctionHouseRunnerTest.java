@@ -0,0 +1,86 @@
+/**
+ *
+ */
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class AuctionHouseRunnerTest {
+
+    private static final int CLOSES = 200;
+
+    /*
+     * Blocks every transfer until CLOSES of them are waiting at once, so
+     * the closes only finish if none is held back for want of a thread.
+     */
+    private static class GatheringBank implements BankingService {
+        final CountDownLatch waiting = new CountDownLatch(CLOSES);
+
+        public Status transfer(String senderAccount, String senderAuthCode, String receiverAccount, Money amount) {
+            waiting.countDown();
+            try {
+                if (!waiting.await(30, TimeUnit.SECONDS)) {
+                    return Status.error("Bank timed out");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Status.error("Interrupted");
+            }
+            return Status.OK();
+        }
+    }
+
+    @Test
+    public void testBlockedClosesDoNotStarveEachOther() throws InterruptedException {
+        AuctionHouse house = new AuctionHouseImp(MockServices.parameters(MockServices.SILENT,
+                new GatheringBank()));
+        house.registerSeller("SellerY", "@SellerY", "SY A/C");
+        house.registerBuyer("BuyerA", "@BuyerA", "BA A/C", "BA-auth");
+        for (int lot = 0; lot < CLOSES; lot++) {
+            house.addLot("SellerY", lot, "Lot " + lot, new Money("10.00"));
+            house.noteInterest("BuyerA", lot);
+            house.openAuction("Auctioneer", "@Auctioneer", lot);
+            house.makeBid("BuyerA", lot, new Money("20.00"));
+        }
+
+        try (AuctionHouseRunner runner = AuctionHouseRunner.perRequest(house)) {
+            List<CompletableFuture<Status>> closes = new ArrayList<>();
+            for (int lot = 0; lot < CLOSES; lot++) {
+                closes.add(runner.closeAuction("Auctioneer", lot));
+            }
+            for (CompletableFuture<Status> close : closes) {
+                assertEquals(Status.Kind.SALE, close.join().kind);
+            }
+            assertEquals(CLOSES, runner.viewCatalogue(LotStatus.SOLD, 0, CLOSES).join().size());
+        }
+    }
+
+    @Test
+    public void testRequestsRunOffCallerThread() throws InterruptedException {
+        Thread caller = Thread.currentThread();
+        List<Thread> ran = new ArrayList<>();
+        BankingService bank = (senderAccount, senderAuthCode, receiverAccount, amount) -> Status.OK();
+        AuctionHouse house = new AuctionHouseImp(MockServices.parameters(MockServices.SILENT, bank)) {
+            @Override
+            public Status registerSeller(String name, String address, String bankAccount) {
+                synchronized (ran) {
+                    ran.add(Thread.currentThread());
+                }
+                return super.registerSeller(name, address, bankAccount);
+            }
+        };
+        try (AuctionHouseRunner runner = AuctionHouseRunner.perRequest(house)) {
+            assertEquals(Status.Kind.OK, runner.registerSeller("SellerY", "@SellerY", "SY A/C").join().kind);
+        }
+        assertTrue(ran.get(0) != caller);
+    }
+}
@@ -4,6 +4,7 @@
 package auctionhouse;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -250,6 +251,44 @@ public class AuctionHouseTest {
         assertEquals(expectedCatalogue, actualCatalogue);
     }
 
+    @Test
+    public void testViewCatalogueUnchangedBetweenUpdates() {                    //viewing the catalogue twice without changes gives the same snapshot
+        logger.info(makeBanner("testViewCatalogueUnchangedBetweenUpdates"));
+        runStory(2);
+        
+        List<CatalogueEntry> first = house.viewCatalogue();
+        assertSame(first, house.viewCatalogue());
+        
+        assertOK(house.addLot("SellerZ", 3, "Lamp", new Money("20.00")));
+        List<CatalogueEntry> second = house.viewCatalogue();
+        assertEquals(3, first.size());
+        assertEquals(4, second.size());
+        assertEquals(new CatalogueEntry(3, "Lamp", LotStatus.UNSOLD), second.get(2));
+    }
+
+    @Test
+    public void testViewCataloguePages() {                                      //paging through the catalogue, with and without a status filter
+        logger.info(makeBanner("testViewCataloguePages"));
+        bankingService.setBadAccount("BC A/C");
+        runStory(11);
+        
+        List<CatalogueEntry> expectedPage = new ArrayList<CatalogueEntry>();
+        expectedPage.add(new CatalogueEntry(1, "Bicycle", LotStatus.SOLD));
+        expectedPage.add(new CatalogueEntry(2, "Painting", LotStatus.SOLD_PENDING_PAYMENT));
+        assertEquals(expectedPage, house.viewCatalogue(null, 0, 2));
+        
+        expectedPage.clear();
+        expectedPage.add(new CatalogueEntry(5, "Table", LotStatus.UNSOLD));
+        assertEquals(expectedPage, house.viewCatalogue(null, 3, 2));
+        assertEquals(expectedPage, house.viewCatalogue(LotStatus.UNSOLD, 0, 50));
+        
+        expectedPage.clear();
+        expectedPage.add(new CatalogueEntry(1, "Bicycle", LotStatus.SOLD));
+        assertEquals(expectedPage, house.viewCatalogue(LotStatus.SOLD, 0, 50));
+        assertEquals(0, house.viewCatalogue(LotStatus.SOLD, 2, 50).size());
+        assertEquals(0, house.viewCatalogue(LotStatus.IN_AUCTION, 0, 50).size());
+    }
+
     @Test
     public void testRegisterBuyer() {
         logger.info(makeBanner("testRegisterBuyer"));
@@ -277,6 +316,25 @@ public class AuctionHouseTest {
         assertError(house.noteInterest("BuyerA", 4));                              //try noting interest in a lot that hasn't been registered
     }
       
+    @Test
+    public void testNoteInterestUnknownBuyer() {
+        logger.info(makeBanner("testNoteInterestUnknownBuyer"));
+        runStory(4);
+        assertError(house.noteInterest("BuyerD", 1));                              //try noting interest without being registered
+    }
+    
+    @Test
+    public void testNoteInterestTwice() {                                         //noting interest twice still gives one message per event
+        logger.info(makeBanner("testNoteInterestTwice"));
+        runStory(4);
+        assertOK(house.noteInterest("BuyerA", 1));
+        assertOK(house.openAuction("Auctioneer1", "@Auctioneer1", 1));
+        messagingService.expectAuctionOpened("@BuyerA", 1);
+        messagingService.expectAuctionOpened("@BuyerB", 1);
+        messagingService.expectAuctionOpened("@SellerY", 1);
+        messagingService.verify();
+    }
+      
     @Test
     public void testOpenAuction() {
         logger.info(makeBanner("testOpenAuction"));
@@ -319,6 +377,13 @@ public class AuctionHouseTest {
         runStory(8);
     }
     
+    @Test
+    public void testMakeBidAfterClose() {                                         //try making a bid once the auction has been closed
+        logger.info(makeBanner("testMakeBidAfterClose"));
+        runStory(8);
+        assertError(house.makeBid("BuyerA", 1, new Money("500")));
+    }
+    
     @Test
     public void testCloseAuctionNoSale() {                                         //closing the auction when the reserve price was not met
         logger.info(makeBanner("testCloseAuctionNoSale"));
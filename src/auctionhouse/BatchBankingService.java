@@ -0,0 +1,17 @@
+package auctionhouse;
+
+import java.util.List;
+
+/**
+ * A BankingService that can also make many transfers in one request.
+ */
+public interface BatchBankingService extends BankingService {
+
+    /**
+     * Make each of transfers independently; one failing does not stop the
+     * others. A transfer with an idempotencyKey is made at most once per
+     * key, as IdempotentBankingService promises.
+     * @return the Status of each transfer, in the same order
+     */
+    List<Status> transferBatch(List<Transfer> transfers);
+}
@@ -0,0 +1,188 @@
+package auctionhouse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * BankingService that gathers the transfers of concurrent callers and makes
+ * them in one transferBatch request.
+ * <p>
+ * A batch is sent windowMillis after its first transfer arrived, or at once
+ * when it reaches maxBatch transfers. A background thread sends one batch
+ * at a time while the next one fills, as EventLog does with its writes.
+ * Each caller still blocks until its own transfer is done and gets back its
+ * own Status. If a whole batch fails, every transfer in it gets an error.
+ * Idempotency keys are passed on with each transfer, so retrying through
+ * this is as safe as retrying against the bank itself.
+ * <p>
+ * Batching pays off with many callers at once, such as the banking threads
+ * of a SettlementPipeline or an AuctionHouseRunner at the end of a sale
+ * day; a lone caller waits up to windowMillis longer than it would have.
+ */
+public class BatchingBankingService implements IdempotentBankingService, AutoCloseable {
+
+    private static Logger logger = Logger.getLogger("auctionhouse");
+
+    private static final class Pending {
+        final Transfer transfer;
+        Status status;
+
+        Pending(Transfer transfer) {
+            this.transfer = transfer;
+        }
+    }
+
+    private final BatchBankingService bank;
+    private final int maxBatch;
+    private final long windowNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition work = lock.newCondition();
+    private final Condition done = lock.newCondition();
+    private List<Pending> batch = new ArrayList<>();
+    private long batchStarted;
+    private boolean closing;
+    private final Thread sender;
+
+    /**
+     * @param bank the bank to send batches to
+     * @param maxBatch most transfers in one batch
+     * @param windowMillis longest a transfer waits for others to join it
+     */
+    public BatchingBankingService(BatchBankingService bank, int maxBatch, long windowMillis) {
+        this.bank = bank;
+        this.maxBatch = maxBatch;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        sender = new Thread(this::sendLoop, "auctionhouse-bank-batcher");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    public Status transfer(
+            String senderAccount,
+            String senderAuthCode,
+            String receiverAccount,
+            Money amount) {
+        return transfer(null, senderAccount, senderAuthCode, receiverAccount, amount);
+    }
+
+    public Status transfer(
+            String idempotencyKey,
+            String senderAccount,
+            String senderAuthCode,
+            String receiverAccount,
+            Money amount) {
+        Pending p = new Pending(new Transfer(idempotencyKey, senderAccount, senderAuthCode, receiverAccount, amount));
+        lock.lock();
+        try {
+            if (closing) {
+                return Status.error("Bank connection is closed");
+            }
+            if (batch.isEmpty()) {
+                batchStarted = System.nanoTime();
+            }
+            batch.add(p);
+            if (batch.size() == 1 || batch.size() >= maxBatch) {
+                work.signal();
+            }
+            while (p.status == null) {
+                done.awaitUninterruptibly();
+            }
+            return p.status;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sendLoop() {
+        while (true) {
+            List<Pending> toSend;
+            lock.lock();
+            try {
+                while (batch.isEmpty() && !closing) {
+                    work.awaitUninterruptibly();
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                long wait;
+                while (batch.size() < maxBatch && !closing
+                        && (wait = batchStarted + windowNanos - System.nanoTime()) > 0) {
+                    try {
+                        work.awaitNanos(wait);
+                    } catch (InterruptedException e) {
+                        // Checked again like any other wake-up.
+                    }
+                }
+                if (batch.size() <= maxBatch) {
+                    toSend = batch;
+                    batch = new ArrayList<>();
+                } else {
+                    // The rest arrived during the same window, so go next without waiting.
+                    toSend = new ArrayList<>(batch.subList(0, maxBatch));
+                    batch = new ArrayList<>(batch.subList(maxBatch, batch.size()));
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            List<Status> statuses = send(toSend);
+
+            lock.lock();
+            try {
+                for (int i = 0; i < toSend.size(); i++) {
+                    Status status = statuses.get(i);
+                    toSend.get(i).status = status != null ? status : Status.error("Bank returned no result");
+                }
+                done.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private List<Status> send(List<Pending> toSend) {
+        List<Transfer> transfers = new ArrayList<>(toSend.size());
+        for (Pending p : toSend) {
+            transfers.add(p.transfer);
+        }
+        try {
+            List<Status> statuses = bank.transferBatch(transfers);
+            if (statuses != null && statuses.size() == transfers.size()) {
+                return statuses;
+            }
+            logger.warning("Bank returned " + (statuses == null ? "no" : statuses.size()) + " results for a batch of "
+                    + transfers.size());
+        } catch (Throwable e) {
+            // Even an Error must not stop the sender, or every caller waits forever.
+            logger.log(Level.WARNING, "Batch of " + transfers.size() + " transfers failed", e);
+        }
+        List<Status> failed = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            failed.add(Status.error("Batch transfer failed"));
+        }
+        return failed;
+    }
+
+    /**
+     * Send what has been gathered so far, then stop; later transfers fail.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closing = true;
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            sender.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ *
+ */
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchingBankingServiceTest {
+
+    /*
+     * Records the size of each batch and fails transfers from "Bad"; while
+     * broken it throws, and while forgetful it returns no Status at all. It
+ * also records the idempotency key of each transfer.
+     */
+    private static class RecordingBank implements BatchBankingService {
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        final List<String> keys = Collections.synchronizedList(new ArrayList<String>());
+        volatile boolean broken;
+        volatile Error error;
+        volatile boolean forgetful;
+
+        public Status transfer(String senderAccount, String senderAuthCode, String receiverAccount, Money amount) {
+            return transferBatch(List.of(new Transfer(senderAccount, senderAuthCode, receiverAccount, amount))).get(0);
+        }
+
+        public List<Status> transferBatch(List<Transfer> transfers) {
+            if (broken) {
+                throw new IllegalStateException("Bank unreachable");
+            }
+            if (error != null) {
+                throw error;
+            }
+            batchSizes.add(transfers.size());
+            List<Status> statuses = new ArrayList<>();
+            for (Transfer t : transfers) {
+                keys.add(t.idempotencyKey);
+                statuses.add(forgetful ? null : t.senderAccount.equals("Bad") ? Status.error("Refused") : Status.OK());
+            }
+            return statuses;
+        }
+    }
+
+    private RecordingBank bank;
+
+    @Before
+    public void setup() {
+        bank = new RecordingBank();
+    }
+
+    private static List<CompletableFuture<Status>> transferAll(
+            BankingService batching, List<String> accounts, ExecutorService callers) {
+        List<CompletableFuture<Status>> statuses = new ArrayList<>();
+        for (String account : accounts) {
+            statuses.add(CompletableFuture.supplyAsync(
+                    () -> batching.transfer(account, "auth", "AH A/C", new Money("1.00")), callers));
+        }
+        return statuses;
+    }
+
+    @Test
+    public void testConcurrentTransfersShareBatches() throws InterruptedException {
+        int callers = 40;
+        ExecutorService threads = Executors.newFixedThreadPool(callers);
+        try (BatchingBankingService batching = new BatchingBankingService(bank, 16, 200)) {
+            List<String> accounts = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                accounts.add(i % 10 == 0 ? "Bad" : "A" + i);
+            }
+            List<CompletableFuture<Status>> statuses = transferAll(batching, accounts, threads);
+            for (int i = 0; i < callers; i++) {
+                Status.Kind expected = accounts.get(i).equals("Bad") ? Status.Kind.ERROR : Status.Kind.OK;
+                assertEquals(expected, statuses.get(i).join().kind);
+            }
+        } finally {
+            threads.shutdown();
+        }
+        int total = 0;
+        for (int size : bank.batchSizes) {
+            assertTrue(size <= 16);
+            total += size;
+        }
+        assertEquals(callers, total);
+        assertTrue(bank.batchSizes.size() < callers);
+    }
+
+    @Test
+    public void testLoneTransferSentAfterWindow() throws InterruptedException {
+        try (BatchingBankingService batching = new BatchingBankingService(bank, 16, 10)) {
+            assertEquals(Status.Kind.OK, batching.transfer("A", "auth", "AH A/C", new Money("1.00")).kind);
+        }
+        assertEquals(List.of(1), bank.batchSizes);
+    }
+
+    @Test
+    public void testFailedBatchFailsEveryTransfer() throws InterruptedException {
+        bank.broken = true;
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try (BatchingBankingService batching = new BatchingBankingService(bank, 4, 50)) {
+            for (CompletableFuture<Status> status : transferAll(batching, List.of("A", "B", "C", "D"), threads)) {
+                assertEquals(Status.Kind.ERROR, status.join().kind);
+            }
+        } finally {
+            threads.shutdown();
+        }
+    }
+
+    @Test
+    public void testErrorsAndMissingResultsFailTransfers() throws InterruptedException {
+        try (BatchingBankingService batching = new BatchingBankingService(bank, 16, 10)) {
+            bank.error = new LinkageError("Bank client failed to load");
+            assertEquals(Status.Kind.ERROR, batching.transfer("A", "auth", "AH A/C", new Money("1.00")).kind);
+            bank.error = null;
+            bank.forgetful = true;
+            assertEquals(Status.Kind.ERROR, batching.transfer("A", "auth", "AH A/C", new Money("1.00")).kind);
+            // The sender thread survived both.
+            bank.forgetful = false;
+            assertEquals(Status.Kind.OK, batching.transfer("A", "auth", "AH A/C", new Money("1.00")).kind);
+        }
+    }
+
+    @Test
+    public void testClosedServiceRefusesTransfers() throws InterruptedException {
+        BatchingBankingService batching = new BatchingBankingService(bank, 4, 10);
+        batching.close();
+        assertEquals(Status.Kind.ERROR, batching.transfer("A", "auth", "AH A/C", new Money("1.00")).kind);
+    }
+
+    @Test
+    public void testIdempotencyKeysReachTheBank() {
+        BatchingBankingService batching = new BatchingBankingService(bank, 10, 1);
+        try {
+            assertEquals(Status.Kind.OK,
+                    batching.transfer("lot-1-close-0-buyer", "BA A/C", "BA-auth", "AH A/C", new Money("1.00")).kind);
+            assertEquals(Status.Kind.OK, batching.transfer("BA A/C", "BA-auth", "AH A/C", new Money("1.00")).kind);
+        } finally {
+            batching.close();
+        }
+        assertEquals(Arrays.asList("lot-1-close-0-buyer", null), bank.keys);
+    }
+}
@@ -0,0 +1,246 @@
+package auctionhouse;
+
+/**
+ * Lock-free acceptance of bids.
+ * <p>
+ * Each lot's HighestBid is held in its LotStore slot. A bid is accepted by
+ * reading the current snapshot, checking it against the minimum increment and
+ * swapping in a new snapshot; if another bid got in first the check is simply
+ * repeated against the newer snapshot. The check and the update are therefore
+ * one atomic step without any thread ever holding a lock.
+ * <p>
+ * Each accepted bid is also added to a BidHistory and linked to the lot's
+ * previous bid before the swap, so the history of a lot is exactly the
+ * sequence of snapshots that were swapped in. Whoever holds the highest bid
+ * of an open lot is kept in BuyerActivity as leading it.
+ * <p>
+ * Buyers may also leave a proxy bid: a maximum up to which the house bids
+ * for them. Whenever a bid is offered or a proxy set, the lot's proxies
+ * answer it in the same swap, so a contest between proxies costs one swap
+ * and one announcement rather than one per increment.
+ */
+public class BidEngine {
+
+    private final Money increment;
+    private final LotStore lots;
+    private final BidHistory history;
+    private final BuyerActivity activity;
+
+    public BidEngine(Money increment, LotStore lots, BidHistory history, BuyerActivity activity) {
+        this.increment = increment;
+        this.lots = lots;
+        this.history = history;
+        this.activity = activity;
+    }
+
+    /**
+     * What became of a bid: refused with an error, or accepted and, once the
+     * lot's proxies have answered it, leaving highest as the highest bid.
+     */
+    public static final class Outcome {
+        public final Status status;
+        // Null if the bid was refused.
+        public final HighestBid highest;
+
+        private Outcome(Status status, HighestBid highest) {
+            this.status = status;
+            this.highest = highest;
+        }
+
+        private static Outcome refused(String message) {
+            return new Outcome(Status.error(message), null);
+        }
+    }
+
+    /**
+     * Try to make bid the new highest bid of the lot in slot, and let any
+     * proxy bids on the lot answer it in the same step.
+     * @return the outcome, with status OK if the bid was accepted, even if a
+     *         proxy then outbid it, and otherwise an error saying why not
+     */
+    public Outcome offer(int slot, int bidder, Money bid) {
+        HighestBid placed = null;
+        // History position taken by the proxies' answer to an earlier try.
+        int answered = -1;
+        while (true) {
+            HighestBid current = lots.highestBid(slot);
+            if (!current.open) {
+                return Outcome.refused("Lot is not in auction.");
+            }
+            if (bid.compareToSum(current.amount, increment) < 0) {
+                return Outcome.refused("Bid is not above the minimum increment.");
+            }
+            int sequence = current.sequence + 1;
+            if (placed == null) {
+                int position = history.add(bidder, bid.pence(), System.currentTimeMillis());
+                placed = new HighestBid(bid, bidder, true, position, sequence);
+            } else if (placed.sequence != sequence) {
+                placed = new HighestBid(bid, bidder, true, placed.history, sequence);
+            }
+            if (placed.history >= 0) {
+                history.link(placed.history, current.history);
+            }
+            HighestBid next = answer(slot, placed, sequence, answered);
+            if (next != placed) {
+                answered = next.history;
+            }
+            if (lots.compareAndSetHighestBid(slot, current, next)) {
+                swapped(slot, current, placed, next);
+                Status status = next.bidder == bidder ? Status.OK() : new Status(Status.Kind.OK, "Outbid by a proxy bid.");
+                return new Outcome(status, next);
+            }
+        }
+    }
+
+    /**
+     * Let the proxies on the lot in slot answer its highest bid, as they must
+     * when one of them has just been set.
+     * @return the new highest bid, or null if it is unchanged or the lot is
+     *         not in auction
+     */
+    public HighestBid answerProxies(int slot) {
+        int answered = -1;
+        while (true) {
+            HighestBid current = lots.highestBid(slot);
+            if (!current.open) {
+                return null;
+            }
+            HighestBid next = answer(slot, current, current.sequence + 1, answered);
+            if (next == current) {
+                return null;
+            }
+            answered = next.history;
+            if (lots.compareAndSetHighestBid(slot, current, next)) {
+                swapped(slot, current, null, next);
+                return next;
+            }
+        }
+    }
+
+    /*
+     * The highest bid once the lot's proxies have answered incumbent, found
+     * in one step rather than an increment at a time. The bidder with the
+     * highest maximum wins, the earlier one if two are equal; the incumbent
+     * counts the larger of their bid and their proxy, and wins ties. The
+     * winner pays one increment over the runner-up's maximum, or over the
+     * incumbent's bid if they outbid it alone, but never more than their
+     * own maximum. The answer is decided before it takes a place in the
+     * history, after incumbent, reusing position reuse if that is not -1;
+     * it is numbered sequence.
+     */
+    private HighestBid answer(int slot, HighestBid incumbent, int sequence, int reuse) {
+        ProxySet proxies = lots.proxies(slot);
+        if (proxies == null) {
+            return incumbent;
+        }
+        long step = increment.pence();
+        int leader = incumbent.bidder;
+        long pence = incumbent.amount.pence();
+        int best = leader;
+        long bestMax = leader >= 0 ? Math.max(pence, proxies.maxPence(leader)) : -1;
+        long secondMax = -1;
+        // The top three hold the top two besides the incumbent.
+        for (ProxySet.Proxy proxy : proxies.top(3)) {
+            if (proxy.buyer == leader) continue;
+            if (proxy.maxPence > bestMax) {
+                secondMax = bestMax;
+                best = proxy.buyer;
+                bestMax = proxy.maxPence;
+            } else if (proxy.maxPence > secondMax) {
+                secondMax = proxy.maxPence;
+            }
+        }
+        long price;
+        if (best == leader) {
+            if (leader < 0 || secondMax < 0) {
+                return incumbent;
+            }
+            price = Math.max(pence, Math.min(bestMax, secondMax + step));
+        } else {
+            if (bestMax < pence + step) {
+                return incumbent;
+            }
+            price = secondMax < 0 ? pence + step : Math.max(pence + step, Math.min(bestMax, secondMax + step));
+        }
+        if (best == leader && price == pence) {
+            return incumbent;
+        }
+        long now = System.currentTimeMillis();
+        int position = reuse >= 0 ? history.set(reuse, best, price, now) : history.add(best, price, now);
+        if (position >= 0) {
+            history.link(position, incumbent.history);
+        }
+        return new HighestBid(Money.ofPence(price), best, true, position, sequence);
+    }
+
+    /*
+     * Record in the history and BuyerActivity that next replaced previous,
+     * by way of placed if a bid was offered.
+     */
+    private void swapped(int slot, HighestBid previous, HighestBid placed, HighestBid next) {
+        if (placed != null && placed.history >= 0) {
+            history.accepted(placed.bidder, slot, placed.history);
+        }
+        if (next != placed && next.history >= 0) {
+            history.accepted(next.bidder, slot, next.history);
+        }
+        // A bidder raising their own bid is already noted as leading.
+        if (previous.bidder != next.bidder) {
+            activity.lead(next.bidder, slot);
+            if (previous.bidder >= 0) {
+                activity.unlead(previous.bidder, slot);
+            }
+        }
+    }
+
+    /**
+     * Raise the lot's highest bid to bid if it is higher, without checking the
+     * increment or whether the lot is open. Used when rebuilding a lot from
+     * bids that were accepted earlier, possibly recorded out of order. The
+     * bid is not added to the history, nor numbered as one to announce.
+     */
+    public void restore(int slot, int bidder, Money bid) {
+        HighestBid restored = lots.updateHighestBid(slot, current ->
+                bid.compareTo(current.amount) > 0
+                        ? new HighestBid(bid, bidder, current.open, -1, current.sequence)
+                        : current);
+        if (restored.open && restored.bidder == bidder) {
+            activity.lead(bidder, slot);
+        }
+    }
+
+    /**
+     * Start accepting bids on the lot, keeping any earlier highest bid.
+     */
+    public void open(int slot) {
+        clearProxies(slot);
+        HighestBid opened = lots.updateHighestBid(slot, HighestBid::opened);
+        if (opened.bidder >= 0) {
+            activity.lead(opened.bidder, slot);
+        }
+    }
+
+    /**
+     * Stop accepting bids on the lot.
+     * @return the final snapshot, after which no further bid can succeed
+     */
+    public HighestBid close(int slot) {
+        HighestBid closed = lots.updateHighestBid(slot, HighestBid::closed);
+        clearProxies(slot);
+        if (closed.bidder >= 0) {
+            activity.unlead(closed.bidder, slot);
+        }
+        return closed;
+    }
+
+    /*
+     * Proxies last for one auction. They are cleared on opening as well, in
+     * case one was set while the previous auction was closing.
+     */
+    private void clearProxies(int slot) {
+        ProxySet proxies = lots.proxies(slot);
+        if (proxies != null) {
+            proxies.clear();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package auctionhouse;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Every accepted bid, packed into direct-memory slabs rather than held as
+ * one object per bid.
+ * <p>
+ * Each bid gets a position when recorded, and a 24-byte record at that
+ * position in a slab: amount in pence, time in milliseconds, bidder ID and
+ * the position of the lot's previous bid. The history only ever grows, so
+ * keeping it off the heap spares the garbage collector from copying it
+ * while it is young; size -XX:MaxDirectMemorySize to fit it. Slabs never
+ * move, so recording never copies or waits for another bid.
+ * <p>
+ * A lot's history is the chain of previous positions back from the bid its
+ * HighestBid names, so a page of it costs O(page size) and lots need
+ * nothing of their own. BidEngine links a bid to its predecessor before
+ * swapping in the HighestBid that names it, so the chain is exactly the
+ * order in which the lot's bids were accepted, and anyone who reads a
+ * HighestBid also sees every bid before it.
+ * <p>
+ * The last few bids of each buyer are also kept, as lot slots and
+ * positions, in a small ring per buyer who has bid.
+ * <p>
+ * The history is held in memory only; bids restored from a snapshot or
+ * EventLog are not in it.
+ */
+public class BidHistory {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    private static final int RECORD = 24;
+    private static final int PENCE = 0;
+    private static final int MILLIS = 8;
+    private static final int BIDDER = 16;
+    private static final int PREVIOUS = 20;
+    private static final int BUYER_CHUNK_BITS = 12;
+    private static final int BUYER_CHUNK = 1 << BUYER_CHUNK_BITS;
+    /** Bids kept per buyer for recent(); a power of two. */
+    public static final int RECENT = 16;
+
+    /*
+     * A buyer's last RECENT bids, each as slot << 32 | position, oldest
+     * overwritten first. Guarded by its own monitor.
+     */
+    private static final class Recent {
+        final long[] bids = new long[RECENT];
+        int count;
+    }
+
+    private volatile ByteBuffer[] chunks = new ByteBuffer[16];
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile Recent[][] recent = new Recent[16][];
+
+    private static int at(int position) {
+        return (position & (CHUNK - 1)) * RECORD;
+    }
+
+    private ByteBuffer chunk(int position) {
+        ByteBuffer[] c = chunks;
+        int i = position >>> CHUNK_BITS;
+        if (i < c.length && c[i] != null) {
+            return c[i];
+        }
+        return grow(i);
+    }
+
+    private synchronized ByteBuffer grow(int chunkIndex) {
+        ByteBuffer[] c = chunks;
+        if (chunkIndex >= c.length) {
+            c = Arrays.copyOf(c, Math.max(c.length * 2, chunkIndex + 1));
+        }
+        if (c[chunkIndex] == null) {
+            c[chunkIndex] = ByteBuffer.allocateDirect(CHUNK * RECORD).order(ByteOrder.nativeOrder());
+        }
+        chunks = c;
+        return c[chunkIndex];
+    }
+
+    /**
+     * Take a position for a bid, not yet part of any lot's history. If the
+     * bid is then refused, the position is simply never linked to.
+     * @return the position, or -1 if the history is full
+     */
+    public int add(int bidder, long pence, long millis) {
+        int position = next.getAndIncrement();
+        if (position < 0) {
+            return -1;
+        }
+        return set(position, bidder, pence, millis);
+    }
+
+    /**
+     * Record a different bid at a position taken by add(), so that a bid
+     * that had to be tried again need not take another. Only allowed until
+     * position is published in a HighestBid.
+     * @return position
+     */
+    public int set(int position, int bidder, long pence, long millis) {
+        ByteBuffer k = chunk(position);
+        int i = at(position);
+        k.putLong(i + PENCE, pence);
+        k.putLong(i + MILLIS, millis);
+        k.putInt(i + BIDDER, bidder);
+        k.putInt(i + PREVIOUS, -1);
+        return position;
+    }
+
+    /**
+     * Make previous the bid before position in its lot's history. Only
+     * allowed until position is published in a HighestBid.
+     */
+    public void link(int position, int previous) {
+        chunk(position).putInt(at(position) + PREVIOUS, previous);
+    }
+
+    /**
+     * Note that bidder's bid at position, on the lot in slot, was accepted.
+     */
+    public void accepted(int bidder, int slot, int position) {
+        Recent r = recentOrCreate(bidder);
+        synchronized (r) {
+            r.bids[r.count++ & (RECENT - 1)] = (long) slot << 32 | position;
+        }
+    }
+
+    private Recent recentOrCreate(int bidder) {
+        Recent[][] c = recent;
+        int i = bidder >>> BUYER_CHUNK_BITS;
+        if (i < c.length && c[i] != null) {
+            Recent r = c[i][bidder & (BUYER_CHUNK - 1)];
+            if (r != null) {
+                return r;
+            }
+        }
+        return createRecent(bidder);
+    }
+
+    private synchronized Recent createRecent(int bidder) {
+        Recent[][] c = recent;
+        int i = bidder >>> BUYER_CHUNK_BITS;
+        if (i >= c.length) {
+            c = Arrays.copyOf(c, Math.max(c.length * 2, i + 1));
+        }
+        if (c[i] == null) {
+            c[i] = new Recent[BUYER_CHUNK];
+        }
+        Recent[] k = c[i];
+        int at = bidder & (BUYER_CHUNK - 1);
+        if (k[at] == null) {
+            k[at] = new Recent();
+        }
+        recent = c;
+        return k[at];
+    }
+
+    /**
+     * @return the bidder's last bids, newest first, each as
+     *         slot << 32 | position; at most RECENT of them
+     */
+    public long[] recent(int bidder) {
+        Recent[][] c = recent;
+        int i = bidder >>> BUYER_CHUNK_BITS;
+        Recent r = i < c.length && c[i] != null ? c[i][bidder & (BUYER_CHUNK - 1)] : null;
+        if (r == null) {
+            return new long[0];
+        }
+        synchronized (r) {
+            int n = Math.min(r.count, RECENT);
+            long[] bids = new long[n];
+            for (int j = 0; j < n; j++) {
+                bids[j] = r.bids[(r.count - 1 - j) & (RECENT - 1)];
+            }
+            return bids;
+        }
+    }
+
+    public int bidder(int position) {
+        return chunk(position).getInt(at(position) + BIDDER);
+    }
+
+    public long pence(int position) {
+        return chunk(position).getLong(at(position) + PENCE);
+    }
+
+    public long millis(int position) {
+        return chunk(position).getLong(at(position) + MILLIS);
+    }
+
+    /**
+     * @return the position of the lot's bid before this one, or -1
+     */
+    public int previous(int position) {
+        return chunk(position).getInt(at(position) + PREVIOUS);
+    }
+
+    /**
+     * @return the number of positions handed out
+     */
+    public int size() {
+        return Math.max(next.get(), 0);
+    }
+}
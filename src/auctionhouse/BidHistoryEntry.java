@@ -0,0 +1,27 @@
+package auctionhouse;
+
+/**
+ * One accepted bid, as read from a BidHistory.
+ */
+public class BidHistoryEntry {
+
+    public final int lotNumber;
+    public final String buyerName;
+    public final Money amount;
+    public final long timeMillis;
+    // Orders bids within one house; pass to bidHistory() for the next page.
+    public final int sequence;
+
+    public BidHistoryEntry(int lotNumber, String buyerName, Money amount, long timeMillis, int sequence) {
+        this.lotNumber = lotNumber;
+        this.buyerName = buyerName;
+        this.amount = amount;
+        this.timeMillis = timeMillis;
+        this.sequence = sequence;
+    }
+
+    @Override
+    public String toString() {
+        return lotNumber + ": " + buyerName + " bid " + amount + " at " + timeMillis;
+    }
+}
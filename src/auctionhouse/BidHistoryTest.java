@@ -0,0 +1,98 @@
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BidHistoryTest {
+
+    private AuctionHouseImp house;
+
+    @Before
+    public void setup() {
+        house = new AuctionHouseImp(MockServices.parameters(MockServices.SILENT, new MockBankingService()));
+        house.setTracer(Tracer.OFF);
+        house.registerSeller("SellerY", "@SellerY", "SY A/C");
+        house.registerBuyer("BuyerA", "@BuyerA", "BA A/C", "BA-auth");
+        house.registerBuyer("BuyerB", "@BuyerB", "BB A/C", "BB-auth");
+    }
+
+    private void openLot(int number) {
+        house.addLot("SellerY", number, "Lot " + number, new Money("10.00"));
+        house.noteInterest("BuyerA", number);
+        house.noteInterest("BuyerB", number);
+        house.openAuction("Auctioneer1", "@Auctioneer1", number);
+    }
+
+    @Test
+    public void testPagesNewestFirst() {
+        openLot(1);
+        for (int pounds = 1; pounds <= 7; pounds++) {
+            house.makeBid(pounds % 2 == 0 ? "BuyerB" : "BuyerA", 1, new Money(pounds + ".00"));
+        }
+        // Below the increment, so refused and not recorded.
+        house.makeBid("BuyerA", 1, new Money("7.50"));
+
+        List<String> seen = new ArrayList<>();
+        int from = -1;
+        List<BidHistoryEntry> page;
+        while (!(page = house.bidHistory(1, from, 3)).isEmpty()) {
+            assertTrue(page.size() <= 3);
+            for (BidHistoryEntry e : page) {
+                assertEquals(1, e.lotNumber);
+                seen.add(e.buyerName + " " + e.amount.pence());
+            }
+            from = page.get(page.size() - 1).sequence;
+        }
+        assertEquals(List.of("BuyerA 700", "BuyerB 600", "BuyerA 500", "BuyerB 400",
+                "BuyerA 300", "BuyerB 200", "BuyerA 100"), seen);
+        assertTrue(house.bidHistory(2, -1, 3).isEmpty());
+    }
+
+    @Test
+    public void testRecentBidsAcrossLots() {
+        for (int lot = 1; lot <= 20; lot++) {
+            openLot(lot);
+            house.makeBid("BuyerA", lot, new Money(lot + ".00"));
+        }
+        house.makeBid("BuyerB", 3, new Money("50.00"));
+
+        List<BidHistoryEntry> recent = house.recentBids("BuyerA");
+        assertEquals(BidHistory.RECENT, recent.size());
+        for (int i = 0; i < recent.size(); i++) {
+            assertEquals(20 - i, recent.get(i).lotNumber);
+            assertEquals((20 - i) * 100, recent.get(i).amount.pence());
+        }
+        assertEquals(1, house.recentBids("BuyerB").size());
+        assertTrue(house.recentBids("Nobody").isEmpty());
+    }
+
+    @Test
+    public void testConcurrentBidsChainInAcceptedOrder() throws InterruptedException {
+        openLot(1);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            String buyer = t % 2 == 0 ? "BuyerA" : "BuyerB";
+            threads[t] = new Thread(() -> {
+                for (long pence = 100; pence <= 20_000; pence += 100) {
+                    house.makeBid(buyer, 1, Money.ofPence(pence));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        List<BidHistoryEntry> history = house.bidHistory(1, -1, Integer.MAX_VALUE);
+        assertEquals(20_000, history.get(0).amount.pence());
+        for (int i = 1; i < history.size(); i++) {
+            assertTrue(history.get(i).amount.pence() < history.get(i - 1).amount.pence());
+        }
+    }
+}
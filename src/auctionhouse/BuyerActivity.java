@@ -0,0 +1,216 @@
+package auctionhouse;
+
+import java.util.Arrays;
+
+/**
+ * For each buyer, the lots they watch and the lots on which they hold the
+ * highest bid, as LotStore slots.
+ * <p>
+ * The sets are kept up to date as interest is noted and bids are accepted
+ * and closed, so that a buyer's lots are found without looking at anyone
+ * else's. Bids are accepted without locking, so two of them overtaking each
+ * other can leave a slot in the set of a buyer who has already been outbid,
+ * though never miss one they lead. Queries therefore check each slot
+ * against the lot and drop any that no longer apply, as they do slots of
+ * lots since replaced. Each slot is dropped at most once per time it is
+ * added, so a query costs O(result size) over time.
+ * <p>
+ * Buyers are found by ID in fixed-size chunks, and each buyer's sets are
+ * only created once they first watch a lot or bid.
+ */
+public class BuyerActivity {
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+
+    /*
+     * The sets of one buyer.
+     */
+    private static final class Activity {
+        final SlotSet watching = new SlotSet();
+        final SlotSet leading = new SlotSet();
+    }
+
+    private final LotStore lots;
+    private volatile Activity[][] activities = new Activity[16][];
+
+    public BuyerActivity(LotStore lots) {
+        this.lots = lots;
+    }
+
+    public void watch(int buyer, int slot) {
+        activityOrCreate(buyer).watching.add(slot);
+    }
+
+    public void lead(int buyer, int slot) {
+        activityOrCreate(buyer).leading.add(slot);
+    }
+
+    /**
+     * Note that buyer no longer holds the highest bid on the lot in slot,
+     * either because they were outbid or because its auction has closed.
+     */
+    public void unlead(int buyer, int slot) {
+        Activity a = activity(buyer);
+        if (a != null && a.leading.remove(slot)) {
+            // If they have bid again since, their lead() may have come
+            // before the removal; this check then sees their bid.
+            if (leads(buyer, slot)) {
+                a.leading.add(slot);
+            }
+        }
+    }
+
+    private boolean leads(int buyer, int slot) {
+        HighestBid highest = lots.highestBid(slot);
+        return highest.open && highest.bidder == buyer && lots.isCurrent(slot);
+    }
+
+    /**
+     * @return the slots of the lots buyer watches, in no particular order
+     */
+    public int[] watching(int buyer) {
+        Activity a = activity(buyer);
+        if (a == null) {
+            return new int[0];
+        }
+        int[] slots = a.watching.toArray();
+        int n = 0;
+        for (int slot : slots) {
+            if (lots.isCurrent(slot)) {
+                slots[n++] = slot;
+            } else {
+                a.watching.remove(slot);
+            }
+        }
+        return Arrays.copyOf(slots, n);
+    }
+
+    /**
+     * @return the slots of the lots in auction on which buyer holds the
+     *         highest bid, in no particular order
+     */
+    public int[] leading(int buyer) {
+        Activity a = activity(buyer);
+        if (a == null) {
+            return new int[0];
+        }
+        int[] slots = a.leading.toArray();
+        int n = 0;
+        for (int slot : slots) {
+            if (leads(buyer, slot)) {
+                slots[n++] = slot;
+            } else {
+                unlead(buyer, slot);
+            }
+        }
+        return Arrays.copyOf(slots, n);
+    }
+
+    private Activity activity(int buyer) {
+        Activity[][] c = activities;
+        int i = buyer >>> CHUNK_BITS;
+        return i < c.length && c[i] != null ? c[i][buyer & (CHUNK - 1)] : null;
+    }
+
+    private Activity activityOrCreate(int buyer) {
+        Activity a = activity(buyer);
+        return a != null ? a : create(buyer);
+    }
+
+    private synchronized Activity create(int buyer) {
+        Activity[][] c = activities;
+        int i = buyer >>> CHUNK_BITS;
+        if (i >= c.length) {
+            c = Arrays.copyOf(c, Math.max(c.length * 2, i + 1));
+        }
+        if (c[i] == null) {
+            c[i] = new Activity[CHUNK];
+        }
+        Activity[] k = c[i];
+        int at = buyer & (CHUNK - 1);
+        if (k[at] == null) {
+            k[at] = new Activity();
+        }
+        activities = c;
+        return k[at];
+    }
+
+    /**
+     * A set of slots: an open-addressing table of slot + 1, 0 meaning
+     * empty, kept between a quarter and a half full so that listing it
+     * costs O(size). Guarded by its own monitor.
+     */
+    private static final class SlotSet {
+        private int[] table = new int[8];
+        private int size;
+
+        synchronized boolean add(int slot) {
+            int mask = table.length - 1;
+            int i = IntHash.index(slot, mask);
+            int s;
+            while ((s = table[i]) != 0) {
+                if (s == slot + 1) return false;
+                i = (i + 1) & mask;
+            }
+            table[i] = slot + 1;
+            if (++size * 2 > table.length) {
+                resize(table.length * 2);
+            }
+            return true;
+        }
+
+        synchronized boolean remove(int slot) {
+            int mask = table.length - 1;
+            int i = IntHash.index(slot, mask);
+            int s;
+            while ((s = table[i]) != slot + 1) {
+                if (s == 0) return false;
+                i = (i + 1) & mask;
+            }
+            // Shift later entries of the same run back, so no search stops early.
+            int gap = i;
+            for (int j = (i + 1) & mask; (s = table[j]) != 0; j = (j + 1) & mask) {
+                int home = IntHash.index(s - 1, mask);
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    table[gap] = s;
+                    gap = j;
+                }
+            }
+            table[gap] = 0;
+            if (--size * 4 < table.length && table.length > 8) {
+                resize(table.length / 2);
+            }
+            return true;
+        }
+
+        private void resize(int capacity) {
+            int[] old = table;
+            table = new int[capacity];
+            int mask = capacity - 1;
+            for (int s : old) {
+                if (s != 0) {
+                    int i = IntHash.index(s - 1, mask);
+                    while (table[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    table[i] = s;
+                }
+            }
+        }
+
+        /**
+         * @return the slots, in no particular order
+         */
+        synchronized int[] toArray() {
+            int[] slots = new int[size];
+            int n = 0;
+            for (int s : table) {
+                if (s != 0) {
+                    slots[n++] = s - 1;
+                }
+            }
+            return slots;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BuyerActivityTest {
+
+    private static final String[] BUYERS = { "BuyerA", "BuyerB", "BuyerC", "BuyerD" };
+
+    private AuctionHouseImp house;
+
+    @Before
+    public void setup() {
+        house = new AuctionHouseImp(MockServices.parameters(MockServices.SILENT,
+                (from, authCode, to, amount) -> Status.OK()));
+        house.setTracer(Tracer.OFF);
+        house.registerSeller("SellerY", "@SellerY", "SY A/C");
+        for (String buyer : BUYERS) {
+            house.registerBuyer(buyer, "@" + buyer, buyer + " A/C", buyer + "-auth");
+        }
+    }
+
+    private static Set<Integer> numbers(List<CatalogueEntry> entries) {
+        Set<Integer> numbers = new TreeSet<>();
+        for (CatalogueEntry e : entries) {
+            assertTrue(numbers.add(e.lotNumber));
+        }
+        return numbers;
+    }
+
+    @Test
+    public void testWatchedAndLeadingLots() {
+        for (int lot = 1; lot <= 3; lot++) {
+            house.addLot("SellerY", lot, "Lot " + lot, new Money("10.00"));
+            house.noteInterest("BuyerA", lot);
+        }
+        house.noteInterest("BuyerB", 2);
+        house.openAuction("Auctioneer1", "@Auctioneer1", 1);
+        house.openAuction("Auctioneer1", "@Auctioneer1", 2);
+
+        assertEquals(Set.of(1, 2, 3), numbers(house.watchedLots("BuyerA")));
+        assertEquals(Set.of(2), numbers(house.watchedLots("BuyerB")));
+        assertTrue(house.leadingLots("BuyerA").isEmpty());
+
+        house.makeBid("BuyerA", 1, new Money("20.00"));
+        house.makeBid("BuyerA", 2, new Money("20.00"));
+        assertEquals(Set.of(1, 2), numbers(house.leadingLots("BuyerA")));
+
+        house.makeBid("BuyerB", 2, new Money("30.00"));
+        assertEquals(Set.of(1), numbers(house.leadingLots("BuyerA")));
+        assertEquals(Set.of(2), numbers(house.leadingLots("BuyerB")));
+
+        assertEquals(Status.Kind.SALE, house.closeAuction("Auctioneer1", 1).kind);
+        assertTrue(house.leadingLots("BuyerA").isEmpty());
+        for (CatalogueEntry e : house.watchedLots("BuyerA")) {
+            assertEquals(e.lotNumber == 1 ? LotStatus.SOLD : e.lotNumber == 2 ? LotStatus.IN_AUCTION : LotStatus.UNSOLD,
+                    e.status);
+        }
+
+        // A lot added again under the same number is a new lot nobody watches.
+        house.addLot("SellerY", 3, "Lot 3 again", new Money("10.00"));
+        assertEquals(Set.of(1, 2), numbers(house.watchedLots("BuyerA")));
+        assertTrue(house.watchedLots("Nobody").isEmpty());
+    }
+
+    @Test
+    public void testLeadingMatchesHighestBidsAfterRacingBids() throws InterruptedException {
+        int lotCount = 50;
+        for (int lot = 0; lot < lotCount; lot++) {
+            house.addLot("SellerY", lot, "Lot " + lot, new Money("10.00"));
+            for (String buyer : BUYERS) {
+                house.noteInterest(buyer, lot);
+            }
+            house.openAuction("Auctioneer1", "@Auctioneer1", lot);
+        }
+        Thread[] threads = new Thread[BUYERS.length];
+        for (int t = 0; t < threads.length; t++) {
+            String buyer = BUYERS[t];
+            threads[t] = new Thread(() -> {
+                for (long pence = 100; pence <= 5_000; pence += 100) {
+                    for (int lot = 0; lot < lotCount; lot++) {
+                        house.makeBid(buyer, lot, Money.ofPence(pence));
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        int leadingTotal = 0;
+        for (String buyer : BUYERS) {
+            Set<Integer> leading = numbers(house.leadingLots(buyer));
+            for (int lot : leading) {
+                assertEquals(buyer, house.bidHistory(lot, -1, 1).get(0).buyerName);
+            }
+            leadingTotal += leading.size();
+        }
+        assertEquals(lotCount, leadingTotal);
+    }
+}
@@ -0,0 +1,251 @@
+package auctionhouse;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The catalogue of all lots in a LotStore, in lot number order.
+ * <p>
+ * There is one sorted index of lot numbers per LotStatus, so that a page of
+ * lots with a given status costs O(log n + page size) to find. The whole
+ * catalogue in order is a merge of these indexes. CatalogueEntry objects are
+ * only made for the lots actually looked at.
+ * <p>
+ * Every change also bumps a version number, and view() hands out one
+ * unmodifiable list per version, so repeated views between changes return
+ * the same list without walking the indexes again. The number of lots with
+ * each status is counted as it changes, since the size of a skip list is
+ * not known without walking it.
+ */
+public class Catalogue {
+
+    private static final LotStatus[] STATUSES = LotStatus.values();
+
+    /*
+     * The catalogue at one version: the lots' slots in lot number order and
+     * their statuses at that time. Entries are made as they are read.
+     */
+    private static final class View extends AbstractList<CatalogueEntry> implements RandomAccess {
+        final long version;
+        final LotStore lots;
+        final int[] slots;
+        final byte[] statuses;
+
+        View(long version, LotStore lots, int[] slots, byte[] statuses) {
+            this.version = version;
+            this.lots = lots;
+            this.slots = slots;
+            this.statuses = statuses;
+        }
+
+        @Override
+        public CatalogueEntry get(int i) {
+            if (i < 0 || i >= slots.length) {
+                throw new IndexOutOfBoundsException("Index " + i + " of " + slots.length);
+            }
+            int slot = slots[i];
+            return new CatalogueEntry(lots.number(slot), lots.description(slot), STATUSES[statuses[i]]);
+        }
+
+        @Override
+        public int size() {
+            return slots.length;
+        }
+    }
+
+    private final LotStore lots;
+    private final Map<LotStatus, ConcurrentSkipListSet<Integer>> byStatus = new EnumMap<>(LotStatus.class);
+    private final LongAdder[] counts = new LongAdder[STATUSES.length];
+    private final AtomicLong version = new AtomicLong();
+    private volatile View view;
+
+    public Catalogue(LotStore lots) {
+        this.lots = lots;
+        for (LotStatus status : STATUSES) {
+            byStatus.put(status, new ConcurrentSkipListSet<Integer>());
+            counts[status.ordinal()] = new LongAdder();
+        }
+        view = new View(0, lots, new int[0], new byte[0]);
+    }
+
+    /**
+     * Add a lot to the store as UNSOLD, replacing any lot with the same number.
+     * @return the lot's slot
+     */
+    public synchronized int add(int number, int sellerId, String description, long reservePence) {
+        int old = lots.slot(number);
+        LotStatus oldStatus = old < 0 ? null : lots.status(old);
+        int slot = lots.add(number, sellerId, description, reservePence);
+        byStatus.get(LotStatus.UNSOLD).add(number);
+        counts[LotStatus.UNSOLD.ordinal()].increment();
+        if (oldStatus != null) {
+            counts[oldStatus.ordinal()].decrement();
+            if (oldStatus != LotStatus.UNSOLD) {
+                byStatus.get(oldStatus).remove(number);
+            }
+        }
+        version.incrementAndGet();
+        return slot;
+    }
+
+    /**
+     * Change the status of the lot in slot.
+     * <p>
+     * Callers must hold the lot's lock, so that two changes to the same lot
+     * cannot overwrite each other.
+     */
+    public void setStatus(int slot, LotStatus status) {
+        LotStatus old = lots.status(slot);
+        int number = lots.number(slot);
+        lots.setStatus(slot, status);
+        // Index the lot under its new status before dropping the old one, so
+        // that it is never missing from every index; readers skip the stale copy.
+        byStatus.get(status).add(number);
+        if (old != status) {
+            byStatus.get(old).remove(number);
+            counts[status.ordinal()].increment();
+            counts[old.ordinal()].decrement();
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * @return an unmodifiable list of all entries in lot number order
+     */
+    public List<CatalogueEntry> view() {
+        View v = view;
+        long current = version.get();
+        if (v.version == current) {
+            return v;
+        }
+        // Anything changed after current was read shows up at a later version.
+        int[] slots = new int[Math.max(lots.count(), 16)];
+        byte[] statuses = new byte[slots.length];
+        int n = 0;
+        Merge merge = new Merge(Integer.MIN_VALUE);
+        int slot;
+        while ((slot = merge.next()) >= 0) {
+            if (n == slots.length) {
+                slots = Arrays.copyOf(slots, n * 2);
+                statuses = Arrays.copyOf(statuses, n * 2);
+            }
+            slots[n] = slot;
+            statuses[n] = (byte) lots.status(slot).ordinal();
+            n++;
+        }
+        v = new View(current, lots, Arrays.copyOf(slots, n), Arrays.copyOf(statuses, n));
+        view = v;
+        return v;
+    }
+
+    /**
+     * A page of the catalogue in lot number order.
+     * @param status only return lots with this status, or all lots if null
+     * @param fromLotNumber the lowest lot number to return
+     * @param pageSize the largest number of entries to return
+     * @return the entries found, starting from fromLotNumber
+     */
+    public List<CatalogueEntry> page(LotStatus status, int fromLotNumber, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        List<CatalogueEntry> page = new ArrayList<>(Math.min(pageSize, 64));
+        if (status == null) {
+            Merge merge = new Merge(fromLotNumber);
+            int slot;
+            while (page.size() < pageSize && (slot = merge.next()) >= 0) {
+                page.add(entry(slot, lots.status(slot)));
+            }
+            return page;
+        }
+        for (Integer number : byStatus.get(status).tailSet(fromLotNumber, true)) {
+            int slot = lots.slot(number);
+            if (slot < 0 || lots.status(slot) != status) continue;
+            page.add(entry(slot, status));
+            if (page.size() == pageSize) break;
+        }
+        return page;
+    }
+
+    private CatalogueEntry entry(int slot, LotStatus status) {
+        return new CatalogueEntry(lots.number(slot), lots.description(slot), status);
+    }
+
+    /**
+     * @return the number of lots with the given status; exact when no
+     *         status is changing
+     */
+    public int count(LotStatus status) {
+        return (int) counts[status.ordinal()].sum();
+    }
+
+    /**
+     * @return the number of lots in the catalogue
+     */
+    public int size() {
+        return lots.count();
+    }
+
+    /*
+     * Walks the status indexes together in lot number order, yielding each
+     * lot's slot once even while it is briefly listed under two statuses.
+     */
+    private final class Merge {
+        private final List<Iterator<Integer>> iterators = new ArrayList<>();
+        private final int[] heads = new int[STATUSES.length];
+        private final boolean[] live = new boolean[STATUSES.length];
+        private boolean started;
+        private int last;
+
+        Merge(int fromLotNumber) {
+            for (int s = 0; s < STATUSES.length; s++) {
+                Iterator<Integer> it = byStatus.get(STATUSES[s]).tailSet(fromLotNumber, true).iterator();
+                iterators.add(it);
+                advance(s);
+            }
+        }
+
+        private void advance(int s) {
+            Iterator<Integer> it = iterators.get(s);
+            live[s] = it.hasNext();
+            if (live[s]) {
+                heads[s] = it.next();
+            }
+        }
+
+        /**
+         * @return the slot of the next lot, or -1 when there are no more
+         */
+        int next() {
+            while (true) {
+                int min = -1;
+                for (int s = 0; s < heads.length; s++) {
+                    if (live[s] && (min < 0 || heads[s] < heads[min])) {
+                        min = s;
+                    }
+                }
+                if (min < 0) {
+                    return -1;
+                }
+                int number = heads[min];
+                advance(min);
+                if (started && number == last) continue;
+                started = true;
+                last = number;
+                int slot = lots.slot(number);
+                if (slot >= 0) {
+                    return slot;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,499 @@
+package auctionhouse;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of AuctionEvents, from which a house can be rebuilt.
+ * <p>
+ * Each event is one binary record: payload length, CRC32 of the payload,
+ * then a type byte and the fields. Buyers are written as IDs and amounts as
+ * pence, so a bid takes 25 bytes.
+ * <p>
+ * Appending only copies the record into an in-memory buffer. A background
+ * thread writes the buffer out as one group, and forces it to disk if fsync
+ * is on, every syncIntervalMillis or sooner when the buffer is half full.
+ * Events are therefore durable within one interval; call sync() to wait
+ * until everything appended so far is on disk. When the buffer is full,
+ * appenders wait for the writer.
+ * <p>
+ * On opening, a torn or corrupt record at the end of the file (from a crash
+ * in the middle of a write) is cut off, along with anything after it.
+ */
+public class EventLog implements AuctionEvents, AutoCloseable {
+
+    private static Logger logger = Logger.getLogger("auctionhouse");
+
+    private static final byte BUYER = 1;
+    private static final byte SELLER = 2;
+    private static final byte LOT = 3;
+    private static final byte INTEREST = 4;
+    private static final byte OPENED = 5;
+    private static final byte BID = 6;
+    private static final byte CLOSED = 7;
+
+    private static final int HEADER = 8;
+    private static final int MAX_RECORD = 1 << 20;
+    private static final LotStatus[] STATUSES = LotStatus.values();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long validLength;
+    private final long syncIntervalMillis;
+    private final boolean fsync;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition work = lock.newCondition();
+    private final Condition written = lock.newCondition();
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer active;
+    private ByteBuffer spare;
+    private long appendedBytes;
+    private long writtenBytes;
+    private boolean closing;
+    private IOException failure;
+    private final Thread writer;
+
+    /**
+     * Open or create a log.
+     * @param path the log file
+     * @param bufferBytes size of each of the two append buffers
+     * @param syncIntervalMillis longest time an event waits before being
+     *        written out; 0 writes as soon as the writer is free
+     * @param fsync whether to force each write to disk
+     */
+    public EventLog(Path path, int bufferBytes, long syncIntervalMillis, boolean fsync) throws IOException {
+        this.path = path;
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.fsync = fsync;
+        active = ByteBuffer.allocate(bufferBytes);
+        spare = ByteBuffer.allocate(bufferBytes);
+        channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        validLength = scan(channel);
+        if (validLength < channel.size()) {
+            logger.warning("Discarding " + (channel.size() - validLength) + " bytes after the last whole record of " + path);
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+        appendedBytes = writtenBytes = validLength;
+
+        writer = new Thread(this::writeLoop, "auctionhouse-eventlog");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public EventLog(Path path) throws IOException {
+        this(path, 1 << 20, 5, true);
+    }
+
+    /*
+     * Appending
+     */
+
+    /**
+     * Throw now whatever appending an event holding texts would: an
+     * IllegalArgumentException if the event would be too large, or the
+     * exception of a failed or closed log. A house checks before making a
+     * change, so that it never makes one it cannot log.
+     */
+    public void checkAppend(String... texts) {
+        // Type, numbers and text lengths of the largest event.
+        int payload = 32;
+        for (String s : texts) {
+            payload += s == null ? 0 : bytes(s).length;
+        }
+        checkSize(payload);
+        lock.lock();
+        try {
+            checkOpen();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkSize(int payload) {
+        // A larger record would read back as corruption and end the log there.
+        if (payload > MAX_RECORD) {
+            throw new IllegalArgumentException("Event of " + payload + " bytes is larger than the largest record of "
+                    + MAX_RECORD + " bytes");
+        }
+        if (HEADER + payload > active.capacity()) {
+            throw new IllegalArgumentException("Event of " + payload + " bytes does not fit in the log buffer");
+        }
+    }
+
+    private ByteBuffer begin(int payload) {
+        int needed = HEADER + payload;
+        checkSize(payload);
+        lock.lock();
+        try {
+            while (active.remaining() < needed) {
+                checkOpen();
+                work.signal();
+                written.awaitUninterruptibly();
+            }
+            checkOpen();
+            active.position(active.position() + HEADER);
+            return active;
+        } catch (RuntimeException e) {
+            lock.unlock();
+            throw e;
+        }
+    }
+
+    private void end(int start) {
+        try {
+            int length = active.position() - start - HEADER;
+            crc.reset();
+            crc.update(active.array(), start + HEADER, length);
+            active.putInt(start, length);
+            active.putInt(start + 4, (int) crc.getValue());
+            appendedBytes += HEADER + length;
+            if (syncIntervalMillis == 0 || active.position() >= active.capacity() / 2) {
+                work.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkOpen() {
+        if (failure != null) {
+            throw new UncheckedIOException("Event log " + path + " failed", failure);
+        }
+        if (closing) {
+            throw new IllegalStateException("Event log " + path + " is closed");
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void put(ByteBuffer b, byte[] s) {
+        b.putInt(s.length).put(s);
+    }
+
+    public void buyerRegistered(int buyerId, String name, String address, String bankAccount, String bankAuthCode) {
+        byte[] n = bytes(name), a = bytes(address), acc = bytes(bankAccount), auth = bytes(bankAuthCode);
+        ByteBuffer b = begin(1 + 4 + 16 + n.length + a.length + acc.length + auth.length);
+        int start = b.position() - HEADER;
+        b.put(BUYER).putInt(buyerId);
+        put(b, n);
+        put(b, a);
+        put(b, acc);
+        put(b, auth);
+        end(start);
+    }
+
+    public void sellerRegistered(String name, String address, String bankAccount) {
+        byte[] n = bytes(name), a = bytes(address), acc = bytes(bankAccount);
+        ByteBuffer b = begin(1 + 12 + n.length + a.length + acc.length);
+        int start = b.position() - HEADER;
+        b.put(SELLER);
+        put(b, n);
+        put(b, a);
+        put(b, acc);
+        end(start);
+    }
+
+    public void lotAdded(String sellerName, int number, String description, Money reservePrice) {
+        byte[] s = bytes(sellerName), d = bytes(description);
+        ByteBuffer b = begin(1 + 4 + 8 + 8 + s.length + d.length);
+        int start = b.position() - HEADER;
+        b.put(LOT).putInt(number).putLong(reservePrice.pence());
+        put(b, s);
+        put(b, d);
+        end(start);
+    }
+
+    public void interestNoted(int buyerId, int lotNumber) {
+        ByteBuffer b = begin(1 + 4 + 4);
+        int start = b.position() - HEADER;
+        b.put(INTEREST).putInt(buyerId).putInt(lotNumber);
+        end(start);
+    }
+
+    public void auctionOpened(String auctioneerName, String auctioneerAddress, int lotNumber) {
+        byte[] n = bytes(auctioneerName), a = bytes(auctioneerAddress);
+        ByteBuffer b = begin(1 + 4 + 8 + n.length + a.length);
+        int start = b.position() - HEADER;
+        b.put(OPENED).putInt(lotNumber);
+        put(b, n);
+        put(b, a);
+        end(start);
+    }
+
+    public void bidAccepted(int buyerId, int lotNumber, Money bid) {
+        ByteBuffer b = begin(1 + 4 + 4 + 8);
+        int start = b.position() - HEADER;
+        b.put(BID).putInt(buyerId).putInt(lotNumber).putLong(bid.pence());
+        end(start);
+    }
+
+    public void auctionClosed(int lotNumber, LotStatus status) {
+        ByteBuffer b = begin(1 + 4 + 1);
+        int start = b.position() - HEADER;
+        b.put(CLOSED).putInt(lotNumber).put((byte) status.ordinal());
+        end(start);
+    }
+
+    /**
+     * @return the log position just after the last event appended so far
+     */
+    public long position() {
+        lock.lock();
+        try {
+            return appendedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Group commit
+     */
+
+    private void writeLoop() {
+        while (true) {
+            ByteBuffer toWrite;
+            long upTo;
+            lock.lock();
+            try {
+                if (active.position() == 0 && !closing) {
+                    if (syncIntervalMillis == 0) {
+                        work.awaitUninterruptibly();
+                    } else {
+                        try {
+                            work.await(syncIntervalMillis, TimeUnit.MILLISECONDS);
+                        } catch (InterruptedException e) {
+                            // Checked below like any other wake-up.
+                        }
+                    }
+                }
+                if (active.position() == 0) {
+                    if (closing) return;
+                    continue;
+                }
+                toWrite = active;
+                active = spare;
+                spare = null;
+                upTo = appendedBytes;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                toWrite.flip();
+                while (toWrite.hasRemaining()) {
+                    channel.write(toWrite);
+                }
+                if (fsync) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Writing event log " + path + " failed", e);
+                error = e;
+            }
+            toWrite.clear();
+
+            lock.lock();
+            try {
+                spare = toWrite;
+                if (error != null) {
+                    failure = error;
+                } else {
+                    writtenBytes = upTo;
+                }
+                written.signalAll();
+                if (error != null) return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Wait until every event appended before this call is written, and on
+     * disk if fsync is on.
+     */
+    public void sync() throws IOException {
+        lock.lock();
+        try {
+            long target = appendedBytes;
+            while (writtenBytes < target && failure == null) {
+                work.signal();
+                written.awaitUninterruptibly();
+            }
+            if (failure != null) throw failure;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write out everything appended and close the file.
+     */
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closing = true;
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) throw failure;
+    }
+
+    /*
+     * Reading
+     */
+
+    /**
+     * @return the length of the whole, uncorrupted records at the start of the file
+     */
+    private static long scan(FileChannel channel) throws IOException {
+        long end = 0;
+        CRC32 check = new CRC32();
+        try (DataInputStream in = open(channel)) {
+            while (true) {
+                int length = in.readInt();
+                int sum = in.readInt();
+                if (length <= 0 || length > MAX_RECORD) break;
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                check.reset();
+                check.update(payload);
+                if ((int) check.getValue() != sum) break;
+                end += HEADER + length;
+            }
+        } catch (EOFException e) {
+            // A short record at the end; end already excludes it.
+        }
+        return end;
+    }
+
+    private static DataInputStream open(FileChannel channel) throws IOException {
+        // Reads from the start through its own position, leaving channel's alone.
+        final FileChannel c = channel;
+        InputStream in = new InputStream() {
+            long position = 0;
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = c.read(ByteBuffer.wrap(b, off, len), position);
+                if (n > 0) position += n;
+                return n;
+            }
+        };
+        return new DataInputStream(new BufferedInputStream(in, 1 << 16));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] s = new byte[in.readInt()];
+        in.readFully(s);
+        return new String(s, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Feed every event in the log, as it was when opened, to handler.
+     * <p>
+     * Registrations and lots are replayed first and everything else after
+     * them, each in log order. Events are logged after the change they record,
+     * so a buyer may note interest in a new lot before the lot reaches the
+     * log; replaying in two passes means that never matters.
+     */
+    public void replay(AuctionEvents handler) throws IOException {
+        replay(handler, 0);
+    }
+
+    /**
+     * Feed the events from position on, as replay(handler) does.
+     * @param from a value of position(), such as one saved with a snapshot
+     */
+    public void replay(AuctionEvents handler, long from) throws IOException {
+        if (from < 0 || from > validLength) {
+            throw new IOException("Position " + from + " is outside the " + validLength + " bytes of " + path);
+        }
+        replay(handler, from, true);
+        replay(handler, from, false);
+    }
+
+    private void replay(AuctionEvents handler, long from, boolean definitions) throws IOException {
+        long position = from;
+        try (DataInputStream in = open(channel)) {
+            in.skipNBytes(from);
+            while (position < validLength) {
+                int length = in.readInt();
+                in.readInt();
+                position += HEADER + length;
+                byte type = in.readByte();
+                boolean definition = type == BUYER || type == SELLER || type == LOT;
+                if (definition != definitions) {
+                    in.skipNBytes(length - 1);
+                    continue;
+                }
+                switch (type) {
+                case BUYER:
+                    handler.buyerRegistered(in.readInt(), readString(in), readString(in), readString(in), readString(in));
+                    break;
+                case SELLER:
+                    handler.sellerRegistered(readString(in), readString(in), readString(in));
+                    break;
+                case LOT: {
+                    int number = in.readInt();
+                    Money reserve = Money.ofPence(in.readLong());
+                    handler.lotAdded(readString(in), number, readString(in), reserve);
+                    break;
+                }
+                case INTEREST:
+                    handler.interestNoted(in.readInt(), in.readInt());
+                    break;
+                case OPENED: {
+                    int lot = in.readInt();
+                    handler.auctionOpened(readString(in), readString(in), lot);
+                    break;
+                }
+                case BID:
+                    handler.bidAccepted(in.readInt(), in.readInt(), Money.ofPence(in.readLong()));
+                    break;
+                case CLOSED:
+                    handler.auctionClosed(in.readInt(), STATUSES[in.readByte()]);
+                    break;
+                default:
+                    throw new IOException("Unknown event type " + type + " in " + path);
+                }
+            }
+        }
+    }
+}
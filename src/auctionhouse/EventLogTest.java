@@ -0,0 +1,187 @@
+/**
+ *
+ */
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that an AuctionHouseImp rebuilt from its EventLog behaves like the
+ * one that wrote it, and that nothing is sent or paid while rebuilding.
+ */
+public class EventLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path path;
+    private MockServices.RecordingMessagingService messagingService;
+    private MockServices.RecordingBankingService bankingService;
+
+    private static void assertOK(Status status) {
+        assertEquals(Status.Kind.OK, status.kind);
+    }
+
+    @Before
+    public void setup() throws IOException {
+        path = folder.getRoot().toPath().resolve("auctionhouse.log");
+        messagingService = new MockServices.RecordingMessagingService();
+        bankingService = new MockServices.RecordingBankingService();
+    }
+
+    private AuctionHouseImp open(EventLog log) throws IOException {
+        return new AuctionHouseImp(
+                MockServices.parameters(messagingService, bankingService),
+                log);
+    }
+
+    private void writeStory() throws IOException {
+        try (EventLog log = new EventLog(path)) {
+            AuctionHouse house = open(log);
+            assertOK(house.registerSeller("SellerY", "@SellerY", "SY A/C"));
+            assertOK(house.registerBuyer("BuyerA", "@BuyerA", "BA A/C", "BA-auth"));
+            assertOK(house.registerBuyer("BuyerB", "@BuyerB", "BB A/C", "BB-auth"));
+            assertOK(house.addLot("SellerY", 2, "Bicycle", new Money("80.00")));
+            assertOK(house.addLot("SellerY", 1, "Tea pot", new Money("5.00")));
+            assertOK(house.addLot("SellerY", 3, "Lamp", new Money("50.00")));
+            assertOK(house.noteInterest("BuyerA", 2));
+            assertOK(house.noteInterest("BuyerB", 2));
+            assertOK(house.noteInterest("BuyerA", 3));
+            assertOK(house.openAuction("Auctioneer1", "@Auctioneer1", 2));
+            assertOK(house.makeBid("BuyerA", 2, new Money("70.00")));
+            assertOK(house.makeBid("BuyerB", 2, new Money("90.00")));
+            assertOK(house.openAuction("Auctioneer1", "@Auctioneer1", 3));
+            assertOK(house.makeBid("BuyerA", 3, new Money("10.00")));
+            assertEquals(Status.Kind.NO_SALE, house.closeAuction("Auctioneer1", 3).kind);
+            log.sync();
+        }
+        messagingService.clear();
+        bankingService.clear();
+    }
+
+    @Test
+    public void testRecover() throws IOException {
+        writeStory();
+        try (EventLog log = new EventLog(path)) {
+            AuctionHouse house = open(log);
+            assertTrue(messagingService.messages().isEmpty());
+            assertTrue(bankingService.transfers().isEmpty());
+
+            List<CatalogueEntry> catalogue = house.viewCatalogue();
+            assertEquals(3, catalogue.size());
+            assertEquals(LotStatus.UNSOLD, catalogue.get(0).status);
+            assertEquals(LotStatus.IN_AUCTION, catalogue.get(1).status);
+            assertEquals(LotStatus.UNSOLD, catalogue.get(2).status);
+
+            // Registrations, interest and the highest bid all survive.
+            assertEquals(Status.Kind.ERROR, house.registerBuyer("BuyerA", "@A", "A", "A").kind);
+            assertEquals(Status.Kind.ERROR, house.makeBid("BuyerA", 2, new Money("90.50")).kind);
+            assertOK(house.makeBid("BuyerA", 2, new Money("95.00")));
+            assertEquals(Status.Kind.SALE, house.closeAuction("Auctioneer1", 2).kind);
+            assertEquals("BA A/C AH A/C 104.50", bankingService.transfers().get(0));
+            assertEquals("AH A/C SY A/C 80.75", bankingService.transfers().get(1));
+            assertTrue(messagingService.messages().contains("sold @BuyerB 2"));
+        }
+    }
+
+    @Test
+    public void testTornTailIsDropped() throws IOException {
+        writeStory();
+        long length;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            length = channel.size();
+            channel.write(ByteBuffer.wrap(new byte[] { 0, 0, 0, 40, 1, 2, 3 }), length);
+        }
+        try (EventLog log = new EventLog(path)) {
+            AuctionHouse house = open(log);
+            assertEquals(3, house.viewCatalogue().size());
+            assertOK(house.registerSeller("SellerZ", "@SellerZ", "SZ A/C"));
+            log.sync();
+        }
+        try (EventLog log = new EventLog(path)) {
+            AuctionHouse house = open(log);
+            assertEquals(Status.Kind.ERROR, house.registerSeller("SellerZ", "@SellerZ", "SZ A/C").kind);
+        }
+    }
+
+    @Test
+    public void testOversizedLotRefusedBeforeAdding() throws IOException {
+        String description = "x".repeat(1 << 20);
+        try (EventLog log = new EventLog(path, 4 << 20, 5, false)) {
+            AuctionHouse house = open(log);
+            assertOK(house.registerSeller("SellerY", "@SellerY", "SY A/C"));
+            assertEquals(Status.Kind.ERROR, house.addLot("SellerY", 1, description, new Money("5.00")).kind);
+            assertTrue(house.viewCatalogue().isEmpty());
+            assertOK(house.addLot("SellerY", 2, "Tea pot", new Money("5.00")));
+        }
+        try (EventLog log = new EventLog(path)) {
+            AuctionHouse house = open(log);
+            List<CatalogueEntry> catalogue = house.viewCatalogue();
+            assertEquals(1, catalogue.size());
+            assertEquals(2, catalogue.get(0).lotNumber);
+        }
+    }
+
+    @Test
+    public void testLostBuyerRecordLeavesIdEmpty() throws IOException {
+        // BuyerA's registration, logged after BuyerB's, was lost in a crash.
+        try (EventLog log = new EventLog(path)) {
+            log.sellerRegistered("SellerY", "@SellerY", "SY A/C");
+            log.buyerRegistered(1, "BuyerB", "@BuyerB", "BB A/C", "BB-auth");
+            log.lotAdded("SellerY", 1, "Tea pot", new Money("5.00"));
+            log.interestNoted(1, 1);
+        }
+        Path snapshot = folder.getRoot().toPath().resolve("auctionhouse.snapshot");
+        try (EventLog log = new EventLog(path)) {
+            AuctionHouseImp house = open(log);
+            assertOK(house.registerBuyer("BuyerA", "@BuyerA", "BA A/C", "BA-auth"));
+            assertOK(house.noteInterest("BuyerA", 1));
+            assertOK(house.openAuction("Auctioneer1", "@Auctioneer1", 1));
+            assertTrue(messagingService.messages().contains("opened @BuyerB 1"));
+            assertOK(house.makeBid("BuyerB", 1, new Money("10.00")));
+            house.snapshot(snapshot);
+            assertOK(house.makeBid("BuyerA", 1, new Money("11.00")));
+            log.sync();
+        }
+        try (EventLog log = new EventLog(path)) {
+            AuctionHouse house = new AuctionHouseImp(
+                    MockServices.parameters(messagingService, bankingService), snapshot, log);
+            assertEquals(Status.Kind.ERROR, house.registerBuyer("BuyerA", "@A", "A", "A").kind);
+            assertEquals(Status.Kind.SALE, house.closeAuction("Auctioneer1", 1).kind);
+            assertEquals("BA A/C AH A/C 12.10", bankingService.transfers().get(0));
+        }
+    }
+
+    @Test
+    public void testOversizedEventRefused() throws IOException {
+        String name = "x".repeat(1 << 20);
+        try (EventLog log = new EventLog(path, 4 << 20, 5, false)) {
+            log.sellerRegistered("SellerY", "@SellerY", "SY A/C");
+            try {
+                log.sellerRegistered(name, "@Big", "B A/C");
+                fail("An event larger than a record was accepted");
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+            log.sellerRegistered("SellerZ", "@SellerZ", "SZ A/C");
+        }
+        try (EventLog log = new EventLog(path)) {
+            AuctionHouse house = open(log);
+            assertEquals(Status.Kind.ERROR, house.registerSeller("SellerZ", "@SellerZ", "SZ A/C").kind);
+        }
+    }
+}
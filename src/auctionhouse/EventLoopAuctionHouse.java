@@ -0,0 +1,204 @@
+package auctionhouse;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A ShardedAuctionHouse in which each shard is run by one thread of its own.
+ * <p>
+ * Every call about a lot becomes a command on the queue of the lot's shard,
+ * and that shard's thread runs the commands one after another through the
+ * unchanged AuctionHouseImp logic. A shard's lots are therefore only ever
+ * touched by one thread, so its locks are never contended and its data stays
+ * in that core's caches. submit() returns a future of the command's Status;
+ * the AuctionHouse methods wait for it.
+ * <p>
+ * The queues are lock-free linked lists that many threads append to and only
+ * the shard thread takes from. The shard thread runs every command it finds
+ * before looking again, and parks only once its queue is empty, so a burst of
+ * commands costs at most one wake-up.
+ * <p>
+ * Registration and catalogue views are not queued: the registries are shared
+ * by all shards and catalogue views never lock, so they run on the caller's
+ * thread as in ShardedAuctionHouse.
+ * <p>
+ * Futures are completed on the shard thread, so anything chained to them
+ * with a non-async method also runs there and holds up the shard. Call
+ * close() to stop the threads once the commands already submitted have run.
+ */
+public class EventLoopAuctionHouse implements AuctionHouse, AutoCloseable {
+
+    private static Logger logger = Logger.getLogger("auctionhouse");
+
+    private static final int SPINS = 100;
+
+    /*
+     * A queued command, which is also the future of its result.
+     */
+    private static final class Command extends CompletableFuture<Status> {
+        final Function<AuctionHouse, Status> operation;
+        volatile Command next;
+
+        Command(Function<AuctionHouse, Status> operation) {
+            this.operation = operation;
+        }
+    }
+
+    private final class Loop implements Runnable {
+        // Producers swap themselves in as tail; only the loop moves head.
+        final AtomicReference<Command> tail;
+        final Command stop = new Command(null);
+        Command head;
+        volatile boolean parked;
+        Thread thread;
+
+        Loop() {
+            head = new Command(null);
+            tail = new AtomicReference<>(head);
+        }
+
+        /**
+         * @return false if the loop has been stopped
+         */
+        boolean offer(Command c) {
+            Command t;
+            do {
+                t = tail.get();
+                if (t == stop) {
+                    return false;
+                }
+            } while (!tail.compareAndSet(t, c));
+            t.next = c;
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+            return true;
+        }
+
+        public void run() {
+            int idle = 0;
+            while (true) {
+                Command c = head.next;
+                if (c == null) {
+                    if (head == tail.get() && ++idle > SPINS) {
+                        parked = true;
+                        // Recheck after announcing the park, so that an offer
+                        // either is seen here or sees parked and unparks us.
+                        if (head == tail.get()) {
+                            LockSupport.park(this);
+                        }
+                        parked = false;
+                        idle = 0;
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                    continue;
+                }
+                idle = 0;
+                head = c;
+                if (c == stop) {
+                    return;
+                }
+                try {
+                    c.complete(c.operation.apply(house));
+                } catch (Throwable e) {
+                    // Even an Error fails only this command: if it ended the
+                    // loop, every later command on the shard would wait forever.
+                    logger.log(Level.WARNING, "Auction house command failed", e);
+                    c.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private final ShardedAuctionHouse house;
+    private final Loop[] loops;
+
+    /**
+     * @param shardCount number of shards, each with its own thread
+     */
+    public EventLoopAuctionHouse(Parameters parameters, int shardCount) {
+        house = new ShardedAuctionHouse(parameters, shardCount);
+        loops = new Loop[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            Loop loop = new Loop();
+            loop.thread = new Thread(loop, "auctionhouse-shard-" + i);
+            loop.thread.setDaemon(true);
+            loops[i] = loop;
+            loop.thread.start();
+        }
+    }
+
+    /**
+     * Queue operation to run on the thread of lotNumber's shard.
+     * <p>
+     * The operation is given the whole house but must only touch lotNumber,
+     * or lots in its shard; other shards are run by other threads.
+     * @return the operation's Status, or an error if the house is closed
+     */
+    public CompletableFuture<Status> submit(int lotNumber, Function<AuctionHouse, Status> operation) {
+        Command c = new Command(operation);
+        if (!loops[house.shardOf(lotNumber)].offer(c)) {
+            c.complete(Status.error("Auction house is closed"));
+        }
+        return c;
+    }
+
+    public Status registerBuyer(String name, String address, String bankAccount, String bankAuthCode) {
+        return house.registerBuyer(name, address, bankAccount, bankAuthCode);
+    }
+
+    public Status registerSeller(String name, String address, String bankAccount) {
+        return house.registerSeller(name, address, bankAccount);
+    }
+
+    public Status addLot(String sellerName, int number, String description, Money reservePrice) {
+        return submit(number, h -> h.addLot(sellerName, number, description, reservePrice)).join();
+    }
+
+    public List<CatalogueEntry> viewCatalogue() {
+        return house.viewCatalogue();
+    }
+
+    public List<CatalogueEntry> viewCatalogue(LotStatus status, int fromLotNumber, int pageSize) {
+        return house.viewCatalogue(status, fromLotNumber, pageSize);
+    }
+
+    public Status noteInterest(String buyerName, int lotNumber) {
+        return submit(lotNumber, h -> h.noteInterest(buyerName, lotNumber)).join();
+    }
+
+    public Status openAuction(String auctioneerName, String auctioneerAddress, int lotNumber) {
+        return submit(lotNumber, h -> h.openAuction(auctioneerName, auctioneerAddress, lotNumber)).join();
+    }
+
+    public Status makeBid(String buyerName, int lotNumber, Money bid) {
+        return submit(lotNumber, h -> h.makeBid(buyerName, lotNumber, bid)).join();
+    }
+
+    public Status closeAuction(String auctioneerName, int lotNumber) {
+        return submit(lotNumber, h -> h.closeAuction(auctioneerName, lotNumber)).join();
+    }
+
+    /**
+     * Stop accepting commands and wait for the shard threads to run those
+     * already queued.
+     */
+    public void close() {
+        for (Loop loop : loops) {
+            loop.offer(loop.stop);
+        }
+        try {
+            for (Loop loop : loops) {
+                loop.thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
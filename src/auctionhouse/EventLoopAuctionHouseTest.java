@@ -0,0 +1,124 @@
+/**
+ *
+ */
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventLoopAuctionHouseTest {
+
+    private static final int LOTS = 64;
+    private static final int THREADS = 4;
+    private static final int BIDS_PER_THREAD = 200;
+
+    private EventLoopAuctionHouse house;
+
+    @Before
+    public void setup() {
+        house = new EventLoopAuctionHouse(
+                MockServices.parameters(MockServices.SILENT, new MockBankingService()),
+                4);
+        assertOK(house.registerSeller("SellerY", "@SellerY", "SY A/C"));
+        for (int t = 0; t < THREADS; t++) {
+            assertOK(house.registerBuyer("Buyer" + t, "@Buyer" + t, "B" + t + " A/C", "B" + t + "-auth"));
+        }
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        house.close();
+    }
+
+    private static void assertOK(Status status) {
+        assertEquals(Status.Kind.OK, status.kind);
+    }
+
+    @Test
+    public void testCommandsRunOnShardThread() {
+        assertOK(house.addLot("SellerY", 5, "Vase", new Money("10.00")));
+        Thread caller = Thread.currentThread();
+        List<Thread> runners = new ArrayList<>();
+        CompletableFuture<Status> status = house.submit(5, h -> {
+            runners.add(Thread.currentThread());
+            return h.noteInterest("Buyer0", 5);
+        });
+        assertOK(status.join());
+        assertNotEquals(caller, runners.get(0));
+
+        house.submit(9, h -> {
+            runners.add(Thread.currentThread());
+            return Status.OK();
+        }).join();
+        // 5 and 9 are in the same one of four shards.
+        assertSame(runners.get(0), runners.get(1));
+    }
+
+    @Test
+    public void testConcurrentBids() throws InterruptedException {
+        for (int lot = 0; lot < LOTS; lot++) {
+            assertOK(house.addLot("SellerY", lot, "Lot " + lot, new Money("1.00")));
+            for (int t = 0; t < THREADS; t++) {
+                assertOK(house.noteInterest("Buyer" + t, lot));
+            }
+            assertOK(house.openAuction("Auctioneer", "@Auctioneer", lot));
+        }
+        AtomicInteger accepted = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String buyer = "Buyer" + t;
+            Thread thread = new Thread(() -> {
+                for (int i = 1; i <= BIDS_PER_THREAD; i++) {
+                    Money bid = Money.ofPence(100L * i);
+                    if (house.makeBid(buyer, i % LOTS, bid).kind == Status.Kind.OK) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // Every bid on a lot is one increment above the previous round's, so
+        // exactly one thread wins each round.
+        assertEquals(BIDS_PER_THREAD, accepted.get());
+        assertEquals(LOTS, house.viewCatalogue(LotStatus.IN_AUCTION, 0, 100).size());
+    }
+
+    @Test
+    public void testErrorFailsOnlyItsCommand() {
+        CompletableFuture<Status> failed = house.submit(1, h -> {
+            throw new StackOverflowError();
+        });
+        try {
+            failed.join();
+            fail("The command's Error was not passed on");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof StackOverflowError);
+        }
+        assertOK(house.addLot("SellerY", 1, "Lot", new Money("1.00")));
+    }
+
+    @Test
+    public void testClosedHouseRejectsCommands() throws InterruptedException {
+        CompletableFuture<Status> queued = house.submit(1, h -> h.addLot("SellerY", 1, "Lot", new Money("1.00")));
+        house.close();
+        assertOK(queued.join());
+        assertEquals(Status.Kind.ERROR, house.makeBid("Buyer0", 1, new Money("2.00")).kind);
+    }
+}
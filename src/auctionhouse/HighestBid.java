@@ -0,0 +1,46 @@
+package auctionhouse;
+
+/**
+ * Immutable snapshot of the bidding state of one lot.
+ * <p>
+ * The highest bid, the ID of the buyer who made it and whether the lot is
+ * currently accepting bids are kept together so that they can be replaced
+ * in a single compare-and-swap by BidEngine, along with the bid's position
+ * in the BidHistory, which links it to the lot's earlier bids, and its
+ * sequence, which puts its announcement after theirs.
+ */
+public final class HighestBid {
+
+    public static final HighestBid NONE = new HighestBid(Money.ofPence(0), -1, false);
+    private static final HighestBid NONE_OPEN = new HighestBid(Money.ofPence(0), -1, true);
+
+    public final Money amount;
+    // Registry ID of the bidder, or -1 if there has been no bid.
+    public final int bidder;
+    public final boolean open;
+    // BidHistory position of the bid, or -1 if it is not in the history.
+    public final int history;
+    // Number of bids swapped in on the lot since the house started, this one
+    // included.
+    public final int sequence;
+
+    public HighestBid(Money amount, int bidder, boolean open) {
+        this(amount, bidder, open, -1, 0);
+    }
+
+    public HighestBid(Money amount, int bidder, boolean open, int history, int sequence) {
+        this.amount = amount;
+        this.bidder = bidder;
+        this.open = open;
+        this.history = history;
+        this.sequence = sequence;
+    }
+
+    public HighestBid opened() {
+        return bidder < 0 ? NONE_OPEN : new HighestBid(amount, bidder, true, history, sequence);
+    }
+
+    public HighestBid closed() {
+        return bidder < 0 ? NONE : new HighestBid(amount, bidder, false, history, sequence);
+    }
+}
@@ -0,0 +1,19 @@
+package auctionhouse;
+
+/**
+ * A BankingService that can be told which transfers are repeats.
+ * <p>
+ * A transfer made again with the key of one that already went through must
+ * not move money a second time; it just returns OK. Retrying with the same
+ * key is therefore safe even when it is unknown whether the first attempt
+ * reached the bank.
+ */
+public interface IdempotentBankingService extends BankingService {
+
+    Status transfer(
+            String idempotencyKey,
+            String senderAccount,
+            String senderAuthCode,
+            String receiverAccount,
+            Money amount);
+}
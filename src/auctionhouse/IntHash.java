@@ -0,0 +1,25 @@
+package auctionhouse;
+
+/**
+ * Home slots of int keys in the open-addressing tables of LotStore,
+ * InterestSet and BuyerActivity.
+ * <p>
+ * Fibonacci hashing: the key is multiplied by 2^32 / phi and the table
+ * takes the top bits of the product, as many as it needs. Every bit of the
+ * key reaches those top bits, so consecutive keys spread evenly over tables
+ * of any size up to 2^31 slots.
+ */
+final class IntHash {
+
+    private IntHash() {
+    }
+
+    /**
+     * @param mask table length - 1, the length being a power of two
+     * @return key's home slot, from 0 to mask
+     */
+    static int index(int key, int mask) {
+        // A shift by 32, for a table of one slot, shifts nothing; the mask still applies.
+        return (key * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(mask) & mask;
+    }
+}
@@ -0,0 +1,83 @@
+package auctionhouse;
+
+import java.util.Arrays;
+
+/**
+ * The buyers interested in one lot, as Registry IDs.
+ * <p>
+ * Members are kept once each, in the order they first noted interest. An
+ * open-addressing hash table answers contains() in O(1), and a plain int
+ * array holds the members for fan-out. Readers never lock: arrays only ever
+ * grow, and each is published through a volatile field before anyone is
+ * told about the slots it holds.
+ */
+public class InterestSet {
+
+    private static final int EMPTY = 0;
+
+    private volatile int[] members = new int[4];
+    private volatile int size;
+    // Slots hold id + 1 so that 0 can mark an empty slot.
+    private volatile int[] table = new int[8];
+
+    /**
+     * Add a buyer if not already present.
+     * @return true if the buyer was added
+     */
+    public synchronized boolean add(int id) {
+        if (contains(id)) {
+            return false;
+        }
+        int n = size;
+        if ((n + 1) * 2 > table.length) {
+            int[] bigger = new int[table.length * 2];
+            for (int i = 0; i < n; i++) {
+                insert(bigger, members[i]);
+            }
+            table = bigger;
+        }
+        insert(table, id);
+        if (n == members.length) {
+            members = Arrays.copyOf(members, n * 2);
+        }
+        members[n] = id;
+        size = n + 1;
+        return true;
+    }
+
+    private static void insert(int[] t, int id) {
+        int mask = t.length - 1;
+        int i = IntHash.index(id, mask);
+        while (t[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        t[i] = id + 1;
+    }
+
+    public boolean contains(int id) {
+        int[] t = table;
+        int mask = t.length - 1;
+        int i = IntHash.index(id, mask);
+        int key = id + 1;
+        int s;
+        while ((s = t[i]) != EMPTY) {
+            if (s == key) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of members; get(i) is valid for every i below it
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the i'th member in order of noting interest
+     */
+    public int get(int i) {
+        return members[i];
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ *
+ */
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class InterestSetTest {
+
+    @Test
+    public void testAddIgnoresDuplicates() {
+        InterestSet set = new InterestSet();
+        assertTrue(set.add(7));
+        assertTrue(set.add(3));
+        assertFalse(set.add(7));
+        assertEquals(2, set.size());
+        assertEquals(7, set.get(0));
+        assertEquals(3, set.get(1));
+    }
+
+    @Test
+    public void testContains() {
+        InterestSet set = new InterestSet();
+        assertFalse(set.contains(0));
+        set.add(0);
+        assertTrue(set.contains(0));
+        assertFalse(set.contains(1));
+    }
+
+    @Test
+    public void testKeepsOrderWhileGrowing() {
+        InterestSet set = new InterestSet();
+        for (int id = 99999; id >= 0; id -= 3) {
+            set.add(id);
+        }
+        for (int id = 99999; id >= 0; id -= 3) {
+            assertFalse(set.add(id));
+        }
+        assertEquals(33334, set.size());
+        for (int i = 0; i < set.size(); i++) {
+            assertEquals(99999 - 3 * i, set.get(i));
+            assertTrue(set.contains(99999 - 3 * i));
+        }
+        assertFalse(set.contains(99998));
+    }
+}
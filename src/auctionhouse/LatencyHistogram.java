@@ -0,0 +1,116 @@
+package auctionhouse;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations in nanoseconds, in the manner of HdrHistogram.
+ * <p>
+ * Each power of two is split into 16 linear buckets, so a value is placed
+ * to within 1/16 of itself whatever its size, and 592 buckets cover
+ * everything up to about 18 minutes; longer durations count as that. Each
+ * bucket is a LongAdder, so threads recording at once update separate
+ * cells rather than contending for one counter. Recording allocates
+ * nothing and takes no lock.
+ * <p>
+ * Readers sum the buckets while they may still be changing, so a
+ * percentile read during recording is close but not exact.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final long LARGEST = (1L << 40) - 1;
+    private static final int BUCKETS = index(LARGEST) + 1;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /*
+     * Values below 16 have a bucket each; above that, the top five bits of
+     * a value pick its bucket within the range of its highest bit.
+     */
+    private static int index(long nanos) {
+        if (nanos < SUB) {
+            return (int) nanos;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BITS;
+        return shift * SUB + (int) (nanos >>> shift);
+    }
+
+    /**
+     * @return the largest value that falls in bucket i
+     */
+    private static long highest(int i) {
+        if (i < 2 * SUB) {
+            return i;
+        }
+        int shift = i / SUB - 1;
+        long lowest = (long) (i % SUB + SUB) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    public void record(long nanos) {
+        long v = Math.min(Math.max(nanos, 0), LARGEST);
+        buckets[index(v)].increment();
+        total.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * @return the number of values recorded
+     */
+    public long count() {
+        long count = 0;
+        for (LongAdder b : buckets) {
+            count += b.sum();
+        }
+        return count;
+    }
+
+    public long mean() {
+        long count = count();
+        return count == 0 ? 0 : total.sum() / count;
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * @param percentiles each from 0 to 100
+     * @return for each percentile, the value that many percent of the
+     *         recorded values are no greater than, to within 1/16; 0 if
+     *         nothing has been recorded
+     */
+    public long[] percentiles(double... percentiles) {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        long[] values = new long[percentiles.length];
+        if (count == 0) {
+            return values;
+        }
+        for (int p = 0; p < percentiles.length; p++) {
+            long rank = Math.max(1, (long) Math.ceil(percentiles[p] / 100 * count));
+            long seen = 0;
+            int i = 0;
+            while (i < BUCKETS - 1 && (seen += counts[i]) < rank) {
+                i++;
+            }
+            // A bucket's upper bound may exceed anything actually recorded.
+            values[p] = Math.min(highest(i), max());
+        }
+        return values;
+    }
+}
@@ -1,23 +1,34 @@
 package auctionhouse;
-import java.util.ArrayList;
 
+/**
+ * Read-only copy of one lot as held in a LotStore, made by LotStore.lot().
+ */
 public class Lot {
 	
-	public String sellerName;
-    public int number;
-    public String description;
-    public Money reservePrice;
-    public ArrayList<String> interestedBuyers = new ArrayList<>();
-    public String auctioneerName;
-    public Money currentHighestBid;
-    public String currentHighestBidder;
+    public final int number;
+    public final int sellerId;
+    public final String description;
+    public final Money reservePrice;
+    // -1 until the lot is first put up for auction.
+    public final int auctioneerId;
+    public final LotStatus status;
+    public final HighestBid highestBid;
     
-    public Lot(String sellerName, int number, String description, Money reservePrice) {
-    	this.sellerName = sellerName;
+    public Lot(
+            int number,
+            int sellerId,
+            String description,
+            Money reservePrice,
+            int auctioneerId,
+            LotStatus status,
+            HighestBid highestBid) {
     	this.number = number;
+    	this.sellerId = sellerId;
     	this.description = description;
     	this.reservePrice = reservePrice;
-    	currentHighestBid = new Money("0");
+    	this.auctioneerId = auctioneerId;
+    	this.status = status;
+    	this.highestBid = highestBid;
     }
     
 }
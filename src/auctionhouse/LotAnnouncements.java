@@ -0,0 +1,72 @@
+package auctionhouse;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjIntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Announces the bids accepted on one lot in the order they were accepted,
+ * without bidders ever waiting for each other.
+ * <p>
+ * BidEngine numbers each HighestBid one after the one it replaced, but the
+ * threads that swapped them in then race to announce them. Each thread
+ * hands its bid over here instead. Whichever thread finds nobody announcing
+ * announces every bid that is next in sequence, including those handed
+ * over meanwhile, and leaves any that arrive ahead of a gap to be announced
+ * as soon as the bid that fills it is handed over. Only one thread
+ * announces for the lot at a time, and no thread waits for it to finish.
+ */
+final class LotAnnouncements {
+
+    private static Logger logger = Logger.getLogger("auctionhouse");
+
+    private static final class Pending {
+        final HighestBid bid;
+        final int known;
+
+        Pending(HighestBid bid, int known) {
+            this.bid = bid;
+            this.known = known;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Pending> handedOver = new ConcurrentLinkedQueue<>();
+    // Hand-overs not yet dealt with; whoever raises it from 0 keeps
+    // announcing until it is back to 0.
+    private final AtomicInteger waiting = new AtomicInteger();
+    // Only touched by the announcing thread.
+    private final PriorityQueue<Pending> early =
+            new PriorityQueue<>(Comparator.comparingInt((Pending p) -> p.bid.sequence));
+    private int announced;
+
+    /**
+     * Have send(bid, known) called once every earlier bid on the lot has
+     * been sent, either now on this thread or later on another.
+     */
+    void announce(HighestBid bid, int known, ObjIntConsumer<HighestBid> send) {
+        handedOver.offer(new Pending(bid, known));
+        if (waiting.getAndIncrement() != 0) {
+            return;
+        }
+        int taken = 1;
+        do {
+            for (Pending p; (p = handedOver.poll()) != null; ) {
+                early.add(p);
+            }
+            while (!early.isEmpty() && early.peek().bid.sequence == announced + 1) {
+                Pending next = early.poll();
+                announced++;
+                try {
+                    send.accept(next.bid, next.known);
+                } catch (RuntimeException e) {
+                    logger.log(Level.WARNING, "Announcing bid failed", e);
+                }
+            }
+            taken = waiting.addAndGet(-taken);
+        } while (taken != 0);
+    }
+}
@@ -0,0 +1,333 @@
+package auctionhouse;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * All lots, held column by column in primitive arrays rather than as one
+ * object per lot.
+ * <p>
+ * Each lot gets a slot when added, and every column has one element per
+ * slot: lot number, seller ID, reserve in pence, a reference to the
+ * description in a shared StringArena, auctioneer ID and status. Columns are
+ * split into fixed-size chunks that never move, so growing the store never
+ * copies or loses a write. A lot costs around 50 bytes plus its description
+ * until it is bid on or someone notes interest in it.
+ * <p>
+ * The highest bid stays an immutable HighestBid swapped by compare-and-set,
+ * so that bids remain lock-free; lots without a bid share one instance. Sets
+ * of interested buyers and of proxy bids are only created for lots that
+ * have some, and the queue of bids to announce for lots that are bid on.
+ * <p>
+ * Re-adding a lot number gives it a fresh slot and leaves the old one
+ * unreachable, so that a slot's number and description never change. Lot
+ * objects are read-only copies made on request.
+ */
+public class LotStore {
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    private static final int STRIPES = 1024;
+    private static final LotStatus[] STATUSES = LotStatus.values();
+
+    private static final class Chunk {
+        final int[] number = new int[CHUNK];
+        final int[] seller = new int[CHUNK];
+        final long[] reserve = new long[CHUNK];
+        final long[] description = new long[CHUNK];
+        final int[] auctioneer = new int[CHUNK];
+        final byte[] status = new byte[CHUNK];
+        final AtomicReferenceArray<HighestBid> highest = new AtomicReferenceArray<>(CHUNK);
+        final AtomicReferenceArray<InterestSet> interest = new AtomicReferenceArray<>(CHUNK);
+        final AtomicReferenceArray<ProxySet> proxies = new AtomicReferenceArray<>(CHUNK);
+        final AtomicReferenceArray<LotAnnouncements> announcements = new AtomicReferenceArray<>(CHUNK);
+    }
+
+    private volatile Chunk[] chunks = new Chunk[16];
+    private volatile int count;
+    private int size;
+    private final StringArena descriptions = new StringArena();
+    private final NumberIndex index = new NumberIndex();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public LotStore() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    private Chunk chunk(int slot) {
+        return chunks[slot >>> CHUNK_BITS];
+    }
+
+    private static int at(int slot) {
+        return slot & (CHUNK - 1);
+    }
+
+    /**
+     * Add a lot as UNSOLD, replacing any lot with the same number.
+     * @return the lot's slot
+     */
+    public synchronized int add(int number, int sellerId, String description, long reservePence) {
+        int slot = size;
+        Chunk[] c = chunks;
+        int chunkIndex = slot >>> CHUNK_BITS;
+        if (chunkIndex == c.length) {
+            c = Arrays.copyOf(c, chunkIndex * 2);
+        }
+        if (c[chunkIndex] == null) {
+            c[chunkIndex] = new Chunk();
+            chunks = c;
+        }
+        Chunk k = c[chunkIndex];
+        int i = at(slot);
+        k.number[i] = number;
+        k.seller[i] = sellerId;
+        k.reserve[i] = reservePence;
+        k.description[i] = descriptions.add(description);
+        k.auctioneer[i] = -1;
+        k.status[i] = (byte) LotStatus.UNSOLD.ordinal();
+        k.highest.set(i, HighestBid.NONE);
+        size = slot + 1;
+        if (index.put(number, slot)) {
+            count++;
+        }
+        return slot;
+    }
+
+    /**
+     * @return the slot of the lot, or -1 if there is no such lot
+     */
+    public int slot(int number) {
+        return index.get(number);
+    }
+
+    /**
+     * @return the number of lots
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @return the number of slots handed out, including replaced lots
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return whether slot still holds its lot, rather than one since replaced
+     */
+    public boolean isCurrent(int slot) {
+        return index.get(number(slot)) == slot;
+    }
+
+    public int number(int slot) {
+        return chunk(slot).number[at(slot)];
+    }
+
+    public int sellerId(int slot) {
+        return chunk(slot).seller[at(slot)];
+    }
+
+    public long reservePence(int slot) {
+        return chunk(slot).reserve[at(slot)];
+    }
+
+    public String description(int slot) {
+        return descriptions.get(chunk(slot).description[at(slot)]);
+    }
+
+    /**
+     * @return the ID of the auctioneer who last opened the lot, or -1
+     */
+    public int auctioneerId(int slot) {
+        return chunk(slot).auctioneer[at(slot)];
+    }
+
+    /**
+     * Callers must hold the lot's lock.
+     */
+    public void setAuctioneerId(int slot, int auctioneerId) {
+        chunk(slot).auctioneer[at(slot)] = auctioneerId;
+    }
+
+    public LotStatus status(int slot) {
+        return STATUSES[chunk(slot).status[at(slot)]];
+    }
+
+    /**
+     * Callers must hold the lot's lock; Catalogue.setStatus also keeps its
+     * indexes up to date.
+     */
+    void setStatus(int slot, LotStatus status) {
+        chunk(slot).status[at(slot)] = (byte) status.ordinal();
+    }
+
+    /**
+     * Guards opening and closing of the auction; bids do not take it. Lots
+     * share a fixed set of locks, so two lots may have the same one.
+     */
+    public ReentrantLock lock(int slot) {
+        return locks[slot & (STRIPES - 1)];
+    }
+
+    public HighestBid highestBid(int slot) {
+        return chunk(slot).highest.get(at(slot));
+    }
+
+    public boolean compareAndSetHighestBid(int slot, HighestBid expected, HighestBid bid) {
+        return chunk(slot).highest.compareAndSet(at(slot), expected, bid);
+    }
+
+    public HighestBid updateHighestBid(int slot, UnaryOperator<HighestBid> update) {
+        return chunk(slot).highest.updateAndGet(at(slot), update);
+    }
+
+    /**
+     * @return the buyers interested in the lot, or null if there are none
+     */
+    public InterestSet interested(int slot) {
+        return chunk(slot).interest.get(at(slot));
+    }
+
+    /**
+     * @return the buyers interested in the lot, creating the set if needed
+     */
+    public InterestSet interestedOrCreate(int slot) {
+        AtomicReferenceArray<InterestSet> interest = chunk(slot).interest;
+        int i = at(slot);
+        InterestSet set = interest.get(i);
+        if (set == null) {
+            interest.compareAndSet(i, null, new InterestSet());
+            set = interest.get(i);
+        }
+        return set;
+    }
+
+    /**
+     * @return the proxy bids on the lot, or null if there have been none
+     */
+    public ProxySet proxies(int slot) {
+        return chunk(slot).proxies.get(at(slot));
+    }
+
+    /**
+     * @return the proxy bids on the lot, creating the set if needed
+     */
+    public ProxySet proxiesOrCreate(int slot) {
+        AtomicReferenceArray<ProxySet> proxies = chunk(slot).proxies;
+        int i = at(slot);
+        ProxySet set = proxies.get(i);
+        if (set == null) {
+            proxies.compareAndSet(i, null, new ProxySet());
+            set = proxies.get(i);
+        }
+        return set;
+    }
+
+    /**
+     * @return the lot's queue of bids to announce, creating it if needed
+     */
+    LotAnnouncements announcements(int slot) {
+        AtomicReferenceArray<LotAnnouncements> announcements = chunk(slot).announcements;
+        int i = at(slot);
+        LotAnnouncements queue = announcements.get(i);
+        if (queue == null) {
+            announcements.compareAndSet(i, null, new LotAnnouncements());
+            queue = announcements.get(i);
+        }
+        return queue;
+    }
+
+    /**
+     * @return a copy of the lot's current state, or null if there is no such lot
+     */
+    public Lot lot(int number) {
+        int slot = slot(number);
+        if (slot < 0) {
+            return null;
+        }
+        return new Lot(
+                number,
+                sellerId(slot),
+                description(slot),
+                Money.ofPence(reservePence(slot)),
+                auctioneerId(slot),
+                status(slot),
+                highestBid(slot));
+    }
+
+    /*
+     * Lot number to slot, as an open-addressing table of longs holding the
+     * number in the high half and slot + 1 in the low half, 0 meaning empty.
+     * Changes are serialised by LotStore.add; get() never locks.
+     */
+    private static final class NumberIndex {
+        private static final VarHandle ENTRY = MethodHandles.arrayElementVarHandle(long[].class);
+
+        private volatile long[] table = new long[64];
+        private int used;
+
+        private static long entry(int key, int slot) {
+            return (long) key << 32 | (slot + 1) & 0xFFFFFFFFL;
+        }
+
+        int get(int key) {
+            long[] t = table;
+            int mask = t.length - 1;
+            int i = IntHash.index(key, mask);
+            long e;
+            while ((e = (long) ENTRY.getAcquire(t, i)) != 0) {
+                if ((int) (e >>> 32) == key) {
+                    return (int) e - 1;
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * @return true if key was not already present
+         */
+        boolean put(int key, int slot) {
+            long[] t = table;
+            if ((used + 1) * 2 > t.length) {
+                long[] bigger = new long[t.length * 2];
+                for (long e : t) {
+                    if (e != 0) {
+                        insert(bigger, e);
+                    }
+                }
+                table = t = bigger;
+            }
+            int mask = t.length - 1;
+            int i = IntHash.index(key, mask);
+            long e;
+            while ((e = t[i]) != 0) {
+                if ((int) (e >>> 32) == key) {
+                    ENTRY.setRelease(t, i, entry(key, slot));
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            ENTRY.setRelease(t, i, entry(key, slot));
+            used++;
+            return true;
+        }
+
+        private static void insert(long[] t, long e) {
+            int mask = t.length - 1;
+            int i = IntHash.index((int) (e >>> 32), mask);
+            while (t[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            t[i] = e;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ *
+ */
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class LotStoreTest {
+
+    @Test
+    public void testAddAndLookUp() {
+        LotStore lots = new LotStore();
+        int slot = lots.add(42, 3, "Vase", 1250);
+        assertEquals(slot, lots.slot(42));
+        assertEquals(-1, lots.slot(43));
+        assertEquals(42, lots.number(slot));
+        assertEquals(3, lots.sellerId(slot));
+        assertEquals("Vase", lots.description(slot));
+        assertEquals(1250, lots.reservePence(slot));
+        assertEquals(-1, lots.auctioneerId(slot));
+        assertEquals(LotStatus.UNSOLD, lots.status(slot));
+        assertEquals(HighestBid.NONE, lots.highestBid(slot));
+        assertNull(lots.interested(slot));
+        assertEquals(1, lots.count());
+    }
+
+    @Test
+    public void testManyLotsAcrossChunks() {
+        LotStore lots = new LotStore();
+        for (int n = 0; n < 20000; n++) {
+            lots.add(-n * 7, n % 10, "Lot " + n, n);
+        }
+        assertEquals(20000, lots.count());
+        for (int n = 0; n < 20000; n++) {
+            int slot = lots.slot(-n * 7);
+            assertEquals(-n * 7, lots.number(slot));
+            assertEquals("Lot " + n, lots.description(slot));
+            assertEquals(n, lots.reservePence(slot));
+        }
+    }
+
+    @Test
+    public void testReAddGivesFreshSlot() {
+        LotStore lots = new LotStore();
+        int first = lots.add(1, 0, "Old", 100);
+        lots.interestedOrCreate(first).add(5);
+        int second = lots.add(1, 1, "New", 200);
+        assertEquals(second, lots.slot(1));
+        assertFalse(lots.isCurrent(first));
+        assertTrue(lots.isCurrent(second));
+        assertEquals("Old", lots.description(first));
+        assertNull(lots.interested(second));
+        assertEquals(1, lots.count());
+        assertEquals(2, lots.size());
+    }
+
+    @Test
+    public void testLotView() {
+        LotStore lots = new LotStore();
+        int slot = lots.add(7, 2, "Clock", 5000);
+        lots.setAuctioneerId(slot, 4);
+        lots.updateHighestBid(slot, none -> new HighestBid(new Money("60.00"), 9, true));
+        Lot lot = lots.lot(7);
+        assertEquals(7, lot.number);
+        assertEquals(2, lot.sellerId);
+        assertEquals("Clock", lot.description);
+        assertEquals(new Money("50.00"), lot.reservePrice);
+        assertEquals(4, lot.auctioneerId);
+        assertEquals(9, lot.highestBid.bidder);
+        assertNull(lots.lot(8));
+    }
+
+    @Test
+    public void testDescriptions() {
+        StringArena arena = new StringArena();
+        StringBuilder big = new StringBuilder();
+        for (int i = 0; i < 300000; i++) {
+            big.append("abcd");
+        }
+        long small = arena.add("Théière ☕");
+        long large = arena.add(big.toString());
+        long empty = arena.add("");
+        assertEquals("Théière ☕", arena.get(small));
+        assertEquals(big.toString(), arena.get(large));
+        assertEquals("", arena.get(empty));
+    }
+
+    @Test
+    public void testCatalogueSkipsReplacedStatus() {
+        LotStore lots = new LotStore();
+        Catalogue catalogue = new Catalogue(lots);
+        int slot = catalogue.add(2, 0, "Bicycle", 100);
+        catalogue.add(1, 0, "Tea pot", 100);
+        catalogue.setStatus(slot, LotStatus.IN_AUCTION);
+        catalogue.add(2, 0, "Tricycle", 100);
+
+        List<CatalogueEntry> view = catalogue.view();
+        assertEquals(2, view.size());
+        assertEquals(new CatalogueEntry(1, "Tea pot", LotStatus.UNSOLD), view.get(0));
+        assertEquals(new CatalogueEntry(2, "Tricycle", LotStatus.UNSOLD), view.get(1));
+        assertTrue(catalogue.page(LotStatus.IN_AUCTION, 0, 10).isEmpty());
+        assertEquals(2, catalogue.page(LotStatus.UNSOLD, 0, 10).size());
+    }
+
+    @Test
+    public void testHashUsesWholeOfLargeTables() {
+        int mask = (1 << 28) - 1;
+        boolean high = false;
+        for (int key = 0; key < 1000; key++) {
+            int i = IntHash.index(key, mask);
+            assertTrue(i >= 0 && i <= mask);
+            high |= i >= 1 << 25;
+        }
+        assertTrue(high);
+        assertEquals(0, IntHash.index(12345, 0));
+    }
+}
@@ -0,0 +1,104 @@
+package auctionhouse;
+
+import java.util.List;
+
+/**
+ * AuctionHouse that times every call it passes to another and counts the
+ * outcomes, in a Metrics.
+ * <p>
+ * Given an AuctionHouseImp or ShardedAuctionHouse, it also adds gauges of
+ * the lots with each status; for any other house, call Metrics.lotGauges
+ * directly.
+ */
+public class MeteredAuctionHouse implements AuctionHouse {
+
+    private final AuctionHouse house;
+    private final Metrics.Operation registerBuyer;
+    private final Metrics.Operation registerSeller;
+    private final Metrics.Operation addLot;
+    private final Metrics.Operation viewCatalogue;
+    private final Metrics.Operation noteInterest;
+    private final Metrics.Operation openAuction;
+    private final Metrics.Operation makeBid;
+    private final Metrics.Operation closeAuction;
+
+    public MeteredAuctionHouse(AuctionHouse house, Metrics metrics) {
+        this.house = house;
+        registerBuyer = metrics.operation("registerBuyer");
+        registerSeller = metrics.operation("registerSeller");
+        addLot = metrics.operation("addLot");
+        viewCatalogue = metrics.timer("viewCatalogue");
+        noteInterest = metrics.operation("noteInterest");
+        openAuction = metrics.operation("openAuction");
+        makeBid = metrics.operation("makeBid");
+        closeAuction = metrics.operation("closeAuction");
+        if (house instanceof AuctionHouseImp) {
+            metrics.lotGauges(((AuctionHouseImp) house)::lotCount);
+        } else if (house instanceof ShardedAuctionHouse) {
+            metrics.lotGauges(((ShardedAuctionHouse) house)::lotCount);
+        }
+    }
+
+    public Status registerBuyer(String name, String address, String bankAccount, String bankAuthCode) {
+        long start = System.nanoTime();
+        Status status = house.registerBuyer(name, address, bankAccount, bankAuthCode);
+        registerBuyer.record(start, status);
+        return status;
+    }
+
+    public Status registerSeller(String name, String address, String bankAccount) {
+        long start = System.nanoTime();
+        Status status = house.registerSeller(name, address, bankAccount);
+        registerSeller.record(start, status);
+        return status;
+    }
+
+    public Status addLot(String sellerName, int number, String description, Money reservePrice) {
+        long start = System.nanoTime();
+        Status status = house.addLot(sellerName, number, description, reservePrice);
+        addLot.record(start, status);
+        return status;
+    }
+
+    public List<CatalogueEntry> viewCatalogue() {
+        long start = System.nanoTime();
+        List<CatalogueEntry> view = house.viewCatalogue();
+        viewCatalogue.record(start);
+        return view;
+    }
+
+    public List<CatalogueEntry> viewCatalogue(LotStatus status, int fromLotNumber, int pageSize) {
+        long start = System.nanoTime();
+        List<CatalogueEntry> page = house.viewCatalogue(status, fromLotNumber, pageSize);
+        viewCatalogue.record(start);
+        return page;
+    }
+
+    public Status noteInterest(String buyerName, int lotNumber) {
+        long start = System.nanoTime();
+        Status status = house.noteInterest(buyerName, lotNumber);
+        noteInterest.record(start, status);
+        return status;
+    }
+
+    public Status openAuction(String auctioneerName, String auctioneerAddress, int lotNumber) {
+        long start = System.nanoTime();
+        Status status = house.openAuction(auctioneerName, auctioneerAddress, lotNumber);
+        openAuction.record(start, status);
+        return status;
+    }
+
+    public Status makeBid(String buyerName, int lotNumber, Money bid) {
+        long start = System.nanoTime();
+        Status status = house.makeBid(buyerName, lotNumber, bid);
+        makeBid.record(start, status);
+        return status;
+    }
+
+    public Status closeAuction(String auctioneerName, int lotNumber) {
+        long start = System.nanoTime();
+        Status status = house.closeAuction(auctioneerName, lotNumber);
+        closeAuction.record(start, status);
+        return status;
+    }
+}
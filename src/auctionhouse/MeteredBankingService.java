@@ -0,0 +1,23 @@
+package auctionhouse;
+
+/**
+ * BankingService that times every transfer it passes to another and counts
+ * the outcomes, as the operation "bank.transfer" in a Metrics.
+ */
+public class MeteredBankingService implements BankingService {
+
+    private final BankingService bank;
+    private final Metrics.Operation transfer;
+
+    public MeteredBankingService(BankingService bank, Metrics metrics) {
+        this.bank = bank;
+        transfer = metrics.operation("bank.transfer");
+    }
+
+    public Status transfer(String senderAccount, String senderAuthCode, String receiverAccount, Money amount) {
+        long start = System.nanoTime();
+        Status status = bank.transfer(senderAccount, senderAuthCode, receiverAccount, amount);
+        transfer.record(start, status);
+        return status;
+    }
+}
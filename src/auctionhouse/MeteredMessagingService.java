@@ -0,0 +1,54 @@
+package auctionhouse;
+
+/**
+ * MessagingService that times every message it passes to another, as the
+ * operations "messages.auctionOpened" and so on in a Metrics.
+ * <p>
+ * Wrapped around an AsyncMessagingService, this times handing messages
+ * over, and adds a gauge "messages.queued" of those not yet delivered;
+ * wrapped around the service an AsyncMessagingService delivers to, it
+ * times delivery.
+ */
+public class MeteredMessagingService implements MessagingService {
+
+    private final MessagingService messaging;
+    private final Metrics.Operation auctionOpened;
+    private final Metrics.Operation bidAccepted;
+    private final Metrics.Operation lotSold;
+    private final Metrics.Operation lotUnsold;
+
+    public MeteredMessagingService(MessagingService messaging, Metrics metrics) {
+        this.messaging = messaging;
+        auctionOpened = metrics.timer("messages.auctionOpened");
+        bidAccepted = metrics.timer("messages.bidAccepted");
+        lotSold = metrics.timer("messages.lotSold");
+        lotUnsold = metrics.timer("messages.lotUnsold");
+        if (messaging instanceof AsyncMessagingService) {
+            metrics.gauge("messages.queued", ((AsyncMessagingService) messaging)::pending);
+        }
+    }
+
+    public void auctionOpened(String address, int lotNumber) {
+        long start = System.nanoTime();
+        messaging.auctionOpened(address, lotNumber);
+        auctionOpened.record(start);
+    }
+
+    public void bidAccepted(String address, int lotNumber, Money amount) {
+        long start = System.nanoTime();
+        messaging.bidAccepted(address, lotNumber, amount);
+        bidAccepted.record(start);
+    }
+
+    public void lotSold(String address, int lotNumber) {
+        long start = System.nanoTime();
+        messaging.lotSold(address, lotNumber);
+        lotSold.record(start);
+    }
+
+    public void lotUnsold(String address, int lotNumber) {
+        long start = System.nanoTime();
+        messaging.lotUnsold(address, lotNumber);
+        lotUnsold.record(start);
+    }
+}
@@ -0,0 +1,240 @@
+package auctionhouse;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Counters, latency histograms and gauges for a running auction house.
+ * <p>
+ * MeteredAuctionHouse, MeteredMessagingService and MeteredBankingService
+ * record each call they pass on as an Operation here: how long it took and,
+ * for calls that return a Status, how many calls ended in each Status.Kind.
+ * Gauges are read only when the metrics are, so they cost nothing between
+ * reads.
+ * <p>
+ * Everything is available as one flat, sorted set of named values: from
+ * values(), as text from snapshot(), or as the read-only attributes of an
+ * MBean once register() has been called. Latencies are in nanoseconds.
+ */
+public class Metrics implements DynamicMBean {
+
+    private static final Status.Kind[] KINDS = Status.Kind.values();
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+    private static final String[] PERCENTILE_NAMES = { "p50", "p90", "p99", "p999" };
+
+    /**
+     * Calls of one operation.
+     */
+    public static final class Operation {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        // Null for operations that do not return a Status.
+        private final LongAdder[] outcomes;
+
+        private Operation(boolean withOutcomes) {
+            if (withOutcomes) {
+                outcomes = new LongAdder[KINDS.length];
+                for (int k = 0; k < KINDS.length; k++) {
+                    outcomes[k] = new LongAdder();
+                }
+            } else {
+                outcomes = null;
+            }
+        }
+
+        /**
+         * Record a call that started at startNanos, as given by
+         * System.nanoTime(), and has just returned.
+         */
+        public void record(long startNanos) {
+            latency.record(System.nanoTime() - startNanos);
+        }
+
+        /**
+         * Record a call that started at startNanos and has just returned status.
+         */
+        public void record(long startNanos, Status status) {
+            record(startNanos);
+            if (outcomes != null && status != null) {
+                outcomes[status.kind.ordinal()].increment();
+            }
+        }
+
+        public long count() {
+            return latency.count();
+        }
+
+        /**
+         * @return the number of calls that returned a Status of the given kind
+         */
+        public long count(Status.Kind kind) {
+            return outcomes == null ? 0 : outcomes[kind.ordinal()].sum();
+        }
+
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+        private void addTo(String name, Map<String, Long> values) {
+            long[] percentiles = latency.percentiles(PERCENTILES);
+            values.put(name + ".count", latency.count());
+            values.put(name + ".mean", latency.mean());
+            values.put(name + ".max", latency.max());
+            for (int p = 0; p < percentiles.length; p++) {
+                values.put(name + "." + PERCENTILE_NAMES[p], percentiles[p]);
+            }
+            if (outcomes != null) {
+                for (int k = 0; k < KINDS.length; k++) {
+                    values.put(name + "." + KINDS[k], outcomes[k].sum());
+                }
+            }
+        }
+    }
+
+    private final ConcurrentMap<String, Operation> operations = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+
+    /**
+     * @return the named operation, counting outcomes by Status.Kind; created
+     *         on first use
+     */
+    public Operation operation(String name) {
+        return operations.computeIfAbsent(name, n -> new Operation(true));
+    }
+
+    /**
+     * @return the named operation, timing calls that return no Status;
+     *         created on first use
+     */
+    public Operation timer(String name) {
+        return operations.computeIfAbsent(name, n -> new Operation(false));
+    }
+
+    /**
+     * Report value's current result under name, replacing any gauge of
+     * that name.
+     */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Add a gauge of the number of lots with each LotStatus, and one of
+     * open auctions.
+     * @param lotCount the number of lots with a status, such as
+     *        AuctionHouseImp::lotCount
+     */
+    public void lotGauges(ToIntFunction<LotStatus> lotCount) {
+        for (LotStatus status : LotStatus.values()) {
+            gauge("lots." + status, () -> lotCount.applyAsInt(status));
+        }
+        gauge("auctions.open", () -> lotCount.applyAsInt(LotStatus.IN_AUCTION));
+    }
+
+    /**
+     * @return every value by name, in name order
+     */
+    public Map<String, Long> values() {
+        Map<String, Long> values = new TreeMap<>();
+        operations.forEach((name, op) -> op.addTo(name, values));
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        return values;
+    }
+
+    /**
+     * @return every value as a line of name and value, in name order
+     */
+    public String snapshot() {
+        StringBuilder text = new StringBuilder();
+        values().forEach((name, value) -> text.append(name).append(' ').append(value).append('\n'));
+        return text.toString();
+    }
+
+    /**
+     * Register with the platform MBean server as name, such as
+     * "auctionhouse:type=Metrics".
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName(name);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    public void unregister(ObjectName name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+    }
+
+    /*
+     * DynamicMBean: one read-only Long attribute per value and a snapshot
+     * operation. Operations and gauges added later appear in the next
+     * MBeanInfo asked for.
+     */
+
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Long value = values().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value;
+    }
+
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Long> values = values();
+        AttributeList list = new AttributeList();
+        for (String name : attributes) {
+            Long value = values.get(name);
+            if (value != null) {
+                list.add(new Attribute(name, value));
+            }
+        }
+        return list;
+    }
+
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if (actionName.equals("snapshot") && (params == null || params.length == 0)) {
+            return snapshot();
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (String name : values().keySet()) {
+            attributes.add(new MBeanAttributeInfo(name, Long.class.getName(), name, true, false, false));
+        }
+        MBeanOperationInfo snapshot = new MBeanOperationInfo(
+                "snapshot", "Every value as text", new MBeanParameterInfo[0],
+                String.class.getName(), MBeanOperationInfo.INFO);
+        return new MBeanInfo(
+                getClass().getName(), "Auction house metrics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null,
+                new MBeanOperationInfo[] { snapshot }, null);
+    }
+}
@@ -0,0 +1,102 @@
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class MetricsTest {
+
+    private static AuctionHouse newHouse(Metrics metrics) {
+        MessagingService messaging = new MeteredMessagingService(MockServices.SILENT, metrics);
+        BankingService bank = new MeteredBankingService(
+                (from, authCode, to, amount) -> Status.OK(), metrics);
+        AuctionHouseImp house = new AuctionHouseImp(MockServices.parameters(messaging, bank));
+        return new MeteredAuctionHouse(house, metrics);
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 10_000; v++) {
+            h.record(v * 1000);
+        }
+        long[] p = h.percentiles(50, 99, 100);
+        assertEquals(10_000, h.count());
+        assertEquals(10_000_000, h.max());
+        assertEquals(5_000_500, h.mean());
+        assertTrue(p[0] >= 5_000_000 && p[0] <= 5_000_000 * 17 / 16);
+        assertTrue(p[1] >= 9_900_000 && p[1] <= 9_900_000 * 17 / 16);
+        assertEquals(10_000_000, p[2]);
+    }
+
+    @Test
+    public void testOperationsCountedByOutcome() {
+        Metrics metrics = new Metrics();
+        AuctionHouse house = newHouse(metrics);
+        house.registerSeller("SellerY", "@SellerY", "SY A/C");
+        house.registerBuyer("BuyerA", "@BuyerA", "BA A/C", "BA-auth");
+        house.addLot("SellerY", 2, "Bicycle", new Money("10.00"));
+        house.addLot("SellerY", 3, "Vase", new Money("10.00"));
+        house.openAuction("Auctioneer1", "@Auctioneer1", 2);
+        house.openAuction("Auctioneer1", "@Auctioneer1", 3);
+        house.noteInterest("BuyerA", 2);
+        house.makeBid("BuyerA", 2, new Money("20.00"));
+        house.makeBid("BuyerA", 2, new Money("5.00"));
+        house.makeBid("Nobody", 2, new Money("30.00"));
+
+        Map<String, Long> values = metrics.values();
+        assertEquals(3, (long) values.get("makeBid.count"));
+        assertEquals(1, (long) values.get("makeBid.OK"));
+        assertEquals(2, (long) values.get("makeBid.ERROR"));
+        assertEquals(2, (long) values.get("auctions.open"));
+        assertEquals(2, (long) values.get("lots.IN_AUCTION"));
+        assertEquals(0, (long) values.get("lots.UNSOLD"));
+        assertTrue(values.get("messages.bidAccepted.count") >= 1);
+
+        assertEquals(Status.Kind.SALE, house.closeAuction("Auctioneer1", 2).kind);
+        values = metrics.values();
+        assertEquals(1, (long) values.get("closeAuction.SALE"));
+        assertEquals(2, (long) values.get("bank.transfer.OK"));
+        assertEquals(1, (long) values.get("auctions.open"));
+        assertEquals(1, (long) values.get("lots.SOLD"));
+        assertTrue(metrics.snapshot().contains("closeAuction.SALE 1\n"));
+    }
+
+    @Test
+    public void testQueuedNotificationsGauge() throws InterruptedException {
+        Metrics metrics = new Metrics();
+        AsyncMessagingService async = new AsyncMessagingService(MockServices.SILENT);
+        MessagingService messaging = new MeteredMessagingService(async, metrics);
+        messaging.lotSold("@BuyerA", 1);
+        async.flush();
+        assertEquals(0, (long) metrics.values().get("messages.queued"));
+        assertEquals(1, (long) metrics.values().get("messages.lotSold.count"));
+        async.shutdown();
+    }
+
+    @Test
+    public void testReadThroughJmx() throws Exception {
+        Metrics metrics = new Metrics();
+        AuctionHouse house = newHouse(metrics);
+        house.registerSeller("SellerY", "@SellerY", "SY A/C");
+        house.registerSeller("SellerY", "@SellerY", "SY A/C");
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = metrics.register("auctionhouse:type=Metrics,name=MetricsTest");
+        try {
+            assertEquals(1L, server.getAttribute(name, "registerSeller.OK"));
+            assertEquals(1L, server.getAttribute(name, "registerSeller.ERROR"));
+            String text = (String) server.invoke(name, "snapshot", null, null);
+            assertTrue(text.contains("registerSeller.count 2\n"));
+        } finally {
+            metrics.unregister(name);
+        }
+    }
+}
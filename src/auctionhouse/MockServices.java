@@ -0,0 +1,114 @@
+package auctionhouse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Services and Parameters shared by the tests that only need to see what a
+ * house sent, often from several threads at once. Unlike
+ * MockMessagingService and MockBankingService these check no expectations
+ * of their own, and are safe to call from any thread.
+ */
+public class MockServices {
+
+    /**
+     * Sends nothing.
+     */
+    public static final MessagingService SILENT = new MessagingService() {
+        public void auctionOpened(String address, int lotNumber) {
+        }
+        public void bidAccepted(String address, int lotNumber, Money amount) {
+        }
+        public void lotSold(String address, int lotNumber) {
+        }
+        public void lotUnsold(String address, int lotNumber) {
+        }
+    };
+
+    /**
+     * Buyer premium 10%, commission 15%, increment 1.00, and the house's
+     * account "AH A/C" with authorisation code "AH-auth".
+     */
+    public static Parameters parameters(MessagingService messagingService, BankingService bankingService) {
+        return new Parameters(10.0, 15.0, new Money("1.00"), "AH A/C", "AH-auth",
+                messagingService, bankingService);
+    }
+
+    /**
+     * Keeps every message as "kind address lot", followed by the amount
+     * for a bid; the kinds are opened, bid, sold and unsold.
+     */
+    public static class RecordingMessagingService implements MessagingService {
+        private final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+
+        public void auctionOpened(String address, int lotNumber) {
+            messages.add("opened " + address + " " + lotNumber);
+        }
+        public void bidAccepted(String address, int lotNumber, Money amount) {
+            messages.add("bid " + address + " " + lotNumber + " " + amount);
+        }
+        public void lotSold(String address, int lotNumber) {
+            messages.add("sold " + address + " " + lotNumber);
+        }
+        public void lotUnsold(String address, int lotNumber) {
+            messages.add("unsold " + address + " " + lotNumber);
+        }
+
+        /**
+         * @return every message so far, in the order sent
+         */
+        public List<String> messages() {
+            synchronized (messages) {
+                return new ArrayList<>(messages);
+            }
+        }
+
+        /**
+         * @return the messages of one kind so far, without the kind
+         */
+        public List<String> sent(String kind) {
+            String prefix = kind + " ";
+            List<String> sent = new ArrayList<>();
+            for (String m : messages()) {
+                if (m.startsWith(prefix)) {
+                    sent.add(m.substring(prefix.length()));
+                }
+            }
+            return sent;
+        }
+
+        public void clear() {
+            messages.clear();
+        }
+    }
+
+    /**
+     * Makes every transfer succeed, keeping each as "sender receiver amount".
+     */
+    public static class RecordingBankingService implements BankingService {
+        private final List<String> transfers = Collections.synchronizedList(new ArrayList<String>());
+
+        public Status transfer(
+                String senderAccount,
+                String senderAuthCode,
+                String receiverAccount,
+                Money amount) {
+            transfers.add(senderAccount + " " + receiverAccount + " " + amount);
+            return Status.OK();
+        }
+
+        /**
+         * @return every transfer so far, in the order made
+         */
+        public List<String> transfers() {
+            synchronized (transfers) {
+                return new ArrayList<>(transfers);
+            }
+        }
+
+        public void clear() {
+            transfers.clear();
+        }
+    }
+}
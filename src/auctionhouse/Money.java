@@ -3,6 +3,9 @@
  */
 package auctionhouse;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
 /**
  * @author pbj
  */
@@ -10,7 +13,7 @@ package auctionhouse;
 /**
  *	Class used for holding and updating information about money
  *	<p>
- *	The following class has one field and several methods that execute operations on money,
+ *	The following class holds an amount in whole pence and has several methods that execute operations on money,
  *	such as adding, comparing, subtracting etc.		 		
   */
 public class Money implements Comparable<Money> {
@@ -18,134 +21,187 @@ public class Money implements Comparable<Money> {
    /**
 	* Field holding information about the value of Money object.
 	* <p>
-	* This field is the amount of money in pounds that a given Money
-	* object is worth.
+	* This field is the exact amount of money in pence that a given Money
+	* object is worth. Keeping whole pence in a long means that no arithmetic
+	* or comparison on Money ever has to round.
 	*/
-    private double value;
+    private final long pence;
     
     /**
-     * Round to nearest pence
+     * Largest amount in pence (exclusive) served from the cache.
+     */
+    private static final int CACHE_SIZE = 10000;
+    
+    /**
+     * Cache of Money objects for amounts below CACHE_SIZE pence
      * <p>
-     * The method takes a value in pounds(of type double), and returns this value 
-     * converted to pence(as a long type); rounded to 0 decimal places, according to rounding convention. 
-     * @param pounds the amount in pounds
-     * @return 		 rounded value converted to the nearest pence
+     * Money is immutable, so small amounts such as increments and low bids can
+     * be shared instead of allocated again. Entries are filled in on first use;
+     * two threads racing to fill the same entry just create equal objects.
      */
-    private static long getNearestPence(double pounds) {
-        return Math.round(pounds * 100.0);
-    }
+    private static final Money[] CACHE = new Money[CACHE_SIZE];
     
     /**
-     * Convert back to pounds
+     * Round to nearest pence
      * <p>
-     * Takes the value in pence computed by getNearestPence method and converts it back to 
-     * bank friendly units (pounds followed by decimal point, followed by two figure pence amount).
-     * @param pounds This is the rounded value in pence.
-     * @return 		 rounded value in pence converted to pounds (pence are expressed as a fraction of pounds)
+     * The method takes a value in pounds(as a decimal String), and returns this value 
+     * converted to pence(as a long type); rounded to 0 decimal places, according to rounding convention.
+     * The conversion is done in decimal, so values such as "0.29" are not disturbed by binary
+     * floating point.
+     * @param pounds the amount in pounds
+     * @return 		 rounded value converted to the nearest pence
      */
-    private static double normalise(double pounds) {
-        return getNearestPence(pounds)/100.0;
-        
+    private static long getNearestPence(String pounds) {
+        return new BigDecimal(pounds.trim()).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
     }
     
     /**
      * First (public) constructor of the Money class
      * <p>
-     * This constructor creates a Money instance by initialising its value field 
-     * with a normalised amount in pounds. 
+     * This constructor creates a Money instance by initialising its pence field 
+     * with the amount in pounds rounded to the nearest pence. 
      * @param pounds passed as a String
      */
     public Money(String pounds) {
-        value = normalise(Double.parseDouble(pounds));
+        pence = getNearestPence(pounds);
     }
     
     /**
      * Another (private) constructor of the class
      * <p>
-     * This constructor also creates a Money object and initialises its value variable
-     * by setting it to the exact value passed a parameter of type double.
-     * @param pounds passed as a double
+     * This constructor also creates a Money object and initialises its pence field
+     * by setting it to the exact value passed as a parameter.
+     * @param pence passed as a long
+     */
+    private Money(long pence) {
+        this.pence = pence;
+    }
+    
+    /**
+     * Money for an exact amount of pence
+     * <p>
+     * Returns a shared instance from the cache for small non-negative amounts and a
+     * new object otherwise. Callers must not rely on the identity of the result.
+     * @param pence the amount in pence
+     * @return 		a Money object worth that many pence
+     */
+    public static Money ofPence(long pence) {
+        if (pence >= 0 && pence < CACHE_SIZE) {
+            Money m = CACHE[(int) pence];
+            if (m == null) {
+                m = new Money(pence);
+                CACHE[(int) pence] = m;
+            }
+            return m;
+        }
+        return new Money(pence);
+    }
+    
+    /**
+     * Value in pence
+     * @return the exact amount of this Money object in pence
      */
-    private Money(double pounds) {
-        value = pounds;
+    public long pence() {
+        return pence;
     }
     
     /**
      * Update Money (add)
      * <p>
-     * Takes an object of type Money and creates another object of type Money, and instantiates its value field.
-     * Value field is set to the sum of the value field of the current object
-     * and the value field of the object passed as a parameter.
+     * Takes an object of type Money and returns an object of type Money whose value
+     * is the sum of the value of the current object and the value of the object
+     * passed as a parameter.
      * @param m An object of type Money
-     * @return 	a new object of type Money
+     * @return 	an object of type Money
      */
     public Money add(Money m) {
-        return new Money(value + m.value);
+        return ofPence(pence + m.pence);
     }
     
     /**
      * Update Money (subtract)
      * <p>
-     * Takes an object of type Money and creates another object of type Money, and instantiates its value field.
-     * Value field is set to the difference of the value field of the current object
-     * and the value field of the object passed as a parameter.
+     * Takes an object of type Money and returns an object of type Money whose value
+     * is the difference of the value of the current object and the value of the
+     * object passed as a parameter.
      * @param m An object of type Money
-     * @return 	a new object of type Money
+     * @return 	an object of type Money
      */
     public Money subtract(Money m) {
-        return new Money(value - m.value);
+        return ofPence(pence - m.pence);
     }
     
     /**
      * Update Money by some percentage
      * <p>
-     * Takes a percentage value and creates a new Money object, setting its value field. It is set to the value field
-     * of the current Money object increased by the percentage passed as a parameter of the method. The value in that
-     * field is also normalised.
+     * Takes a percentage value and returns an object of type Money worth the value
+     * of the current Money object increased by the percentage passed as a parameter
+     * of the method, rounded to the nearest pence.
      * @param percent percentage expressed as a double
-     * @return		  a new object of type Money
+     * @return		  an object of type Money
      */
     public Money addPercent(double percent) {
-        return new Money(normalise(value * (1 + percent/100.0)));
+        return ofPence(Math.round(pence * (100.0 + percent) / 100.0));
     }
      
     @Override
     public String toString() {
-        return String.format("%.2f", value);
+        long abs = Math.abs(pence);
+        long pounds = abs / 100;
+        int rest = (int) (abs % 100);
+        StringBuilder sb = new StringBuilder(24);
+        if (pence < 0) sb.append('-');
+        sb.append(pounds).append('.');
+        if (rest < 10) sb.append('0');
+        return sb.append(rest).toString();
+    }
         
     /**
-     * Comparing two Money objects based on their value fields
+     * Comparing two Money objects based on their values
      * <p>
-     * This method takes an object of type Money as a parameter and compares its value field
-     * with the value field of the current object. Then it returns a positive integer if the 
+     * This method takes an object of type Money as a parameter and compares its value
+     * with the value of the current object. Then it returns a positive integer if the 
      * value of current object is greater, 0 if they are the same and a negative if a value of
      * object m is greater.
      * @param m an object of type money 
      * @return  an integer signifying which field was greater
      */ 
-    }
     public int compareTo(Money m) {
-        return Long.compare(getNearestPence(value),  getNearestPence(m.value)); 
+        return Long.compare(pence, m.pence); 
+    }
+    
+    /**
+     * Comparing this Money object with the sum of two others
+     * <p>
+     * Gives the same answer as compareTo(base.add(offset)) without creating the sum,
+     * so that checks such as "is the bid at least the current bid plus the increment"
+     * need no allocation.
+     * @param base   the amount to compare against
+     * @param offset the amount added to base before comparing
+     * @return  	 an integer signifying which value was greater, as for compareTo
+     */
+    public int compareToSum(Money base, Money offset) {
+        return Long.compare(pence, base.pence + offset.pence);
     }
     
     /**
-     * Checks if current Money object value field is less than or equal to another Money object value
+     * Checks if current Money object value is less than or equal to another Money object value
      * <p>
-     * The method takes an object of type Money and compares its corresponding value field 
-     * to another Money object's value field. Returns a boolean regarding whether or not the 
-     * first field is less than or equal to the second.
+     * The method takes an object of type Money and compares its corresponding value 
+     * to another Money object's value. Returns a boolean regarding whether or not the 
+     * first value is less than or equal to the second.
      * @param m the first Money object
      * @return 	boolean True if first is less than or equal to second; else False.
      */
     public Boolean lessEqual(Money m) {
-        return compareTo(m) <= 0;
+        return pence <= m.pence;
     }
     
     /**
      * Override of the standard object comparison method
      * <p>
      * Checks if the passed object is a Money object(if not returns false),
-     * then it creates a new Money object from the parameter object, and finally compares their value fields.
+     * and then compares the values of both objects.
      * If they are the same it returns True; else returns False.
      * @param o this is of type Object
      * @return 	returns a boolean according to description above
@@ -153,13 +209,12 @@ public class Money implements Comparable<Money> {
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof Money)) return false;
-        Money oM = (Money) o;
-        return compareTo(oM) == 0;       
+        return pence == ((Money) o).pence;       
     }
     
     @Override
     public int hashCode() {
-        return Long.hashCode(getNearestPence(value));
+        return Long.hashCode(pence);
     }
       
 
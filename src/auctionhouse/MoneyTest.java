@@ -95,6 +95,30 @@ public class MoneyTest {
 	   
    }
 
+   
+   @Test
+   public void testRoundingIsExact() {
+	   assertEquals(29, new Money("0.29").pence());
+	   assertEquals(1005, new Money("10.045").pence());
+	   assertEquals("-3.15", new Money("12.30").subtract(new Money("15.45")).toString());
+	   assertEquals("0.05", new Money("0.05").toString());
+   }
+   
+   @Test
+   public void testOfPence() {
+	   assertEquals(new Money("12.34"), Money.ofPence(1234));
+	   assertEquals(new Money("123456.78"), Money.ofPence(12345678));
+	   assertEquals("12.34", Money.ofPence(1234).toString());
+   }
+   
+   @Test
+   public void testCompareToSum() {
+	   Money current = new Money("100.00");
+	   Money increment = new Money("10.00");
+	   assertEquals(-1, new Money("109.99").compareToSum(current, increment));
+	   assertEquals(0, new Money("110").compareToSum(current, increment));
+	   assertEquals(1, new Money("110.01").compareToSum(current, increment));
+   }
 
     /*
      * Put all class modifications above.
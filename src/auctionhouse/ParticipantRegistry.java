@@ -0,0 +1,311 @@
+package auctionhouse;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Registered buyers or sellers, held outside the Java heap.
+ * <p>
+ * Like Registry, it gives each participant a compact integer ID in
+ * registration order; a restored participant may be given back the ID it
+ * had, leaving any skipped IDs empty. Names, addresses and bank details are
+ * packed into direct-memory slabs, one record per participant, and an
+ * open-addressing hash table in direct memory maps names to IDs. Tens of millions of
+ * participants therefore add almost nothing for the garbage collector to
+ * trace; size -XX:MaxDirectMemorySize to fit them.
+ * <p>
+ * Looking up an ID by name compares the name against the slab in place and
+ * allocates nothing. Reading a field decodes it into a String, since that is
+ * what the messaging and banking services take. Addresses are read for every
+ * message sent, so the most recently decoded ones are kept in a small cache
+ * of fixed size: watchers of a busy lot are then told of each bid without
+ * anything being decoded or allocated, however many participants there are.
+ * <p>
+ * Registration is serialised; lookups never lock. Each table entry is
+ * published with release semantics after the record it points to is
+ * written, so a reader that finds a name also sees its whole record.
+ */
+public class ParticipantRegistry {
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private static final int SLAB = 1 << 20;
+    private static final int NAME = 0;
+    private static final int ADDRESS = 1;
+    private static final int BANK_ACCOUNT = 2;
+    private static final int BANK_AUTH_CODE = 3;
+    private static final int ADDRESS_CACHE = 1 << 17;
+    // Record reference of an ID that nobody has been given.
+    private static final long EMPTY = -1;
+
+    private static final class CachedAddress {
+        final int id;
+        final String address;
+
+        CachedAddress(int id, String address) {
+            this.id = id;
+            this.address = address;
+        }
+    }
+
+    // Name hash in the high half, ID + 1 in the low half; 0 is empty.
+    private volatile ByteBuffer table = allocate(64 * 8);
+    // Slab reference of each ID's record: slab number high, offset low.
+    private volatile ByteBuffer records = allocate(64 * 8);
+    private volatile ByteBuffer[] slabs = new ByteBuffer[4];
+    private volatile int size;
+    private int slabCount;
+    private int slabUsed = SLAB;
+    // Indexed by ID modulo its length; entries are immutable, so racing
+    // readers and writers at worst decode an address again.
+    private final CachedAddress[] addressCache = new CachedAddress[ADDRESS_CACHE];
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    private static int hash(String name) {
+        int h = name.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static long entry(int hash, int id) {
+        return (long) hash << 32 | (id + 1) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Register a new participant; bankAuthCode may be null.
+     * @return the new ID, or -1 if the name is already registered
+     */
+    public synchronized int register(String name, String address, String bankAccount, String bankAuthCode) {
+        return add(size, name, address, bankAccount, bankAuthCode);
+    }
+
+    /**
+     * Register a participant under the given ID, as when restoring one whose
+     * registration was recorded. IDs below it that nobody has been given are
+     * left empty: they have no name and no lookup finds them, but a later
+     * call may still fill them in.
+     * @return id, or -1 if the name or the ID is already taken
+     */
+    public synchronized int registerAt(
+            int id, String name, String address, String bankAccount, String bankAuthCode) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative ID: " + id);
+        }
+        if (id < size && records.getLong(id * 8) != EMPTY) {
+            return -1;
+        }
+        return add(id, name, address, bankAccount, bankAuthCode);
+    }
+
+    private int add(int id, String name, String address, String bankAccount, String bankAuthCode) {
+        if (id(name) >= 0) {
+            return -1;
+        }
+        long ref = store(name, address, bankAccount, bankAuthCode);
+        int newSize = Math.max(size, id + 1);
+
+        ByteBuffer r = records;
+        if (newSize * 8 > r.capacity()) {
+            ByteBuffer bigger = allocate(capacityFor(r.capacity(), newSize * 8));
+            bigger.put(0, r, 0, size * 8);
+            records = r = bigger;
+        }
+        for (int gap = size; gap < id; gap++) {
+            r.putLong(gap * 8, EMPTY);
+        }
+        r.putLong(id * 8, ref);
+
+        ByteBuffer t = table;
+        if (newSize * 2 * 8 > t.capacity()) {
+            ByteBuffer bigger = allocate(capacityFor(t.capacity(), newSize * 2 * 8));
+            int oldSlots = t.capacity() / 8;
+            for (int i = 0; i < oldSlots; i++) {
+                long e = t.getLong(i * 8);
+                if (e != 0) {
+                    insert(bigger, e);
+                }
+            }
+            table = t = bigger;
+        }
+        // Published last, so anyone who can find the ID can also read the record.
+        size = newSize;
+        insert(t, entry(hash(name), id));
+        return id;
+    }
+
+    private static int capacityFor(int capacity, int needed) {
+        while (capacity < needed) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    private static void insert(ByteBuffer t, long e) {
+        int mask = t.capacity() / 8 - 1;
+        int i = (int) (e >>> 32) & mask;
+        while (t.getLong(i * 8) != 0) {
+            i = (i + 1) & mask;
+        }
+        LONGS.setRelease(t, i * 8, e);
+    }
+
+    /*
+     * Append one record to the slabs: each field is an int header, -1 for
+     * null or else the length in chars shifted left one with the low bit set
+     * for UTF-16, followed by the chars as Latin-1 bytes or UTF-16 pairs.
+     */
+    private long store(String... fields) {
+        int needed = 0;
+        for (String f : fields) {
+            needed += 4 + (f == null ? 0 : f.length() * (latin1(f) ? 1 : 2));
+        }
+        if (slabUsed + needed > SLAB) {
+            ByteBuffer[] s = slabs;
+            if (slabCount == s.length) {
+                s = Arrays.copyOf(s, slabCount * 2);
+            }
+            s[slabCount++] = allocate(Math.max(SLAB, needed));
+            slabs = s;
+            slabUsed = 0;
+        }
+        ByteBuffer slab = slabs[slabCount - 1];
+        int start = slabUsed;
+        int at = start;
+        for (String f : fields) {
+            if (f == null) {
+                slab.putInt(at, -1);
+                at += 4;
+                continue;
+            }
+            boolean latin1 = latin1(f);
+            slab.putInt(at, f.length() << 1 | (latin1 ? 0 : 1));
+            at += 4;
+            for (int i = 0; i < f.length(); i++) {
+                if (latin1) {
+                    slab.put(at++, (byte) f.charAt(i));
+                } else {
+                    slab.putChar(at, f.charAt(i));
+                    at += 2;
+                }
+            }
+        }
+        slabUsed = at;
+        return (long) (slabCount - 1) << 32 | start;
+    }
+
+    private static boolean latin1(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the ID of the named participant, or -1 if not registered
+     */
+    public int id(String name) {
+        int h = hash(name);
+        ByteBuffer t = table;
+        int mask = t.capacity() / 8 - 1;
+        int i = h & mask;
+        long e;
+        while ((e = (long) LONGS.getAcquire(t, i * 8)) != 0) {
+            int id = (int) e - 1;
+            if ((int) (e >>> 32) == h && nameEquals(id, name)) {
+                return id;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean nameEquals(int id, String name) {
+        long ref = records.getLong(id * 8);
+        ByteBuffer slab = slabs[(int) (ref >>> 32)];
+        int at = (int) ref;
+        int header = slab.getInt(at);
+        if (header >>> 1 != name.length()) {
+            return false;
+        }
+        at += 4;
+        boolean utf16 = (header & 1) != 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = utf16 ? slab.getChar(at + 2 * i) : (char) (slab.get(at + i) & 0xFF);
+            if (c != name.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private String field(int id, int field) {
+        long ref = records.getLong(id * 8);
+        if (ref == EMPTY) {
+            return null;
+        }
+        ByteBuffer slab = slabs[(int) (ref >>> 32)];
+        int at = (int) ref;
+        for (int f = 0; f < field; f++) {
+            int header = slab.getInt(at);
+            at += 4 + (header < 0 ? 0 : (header >>> 1) * ((header & 1) + 1));
+        }
+        int header = slab.getInt(at);
+        if (header < 0) {
+            return null;
+        }
+        int length = header >>> 1;
+        at += 4;
+        if ((header & 1) == 0) {
+            byte[] bytes = new byte[length];
+            slab.get(at, bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = slab.getChar(at + 2 * i);
+        }
+        return new String(chars);
+    }
+
+    public boolean contains(String name) {
+        return id(name) >= 0;
+    }
+
+    /**
+     * @return the participant's name, or null if nobody has the ID
+     */
+    public String name(int id) {
+        return field(id, NAME);
+    }
+
+    public String address(int id) {
+        int i = id & (ADDRESS_CACHE - 1);
+        CachedAddress cached = addressCache[i];
+        if (cached != null && cached.id == id) {
+            return cached.address;
+        }
+        String address = field(id, ADDRESS);
+        addressCache[i] = new CachedAddress(id, address);
+        return address;
+    }
+
+    public String bankAccount(int id) {
+        return field(id, BANK_ACCOUNT);
+    }
+
+    /**
+     * @return the bank authorisation code, or null if none was registered
+     */
+    public String bankAuthCode(int id) {
+        return field(id, BANK_AUTH_CODE);
+    }
+
+    public int size() {
+        return size;
+    }
+}
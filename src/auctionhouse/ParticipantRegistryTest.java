@@ -0,0 +1,106 @@
+/**
+ *
+ */
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+public class ParticipantRegistryTest {
+
+    @Test
+    public void testRegisterAndLookUp() {
+        ParticipantRegistry registry = new ParticipantRegistry();
+        assertEquals(0, registry.register("BuyerA", "@BuyerA", "BA A/C", "BA-auth"));
+        assertEquals(1, registry.register("SellerY", "@SellerY", "SY A/C", null));
+        assertEquals(-1, registry.register("BuyerA", "@Other", "O A/C", "O-auth"));
+
+        assertEquals(0, registry.id("BuyerA"));
+        assertEquals(1, registry.id("SellerY"));
+        assertEquals(-1, registry.id("BuyerB"));
+        assertTrue(registry.contains("BuyerA"));
+        assertFalse(registry.contains("Buyer"));
+        assertEquals("BuyerA", registry.name(0));
+        assertEquals("@BuyerA", registry.address(0));
+        assertEquals("BA A/C", registry.bankAccount(0));
+        assertEquals("BA-auth", registry.bankAuthCode(0));
+        assertNull(registry.bankAuthCode(1));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void testNonLatinNames() {
+        ParticipantRegistry registry = new ParticipantRegistry();
+        registry.register("Zoë", "@zoë", "Z A/C", "Z-auth");
+        registry.register("山田", "@山田", "Y A/C", "Y-auth");
+        assertEquals(0, registry.id("Zoë"));
+        assertEquals(1, registry.id("山田"));
+        assertEquals(-1, registry.id("山"));
+        assertEquals("@山田", registry.address(1));
+        assertEquals("山田", registry.name(1));
+    }
+
+    @Test
+    public void testManyParticipants() {
+        ParticipantRegistry registry = new ParticipantRegistry();
+        for (int i = 0; i < 100000; i++) {
+            assertEquals(i, registry.register("Buyer" + i, "@Buyer" + i, "B" + i + " A/C", "B" + i + "-auth"));
+        }
+        for (int i = 0; i < 100000; i++) {
+            assertEquals(i, registry.id("Buyer" + i));
+            assertEquals("@Buyer" + i, registry.address(i));
+        }
+    }
+
+    @Test
+    public void testRegisterAtLeavesGaps() {
+        ParticipantRegistry registry = new ParticipantRegistry();
+        assertEquals(200, registry.registerAt(200, "BuyerB", "@BuyerB", "BB A/C", "BB-auth"));
+        assertEquals(201, registry.size());
+        assertEquals(null, registry.name(3));
+        assertEquals(null, registry.address(3));
+        assertEquals(-1, registry.registerAt(200, "BuyerC", "@BuyerC", "BC A/C", "BC-auth"));
+        assertEquals(3, registry.registerAt(3, "BuyerA", "@BuyerA", "BA A/C", "BA-auth"));
+        assertEquals(-1, registry.registerAt(4, "BuyerA", "@BuyerA", "BA A/C", "BA-auth"));
+        assertEquals(201, registry.register("BuyerC", "@BuyerC", "BC A/C", "BC-auth"));
+        assertEquals(3, registry.id("BuyerA"));
+        assertEquals(200, registry.id("BuyerB"));
+        assertEquals("@BuyerB", registry.address(200));
+    }
+
+    @Test
+    public void testLookUpAllocatesNothing() {
+        ParticipantRegistry registry = new ParticipantRegistry();
+        String[] names = new String[1000];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "Buyer" + i;
+            registry.register(names[i], "@" + names[i], "A/C", "auth");
+            names[i].hashCode();
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        int found = 0;
+        for (int round = 0; round < 20; round++) {
+            for (String name : names) {
+                found += registry.id(name);
+            }
+        }
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int round = 0; round < 100; round++) {
+            for (String name : names) {
+                found += registry.id(name);
+            }
+        }
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+        assertEquals(120 * 499500, found);
+        // A little slack for the measurement itself.
+        assertTrue("Allocated " + allocated + " bytes", allocated < 1024);
+    }
+}
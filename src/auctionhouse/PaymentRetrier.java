@@ -0,0 +1,183 @@
+package auctionhouse;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Retries the payments of sales left SOLD_PENDING_PAYMENT until they go
+ * through, then marks the lots SOLD and sends lotSold.
+ * <p>
+ * Each pending sale remembers which of its two transfers have succeeded and
+ * only ever repeats the others, so a buyer who has paid is never charged
+ * again. A retry passes on the idempotency key the close gave the transfer
+ * to an IdempotentBankingService, so that the bank can also recognise a
+ * repeat whose first attempt it did receive.
+ * <p>
+ * Attempt n of a sale waits a random time between half and all of
+ * initialDelayMillis * 2^n, capped at maxDelayMillis, so that sales that
+ * failed together do not all retry together. Pending sales wait in a
+ * DelayQueue ordered by their next attempt, and the scheduler thread only
+ * ever takes the ones that are due: 10^5 waiting sales cost O(log n) each
+ * to schedule and nothing while they wait. Due attempts run on a pool of
+ * retryThreads threads.
+ * <p>
+ * Pending sales are held in memory only; those pending when the house
+ * stops are not retried after a restart.
+ */
+public class PaymentRetrier implements AutoCloseable {
+
+    private static Logger logger = Logger.getLogger("auctionhouse");
+
+    private final class Retry implements Delayed, Runnable {
+        final Settlement settlement;
+        boolean housePaid;
+        boolean sellerPaid;
+        int attempts;
+        long dueNanos;
+
+        Retry(Settlement settlement, boolean housePaid, boolean sellerPaid) {
+            this.settlement = settlement;
+            this.housePaid = housePaid;
+            this.sellerPaid = sellerPaid;
+        }
+
+        void schedule() {
+            long ceiling = ceiling(initialDelayNanos, maxDelayNanos, attempts);
+            dueNanos = System.nanoTime() + ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+            queue.add(this);
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        public int compareTo(Delayed o) {
+            return Long.compare(dueNanos, ((Retry) o).dueNanos);
+        }
+
+        public void run() {
+            attempts++;
+            try {
+                if (!housePaid) {
+                    housePaid = settlement.payHouse(bank).kind == Status.Kind.OK;
+                }
+                if (!sellerPaid) {
+                    sellerPaid = settlement.paySeller(bank).kind == Status.Kind.OK;
+                }
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Retrying payment for lot " + settlement.lotNumber + " failed", e);
+            }
+            if (housePaid && sellerPaid) {
+                if (house.completePayment(settlement)) {
+                    logger.fine("Payment for lot " + settlement.lotNumber + " completed after "
+                            + attempts + " retries");
+                }
+                pending.decrementAndGet();
+            } else if (!closing) {
+                schedule();
+            }
+        }
+    }
+
+    private final AuctionHouseImp house;
+    private final BankingService bank;
+    /*
+     * initialNanos * 2^attempts, capped at maxNanos. Compared before
+     * shifting, since the shift alone can overflow.
+     */
+    static long ceiling(long initialNanos, long maxNanos, int attempts) {
+        int shift = Math.min(attempts, 62);
+        return initialNanos > maxNanos >> shift ? maxNanos : initialNanos << shift;
+    }
+
+    private final long initialDelayNanos;
+    private final long maxDelayNanos;
+    private final DelayQueue<Retry> queue = new DelayQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ExecutorService retrying;
+    private final Thread scheduler;
+    private volatile boolean closing;
+
+    /**
+     * Start retrying the payments of house's sales that are left pending
+     * from now on.
+     * @param bankingService makes the retried transfers, with idempotency
+     *        keys if it is an IdempotentBankingService
+     * @param initialDelayMillis longest wait before the first retry
+     * @param maxDelayMillis longest wait between any two retries
+     * @param retryThreads most retries in progress at once
+     */
+    public PaymentRetrier(
+            AuctionHouseImp house,
+            BankingService bankingService,
+            long initialDelayMillis,
+            long maxDelayMillis,
+            int retryThreads) {
+        this.house = house;
+        this.bank = bankingService;
+        this.initialDelayNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(initialDelayMillis));
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        AtomicInteger threadCount = new AtomicInteger();
+        retrying = Executors.newFixedThreadPool(retryThreads, r -> {
+            Thread t = new Thread(r, "auctionhouse-payment-retry-" + threadCount.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler = new Thread(this::scheduleLoop, "auctionhouse-payment-scheduler");
+        scheduler.setDaemon(true);
+        scheduler.start();
+        house.retryPaymentsWith(this);
+    }
+
+    /**
+     * Called by the house when settlement is left pending payment.
+     */
+    void pending(Settlement settlement, boolean housePaid, boolean sellerPaid) {
+        if (closing) {
+            return;
+        }
+        pending.incrementAndGet();
+        new Retry(settlement, housePaid, sellerPaid).schedule();
+    }
+
+    private void scheduleLoop() {
+        try {
+            while (!closing) {
+                retrying.execute(queue.take());
+            }
+        } catch (InterruptedException e) {
+            // Closing.
+        }
+    }
+
+    /**
+     * @return the number of sales still waiting for payment
+     */
+    public int pendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Stop retrying, waiting for retries in progress to finish.
+     */
+    public void close() {
+        closing = true;
+        house.retryPaymentsWith(null);
+        scheduler.interrupt();
+        try {
+            scheduler.join();
+            retrying.shutdown();
+            retrying.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            retrying.shutdown();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
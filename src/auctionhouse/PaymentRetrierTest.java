@@ -0,0 +1,195 @@
+/**
+ *
+ */
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PaymentRetrierTest {
+
+    /*
+     * Fails the first few transfers from each account, and all from the
+     * declined one, records the key of every transfer, and counts
+     * transfers that moved money.
+     */
+    private static class FlakyBank implements IdempotentBankingService {
+        final Map<String, Integer> failuresLeft = new HashMap<>();
+        final Map<String, Integer> moved = new HashMap<>();
+        final List<String> keys = new ArrayList<>();
+        volatile String declined;
+
+        public Status transfer(String senderAccount, String senderAuthCode, String receiverAccount, Money amount) {
+            return transfer(null, senderAccount, senderAuthCode, receiverAccount, amount);
+        }
+
+        public synchronized Status transfer(
+                String key, String senderAccount, String senderAuthCode, String receiverAccount, Money amount) {
+            if (key != null) {
+                keys.add(key);
+            }
+            int left = failuresLeft.getOrDefault(senderAccount, 0);
+            if (senderAccount.equals(declined)) {
+                return Status.error("Declined");
+            }
+            if (left > 0) {
+                failuresLeft.put(senderAccount, left - 1);
+                return Status.error("Declined");
+            }
+            moved.merge(senderAccount, 1, Integer::sum);
+            return Status.OK();
+        }
+
+        synchronized int moved(String account) {
+            return moved.getOrDefault(account, 0);
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FlakyBank bank;
+    private MockServices.RecordingMessagingService messagingService;
+    private AuctionHouseImp house;
+    private PaymentRetrier retrier;
+
+    @Before
+    public void setup() {
+        bank = new FlakyBank();
+        messagingService = new MockServices.RecordingMessagingService();
+        house = new AuctionHouseImp(MockServices.parameters(messagingService, bank));
+        house.registerSeller("SellerY", "@SellerY", "SY A/C");
+        house.registerBuyer("BuyerA", "@BuyerA", "BA A/C", "BA-auth");
+        retrier = new PaymentRetrier(house, bank, 1, 20, 2);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        retrier.close();
+    }
+
+    private Status sell(int lot) {
+        house.addLot("SellerY", lot, "Lot " + lot, new Money("10.00"));
+        house.noteInterest("BuyerA", lot);
+        house.openAuction("Auctioneer", "@Auctioneer", lot);
+        house.makeBid("BuyerA", lot, new Money("20.00"));
+        return house.closeAuction("Auctioneer", lot);
+    }
+
+    private void awaitSettled() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (retrier.pendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, retrier.pendingCount());
+    }
+
+    @Test
+    public void testBuyerRetriedUntilPaid() throws InterruptedException {
+        bank.failuresLeft.put("BA A/C", 3);
+        assertEquals(Status.Kind.SALE_PENDING_PAYMENT, sell(1).kind);
+        awaitSettled();
+
+        assertEquals(LotStatus.SOLD, house.viewCatalogue().get(0).status);
+        assertEquals(1, bank.moved("BA A/C"));
+        // The seller was paid at the close and never again.
+        assertEquals(1, bank.moved("AH A/C"));
+        assertEquals(3, messagingService.sent("sold").size());
+        // The first attempt and every retry carry the same key.
+        List<String> buyerKeys = keys("-buyer");
+        assertEquals(4, buyerKeys.size());
+        assertTrue(buyerKeys.get(0).startsWith("lot-1-close-"));
+        assertEquals(1, new HashSet<>(buyerKeys).size());
+        assertEquals(1, keys("-seller").size());
+    }
+
+    @Test
+    public void testPaidBuyerNeverChargedAgain() throws InterruptedException {
+        bank.failuresLeft.put("AH A/C", 2);
+        assertEquals(Status.Kind.SALE_PENDING_PAYMENT, sell(1).kind);
+        awaitSettled();
+
+        assertEquals(LotStatus.SOLD, house.viewCatalogue().get(0).status);
+        assertEquals(1, bank.moved("BA A/C"));
+        assertEquals(1, bank.moved("AH A/C"));
+        assertEquals(1, keys("-buyer").size());
+        assertEquals(3, keys("-seller").size());
+        assertEquals(1, new HashSet<>(keys("-seller")).size());
+    }
+
+    @Test
+    public void testKeysNotReusedAfterRestart() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("events.log");
+        Parameters parameters = MockServices.parameters(messagingService, bank);
+        try (EventLog log = new EventLog(path)) {
+            house = new AuctionHouseImp(parameters, log);
+            house.registerSeller("SellerY", "@SellerY", "SY A/C");
+            house.registerBuyer("BuyerA", "@BuyerA", "BA A/C", "BA-auth");
+            assertEquals(Status.Kind.SALE, sell(1).kind);
+        }
+        try (EventLog log = new EventLog(path)) {
+            house = new AuctionHouseImp(parameters, log);
+            assertEquals(Status.Kind.SALE, sell(2).kind);
+        }
+        assertEquals(4, bank.keys.size());
+        List<String> closes = new ArrayList<>();
+        for (String key : keys("-buyer")) {
+            closes.add(key.substring(key.indexOf("-close-")));
+        }
+        assertEquals(2, new HashSet<>(closes).size());
+    }
+
+    private List<String> keys(String suffix) {
+        List<String> keys = new ArrayList<>();
+        synchronized (bank) {
+            for (String key : bank.keys) {
+                if (key.endsWith(suffix)) {
+                    keys.add(key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    @Test
+    public void testManyPendingSales() throws InterruptedException {
+        int lots = 2000;
+        bank.declined = "BA A/C";
+        for (int lot = 0; lot < lots; lot++) {
+            assertEquals(Status.Kind.SALE_PENDING_PAYMENT, sell(lot).kind);
+        }
+        assertEquals(lots, retrier.pendingCount());
+        bank.declined = null;
+        awaitSettled();
+        assertEquals(lots, house.viewCatalogue(LotStatus.SOLD, 0, lots).size());
+        assertEquals(lots, bank.moved("BA A/C"));
+    }
+
+    @Test
+    public void testBackoffCeilingNeverOverflows() {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        long hour = TimeUnit.HOURS.toNanos(1);
+        assertEquals(second, PaymentRetrier.ceiling(second, hour, 0));
+        assertEquals(8 * second, PaymentRetrier.ceiling(second, hour, 3));
+        for (int attempts = 0; attempts < 100; attempts++) {
+            long ceiling = PaymentRetrier.ceiling(10 * second, hour, attempts);
+            assertTrue(ceiling > 0 && ceiling <= hour);
+        }
+        assertEquals(Long.MAX_VALUE, PaymentRetrier.ceiling(second, Long.MAX_VALUE, 1000));
+    }
+}
@@ -0,0 +1,157 @@
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProxyBidTest {
+
+    /*
+     * Keeps every bidAccepted message as "address amount".
+     */
+    private static class BidRecorder implements MessagingService {
+        final List<String> bids = new ArrayList<>();
+        public void auctionOpened(String address, int lotNumber) { }
+        public void bidAccepted(String address, int lotNumber, Money amount) {
+            bids.add(address + " " + amount);
+        }
+        public void lotSold(String address, int lotNumber) { }
+        public void lotUnsold(String address, int lotNumber) { }
+    }
+
+    private static final String[] BUYERS = { "BuyerA", "BuyerB", "BuyerC" };
+
+    private BidRecorder messages;
+    private AuctionHouseImp house;
+
+    @Before
+    public void setup() {
+        messages = new BidRecorder();
+        house = new AuctionHouseImp(MockServices.parameters(messages,
+                (from, authCode, to, amount) -> Status.OK()));
+        house.setTracer(Tracer.OFF);
+        house.registerSeller("SellerY", "@SellerY", "SY A/C");
+        for (String buyer : BUYERS) {
+            house.registerBuyer(buyer, "@" + buyer, buyer + " A/C", buyer + "-auth");
+        }
+        house.addLot("SellerY", 1, "Bicycle", new Money("10.00"));
+        for (String buyer : BUYERS) {
+            house.noteInterest(buyer, 1);
+        }
+        house.openAuction("Auctioneer1", "@Auctioneer1", 1);
+    }
+
+    private List<String> history() {
+        List<String> bids = new ArrayList<>();
+        for (BidHistoryEntry e : house.bidHistory(1, -1, 100)) {
+            bids.add(0, e.buyerName + " " + e.amount);
+        }
+        return bids;
+    }
+
+    @Test
+    public void testProxiesResolveInOneStep() {
+        assertEquals(Status.Kind.OK, house.setProxyBid("BuyerA", 1, new Money("50.00")).kind);
+        messages.bids.clear();
+        assertEquals(Status.Kind.OK, house.setProxyBid("BuyerB", 1, new Money("30.00")).kind);
+
+        // One announcement of the settled price, not one per increment.
+        assertEquals(List.of("@Auctioneer1 31.00", "@SellerY 31.00", "@BuyerA 31.00",
+                "@BuyerB 31.00", "@BuyerC 31.00"), messages.bids);
+        assertEquals(List.of("BuyerA 1.00", "BuyerA 31.00"), history());
+        assertEquals(1, house.leadingLots("BuyerA").size());
+        assertTrue(house.leadingLots("BuyerB").isEmpty());
+    }
+
+    @Test
+    public void testProxyAnswersManualBid() {
+        house.setProxyBid("BuyerA", 1, new Money("50.00"));
+        messages.bids.clear();
+
+        Status outbid = house.makeBid("BuyerC", 1, new Money("40.00"));
+        assertEquals(Status.Kind.OK, outbid.kind);
+        assertTrue(outbid.message.contains("proxy"));
+        assertEquals(5, messages.bids.size());
+        assertTrue(messages.bids.contains("@BuyerC 41.00"));
+
+        assertEquals("", house.makeBid("BuyerC", 1, new Money("60.00")).message);
+        assertEquals(List.of("BuyerA 1.00", "BuyerC 40.00", "BuyerA 41.00", "BuyerC 60.00"), history());
+        assertEquals(1, house.leadingLots("BuyerC").size());
+        assertTrue(house.leadingLots("BuyerA").isEmpty());
+    }
+
+    @Test
+    public void testEarlierProxyWinsTie() {
+        house.setProxyBid("BuyerA", 1, new Money("30.00"));
+        house.setProxyBid("BuyerB", 1, new Money("30.00"));
+        assertEquals(List.of("BuyerA 1.00", "BuyerA 30.00"), history());
+
+        // Raising a proxy ranks it as new, but a higher maximum still wins.
+        house.setProxyBid("BuyerB", 1, new Money("45.00"));
+        assertEquals("BuyerB 31.00", history().get(2));
+    }
+
+    @Test
+    public void testProxyRefusedAndCleared() {
+        house.makeBid("BuyerC", 1, new Money("20.00"));
+        assertEquals(Status.Kind.ERROR, house.setProxyBid("BuyerA", 1, new Money("20.50")).kind);
+        assertEquals(Status.Kind.ERROR, house.setProxyBid("Nobody", 1, new Money("90.00")).kind);
+
+        house.setProxyBid("BuyerA", 1, new Money("90.00"));
+        assertEquals(Status.Kind.SALE, house.closeAuction("Auctioneer1", 1).kind);
+        assertEquals(Status.Kind.ERROR, house.setProxyBid("BuyerB", 1, new Money("90.00")).kind);
+    }
+
+    @Test
+    public void testManyProxies() {
+        int top = -1;
+        for (int i = 0; i < 1000; i++) {
+            String buyer = "Buyer" + i;
+            house.registerBuyer(buyer, "@" + buyer, buyer + " A/C", buyer + "-auth");
+            house.noteInterest(buyer, 1);
+            // Maxima of 100.00 to 1099.00 in a scrambled order.
+            int rank = i * 379 % 1000;
+            house.setProxyBid(buyer, 1, Money.ofPence(10_000 + rank * 100));
+            if (rank == 999) top = i;
+        }
+        BidHistoryEntry latest = house.bidHistory(1, -1, 1).get(0);
+        assertEquals("Buyer" + top, latest.buyerName);
+        // One increment over the runner-up's 1098.00.
+        assertEquals(109_900, latest.amount.pence());
+    }
+
+    @Test
+    public void testRetriedBidReusesHistoryPositions() {
+        // Loses its first swap to a rival bid that gets in meanwhile.
+        LotStore lots = new LotStore() {
+            boolean raced;
+
+            public boolean compareAndSetHighestBid(int slot, HighestBid expected, HighestBid bid) {
+                if (!raced) {
+                    raced = true;
+                    super.compareAndSetHighestBid(slot, expected,
+                            new HighestBid(new Money("2.00"), 2, true, -1, expected.sequence + 1));
+                    return false;
+                }
+                return super.compareAndSetHighestBid(slot, expected, bid);
+            }
+        };
+        BidHistory history = new BidHistory();
+        BidEngine engine = new BidEngine(new Money("1.00"), lots, history, new BuyerActivity(lots));
+        int slot = lots.add(1, 0, "Lot", 0);
+        engine.open(slot);
+        lots.proxiesOrCreate(slot).put(1, new Money("50.00").pence());
+
+        BidEngine.Outcome outcome = engine.offer(slot, 0, new Money("10.00"));
+        assertEquals(new Money("11.00"), outcome.highest.amount);
+        // The bid and the proxy's answer, each recorded once despite the retry.
+        assertEquals(2, history.size());
+        assertEquals(1, outcome.highest.history);
+        assertEquals(0, history.previous(1));
+    }
+}
@@ -0,0 +1,90 @@
+package auctionhouse;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * The proxy bids on one lot: for each buyer, the most the house may bid on
+ * their behalf.
+ * <p>
+ * Proxies are ranked in a skip list by maximum, highest first, and then by
+ * the order they were set in, so the top few are found in O(log n) however
+ * many there are. A map from buyer to proxy answers what one buyer will go
+ * to. Setting a proxy again replaces the buyer's earlier one and ranks it
+ * as new. Changes are serialised; readers never lock, and skip any earlier
+ * proxy of a buyer that they see while it is being replaced.
+ */
+public class ProxySet {
+
+    /**
+     * One buyer's proxy; order is the order proxies on the lot were set in.
+     */
+    public static final class Proxy {
+        public final int buyer;
+        public final long maxPence;
+        public final long order;
+
+        Proxy(int buyer, long maxPence, long order) {
+            this.buyer = buyer;
+            this.maxPence = maxPence;
+            this.order = order;
+        }
+    }
+
+    private static final Comparator<Proxy> RANK =
+            Comparator.comparingLong((Proxy p) -> -p.maxPence).thenComparingLong(p -> p.order);
+
+    private final ConcurrentSkipListSet<Proxy> ranked = new ConcurrentSkipListSet<>(RANK);
+    private final ConcurrentHashMap<Integer, Proxy> byBuyer = new ConcurrentHashMap<>();
+    private long nextOrder;
+
+    /**
+     * Set buyer's maximum, replacing any earlier one.
+     */
+    public synchronized void put(int buyer, long maxPence) {
+        Proxy proxy = new Proxy(buyer, maxPence, nextOrder++);
+        ranked.add(proxy);
+        Proxy old = byBuyer.put(buyer, proxy);
+        if (old != null) {
+            ranked.remove(old);
+        }
+    }
+
+    /**
+     * @return buyer's maximum in pence, or -1 if they have no proxy
+     */
+    public long maxPence(int buyer) {
+        Proxy proxy = byBuyer.get(buyer);
+        return proxy == null ? -1 : proxy.maxPence;
+    }
+
+    /**
+     * @return the n highest proxies, of different buyers, highest first;
+     *         fewer if there are not that many
+     */
+    public Proxy[] top(int n) {
+        Proxy[] top = new Proxy[n];
+        int found = 0;
+        for (Proxy proxy : ranked) {
+            if (found == n) break;
+            if (byBuyer.get(proxy.buyer) == proxy) {
+                top[found++] = proxy;
+            }
+        }
+        return found == n ? top : Arrays.copyOf(top, found);
+    }
+
+    /**
+     * Remove every proxy, as when the lot's auction ends.
+     */
+    public synchronized void clear() {
+        byBuyer.clear();
+        ranked.clear();
+    }
+
+    public int size() {
+        return byBuyer.size();
+    }
+}
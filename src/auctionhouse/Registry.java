@@ -0,0 +1,74 @@
+package auctionhouse;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registered participants, each given a compact integer ID.
+ * <p>
+ * IDs are handed out in registration order starting from 0 and never reused,
+ * so other structures can refer to a participant by an int instead of by
+ * name. Lookups never lock; registration is serialised.
+ * @param <T> the participant record, such as Buyer
+ */
+public class Registry<T> {
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[16];
+    private volatile Object[] records = new Object[16];
+    private volatile int size;
+
+    /**
+     * Register a new participant.
+     * @return the new ID, or -1 if the name is already registered
+     */
+    public synchronized int register(String name, T record) {
+        if (ids.containsKey(name)) {
+            return -1;
+        }
+        int id = size;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, id * 2);
+            records = Arrays.copyOf(records, id * 2);
+        }
+        names[id] = name;
+        records[id] = record;
+        size = id + 1;
+        // Published last, so anyone who can find the ID can also read the record.
+        ids.put(name, id);
+        return id;
+    }
+
+    /**
+     * @return the ID of the named participant, or -1 if not registered
+     */
+    public int id(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int id) {
+        return (T) records[id];
+    }
+
+    /**
+     * @return the named participant, or null if not registered
+     */
+    public T get(String name) {
+        int id = id(name);
+        return id < 0 ? null : get(id);
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public boolean contains(String name) {
+        return ids.containsKey(name);
+    }
+
+    public int size() {
+        return size;
+    }
+}
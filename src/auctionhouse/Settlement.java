@@ -0,0 +1,135 @@
+package auctionhouse;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A sale decided by closing an auction, waiting for its two payments.
+ * <p>
+ * AuctionHouseImp.beginClose() decides the outcome and closes bidding;
+ * the caller then makes the payments, synchronously or not, and hands their
+ * results to AuctionHouseImp.finishClose(). Closes that need no payment, an
+ * error or NO_SALE, carry their final Status in result instead; those that
+ * went unsold still owe the lotUnsold messages.
+ */
+final class Settlement {
+
+    final int slot;
+    final int lotNumber;
+    // Identifies this close's transfers to an IdempotentBankingService.
+    final String key;
+    // Final Status of a close that makes no payments, otherwise null.
+    final Status result;
+
+    final String buyerAccount;
+    final String buyerAuthCode;
+    final Money buyerPays;
+    final String houseAccount;
+    final String houseAuthCode;
+    final String sellerAccount;
+    final Money sellerGets;
+
+    final String winnerAddress;
+    final String sellerAddress;
+    final List<String> interestedAddresses;
+
+    private Settlement(Status result) {
+        this(-1, 0, null, result, null, null, null, null, null, null, null, null, null, null);
+    }
+
+    Settlement(
+            int slot,
+            int lotNumber,
+            String key,
+            Status result,
+            String buyerAccount,
+            String buyerAuthCode,
+            Money buyerPays,
+            String houseAccount,
+            String houseAuthCode,
+            String sellerAccount,
+            Money sellerGets,
+            String winnerAddress,
+            String sellerAddress,
+            List<String> interestedAddresses) {
+        this.slot = slot;
+        this.lotNumber = lotNumber;
+        this.key = key;
+        this.result = result;
+        this.buyerAccount = buyerAccount;
+        this.buyerAuthCode = buyerAuthCode;
+        this.buyerPays = buyerPays;
+        this.houseAccount = houseAccount;
+        this.houseAuthCode = houseAuthCode;
+        this.sellerAccount = sellerAccount;
+        this.sellerGets = sellerGets;
+        this.winnerAddress = winnerAddress;
+        this.sellerAddress = sellerAddress;
+        this.interestedAddresses = interestedAddresses;
+    }
+
+    static Settlement done(Status result) {
+        return new Settlement(result);
+    }
+
+    /**
+     * A close that went unsold, with the addresses to send lotUnsold to.
+     */
+    static Settlement unsold(
+            int slot, int lotNumber, Status result, String sellerAddress, List<String> interestedAddresses) {
+        return new Settlement(slot, lotNumber, null, result, null, null, null, null, null, null, null,
+                null, sellerAddress, interestedAddresses);
+    }
+
+    /**
+     * The buyer's payment to the house, with its idempotency key if bank
+     * takes one. Every attempt at it uses the same key. A transfer that
+     * throws counts as failed, so that the close can still be recorded.
+     */
+    Status payHouse(BankingService bank) {
+        return transfer(bank, key + "-buyer", buyerAccount, buyerAuthCode, houseAccount, buyerPays);
+    }
+
+    Status paySeller(BankingService bank) {
+        return transfer(bank, key + "-seller", houseAccount, houseAuthCode, sellerAccount, sellerGets);
+    }
+
+    /**
+     * A transfer that throws or fails exceptionally completes with an error
+     * Status.
+     */
+    CompletableFuture<Status> payHouseAsync(AsyncBankingService bank) {
+        try {
+            return recover(bank.transfer(key + "-buyer", buyerAccount, buyerAuthCode, houseAccount, buyerPays));
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(failed(e));
+        }
+    }
+
+    CompletableFuture<Status> paySellerAsync(AsyncBankingService bank) {
+        try {
+            return recover(bank.transfer(key + "-seller", houseAccount, houseAuthCode, sellerAccount, sellerGets));
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(failed(e));
+        }
+    }
+
+    private static Status transfer(
+            BankingService bank, String key, String from, String authCode, String to, Money amount) {
+        try {
+            return bank instanceof IdempotentBankingService
+                    ? ((IdempotentBankingService) bank).transfer(key, from, authCode, to, amount)
+                    : bank.transfer(from, authCode, to, amount);
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+    }
+
+    private static CompletableFuture<Status> recover(CompletableFuture<Status> transfer) {
+        return transfer.exceptionally(Settlement::failed);
+    }
+
+    private static Status failed(Throwable e) {
+        return Status.error("Transfer failed: " + e);
+    }
+}
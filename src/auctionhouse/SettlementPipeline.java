@@ -0,0 +1,103 @@
+package auctionhouse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closes auctions of an AuctionHouseImp in stages, so that the bank
+ * transfers of many closes are in flight at once.
+ * <p>
+ * closeAuction() decides the sale on the caller's thread, as
+ * AuctionHouseImp.beginClose() does. The transfers of a sale are then
+ * made on a pool of bankingThreads threads, which bounds how many
+ * transfers the bank sees at once: the buyer's first and the seller's once
+ * it has returned, while the transfers of other sales go ahead. When both
+ * have returned the outcome is recorded and the returned future completes;
+ * the lotSold or lotUnsold messages follow on a thread of their own.
+ * Outcomes are exactly those of closeAuction: both transfers are always
+ * made, and the lot is SOLD if both succeed and SOLD_PENDING_PAYMENT
+ * otherwise.
+ */
+public class SettlementPipeline implements AutoCloseable {
+
+    private final AuctionHouseImp house;
+    private final AsyncBankingService bank;
+    private final ExecutorService banking;
+    private final ExecutorService notifying;
+
+    /**
+     * @param house the house whose auctions to close
+     * @param bankingService makes the transfers; may block
+     * @param bankingThreads most transfers in progress at once
+     */
+    public SettlementPipeline(AuctionHouseImp house, BankingService bankingService, int bankingThreads) {
+        this.house = house;
+        AtomicInteger threadCount = new AtomicInteger();
+        banking = Executors.newFixedThreadPool(bankingThreads, r -> {
+            Thread t = new Thread(r, "auctionhouse-banking-" + threadCount.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        notifying = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "auctionhouse-settlement-messaging");
+            t.setDaemon(true);
+            return t;
+        });
+        bank = AsyncBankingService.on(banking, bankingService);
+    }
+
+    /**
+     * Close the auction of lotNumber.
+     * @return the Status closeAuction would have returned, once the outcome
+     *         is recorded
+     */
+    public CompletableFuture<Status> closeAuction(String auctioneerName, int lotNumber) {
+        Settlement settlement = house.beginClose(auctioneerName, lotNumber);
+        if (settlement.result != null) {
+            if (settlement.result.kind == Status.Kind.NO_SALE) {
+                sendLater(() -> house.notifyUnsold(settlement));
+            }
+            return CompletableFuture.completedFuture(settlement.result);
+        }
+        // Buyer first, as closeAuction does; other closes proceed meanwhile.
+        return settlement.payHouseAsync(bank).thenCompose(buyerToHouse ->
+                settlement.paySellerAsync(bank).thenApply(houseToSeller -> {
+                    Status status = house.recordClose(settlement, buyerToHouse, houseToSeller);
+                    if (status.kind == Status.Kind.SALE) {
+                        sendLater(() -> house.notifySold(settlement));
+                    }
+                    return status;
+                }));
+    }
+
+    /*
+     * Messages for closes that finish after close() are sent on the
+     * finishing thread instead.
+     */
+    private void sendLater(Runnable messages) {
+        try {
+            notifying.execute(messages);
+        } catch (RejectedExecutionException e) {
+            messages.run();
+        }
+    }
+
+    /**
+     * Wait for transfers and messages in progress, then stop the threads.
+     */
+    public void close() {
+        banking.shutdown();
+        try {
+            banking.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            notifying.shutdown();
+            notifying.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            notifying.shutdown();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
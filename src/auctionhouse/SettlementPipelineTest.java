@@ -0,0 +1,153 @@
+/**
+ *
+ */
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SettlementPipelineTest {
+
+    private static final int BANKING_THREADS = 4;
+
+    /*
+     * Takes a little while over each transfer, failing those from a bad
+     * account and throwing while down, and tracks how many are in progress at once.
+     */
+    private static class SlowBank implements BankingService {
+        final AtomicInteger inProgress = new AtomicInteger();
+        final AtomicInteger mostInProgress = new AtomicInteger();
+        final List<String> transfers = Collections.synchronizedList(new ArrayList<String>());
+        volatile String badAccount;
+        volatile boolean down;
+
+        public Status transfer(String senderAccount, String senderAuthCode, String receiverAccount, Money amount) {
+            if (down) {
+                throw new IllegalStateException("Bank unavailable");
+            }
+            mostInProgress.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inProgress.decrementAndGet();
+            }
+            transfers.add(senderAccount + " -> " + receiverAccount + " " + amount);
+            return senderAccount.equals(badAccount) ? Status.error("Insufficient funds") : Status.OK();
+        }
+    }
+
+    private SlowBank bank;
+    private MockServices.RecordingMessagingService messagingService;
+    private AuctionHouseImp house;
+
+    @Before
+    public void setup() {
+        bank = new SlowBank();
+        messagingService = new MockServices.RecordingMessagingService();
+        house = new AuctionHouseImp(MockServices.parameters(messagingService, bank));
+        house.registerSeller("SellerY", "@SellerY", "SY A/C");
+        house.registerBuyer("BuyerA", "@BuyerA", "BA A/C", "BA-auth");
+    }
+
+    private void sell(int lot) {
+        house.addLot("SellerY", lot, "Lot " + lot, new Money("10.00"));
+        house.noteInterest("BuyerA", lot);
+        house.openAuction("Auctioneer", "@Auctioneer", lot);
+        house.makeBid("BuyerA", lot, new Money("20.00"));
+    }
+
+    @Test
+    public void testSaleAsInCloseAuction() throws InterruptedException {
+        sell(1);
+        try (SettlementPipeline pipeline = new SettlementPipeline(house, bank, BANKING_THREADS)) {
+            assertEquals(Status.Kind.SALE, pipeline.closeAuction("Auctioneer", 1).join().kind);
+            assertEquals(Status.Kind.ERROR, pipeline.closeAuction("Auctioneer", 1).join().kind);
+        }
+        assertEquals(LotStatus.SOLD, house.viewCatalogue().get(0).status);
+        // The buyer pays before the seller is paid.
+        assertEquals(List.of("BA A/C -> AH A/C 22.00", "AH A/C -> SY A/C 17.00"), bank.transfers);
+        // Winner, seller and the one interested buyer, who is the winner.
+        assertEquals(3, messagingService.sent("sold").size());
+    }
+
+    @Test
+    public void testFailedPaymentAsInCloseAuction() throws InterruptedException {
+        bank.badAccount = "BA A/C";
+        sell(1);
+        try (SettlementPipeline pipeline = new SettlementPipeline(house, bank, BANKING_THREADS)) {
+            assertEquals(Status.Kind.SALE_PENDING_PAYMENT, pipeline.closeAuction("Auctioneer", 1).join().kind);
+        }
+        assertEquals(LotStatus.SOLD_PENDING_PAYMENT, house.viewCatalogue().get(0).status);
+        assertEquals(2, bank.transfers.size());
+        assertEquals(0, messagingService.sent("sold").size());
+    }
+
+    @Test
+    public void testThrowingTransfersLeaveSalesPending() throws InterruptedException {
+        bank.down = true;
+        sell(1);
+        sell(2);
+        assertEquals(Status.Kind.SALE_PENDING_PAYMENT, house.closeAuction("Auctioneer", 1).kind);
+        try (SettlementPipeline pipeline = new SettlementPipeline(house, bank, BANKING_THREADS)) {
+            assertEquals(Status.Kind.SALE_PENDING_PAYMENT, pipeline.closeAuction("Auctioneer", 2).join().kind);
+        }
+        assertEquals(LotStatus.SOLD_PENDING_PAYMENT, house.viewCatalogue().get(0).status);
+        assertEquals(LotStatus.SOLD_PENDING_PAYMENT, house.viewCatalogue().get(1).status);
+    }
+
+    @Test
+    public void testCloseAfterPipelineClosed() throws InterruptedException {
+        sell(1);
+        SettlementPipeline pipeline = new SettlementPipeline(house, bank, BANKING_THREADS);
+        pipeline.close();
+        assertEquals(Status.Kind.SALE_PENDING_PAYMENT, pipeline.closeAuction("Auctioneer", 1).join().kind);
+        assertEquals(LotStatus.SOLD_PENDING_PAYMENT, house.viewCatalogue().get(0).status);
+        assertEquals(0, bank.transfers.size());
+    }
+
+    @Test
+    public void testUnsoldAsInCloseAuction() throws InterruptedException {
+        house.addLot("SellerY", 1, "Lot 1", new Money("10.00"));
+        house.noteInterest("BuyerA", 1);
+        house.openAuction("Auctioneer", "@Auctioneer", 1);
+        house.makeBid("BuyerA", 1, new Money("5.00"));
+        try (SettlementPipeline pipeline = new SettlementPipeline(house, bank, BANKING_THREADS)) {
+            assertEquals(Status.Kind.NO_SALE, pipeline.closeAuction("Auctioneer", 1).join().kind);
+        }
+        assertEquals(LotStatus.UNSOLD, house.viewCatalogue().get(0).status);
+        assertEquals(0, bank.transfers.size());
+        assertEquals(List.of("@SellerY 1", "@BuyerA 1"), messagingService.sent("unsold"));
+    }
+
+    @Test
+    public void testTransfersOverlapWithinBound() throws InterruptedException {
+        int lots = 50;
+        for (int lot = 0; lot < lots; lot++) {
+            sell(lot);
+        }
+        List<CompletableFuture<Status>> closes = new ArrayList<>();
+        try (SettlementPipeline pipeline = new SettlementPipeline(house, bank, BANKING_THREADS)) {
+            for (int lot = 0; lot < lots; lot++) {
+                closes.add(pipeline.closeAuction("Auctioneer", lot));
+            }
+            for (CompletableFuture<Status> close : closes) {
+                assertEquals(Status.Kind.SALE, close.join().kind);
+            }
+        }
+        assertEquals(2 * lots, bank.transfers.size());
+        assertEquals(3 * lots, messagingService.sent("sold").size());
+        assertTrue(bank.mostInProgress.get() > 1);
+        assertTrue(bank.mostInProgress.get() <= BANKING_THREADS);
+    }
+}
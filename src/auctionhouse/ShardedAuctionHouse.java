@@ -0,0 +1,279 @@
+package auctionhouse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * An AuctionHouse split into independent AuctionHouseImp shards, each owning
+ * the lots whose numbers fall to it.
+ * <p>
+ * Lot number n belongs to shard n mod shardCount, so consecutive lots are
+ * spread over all shards. Every call about a lot goes to its shard alone,
+ * and shards share no locks, catalogues or lot stores, so work on lots in
+ * different shards never contends. Buyers and sellers are registered once,
+ * in registries that all shards read.
+ * <p>
+ * viewCatalogue() merges the shards' catalogues into lot number order, and
+ * returns the same list until one of them changes. A page is merged from
+ * the shards' own pages as it is filled: each shard is asked for about its
+ * share of the page, and for more only when the merge has used that up.
+ */
+public class ShardedAuctionHouse implements AuctionHouse {
+
+    private static Logger logger = Logger.getLogger("auctionhouse");
+
+    private final AuctionHouseImp[] shards;
+    private volatile MergedView view = new MergedView(new List<?>[0], Collections.<CatalogueEntry>emptyList());
+
+    /*
+     * The merged catalogue and the shard views it was built from.
+     */
+    private static final class MergedView {
+        final List<?>[] from;
+        final List<CatalogueEntry> entries;
+
+        MergedView(List<?>[] from, List<CatalogueEntry> entries) {
+            this.from = from;
+            this.entries = entries;
+        }
+    }
+
+    public ShardedAuctionHouse(Parameters parameters, int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        ParticipantRegistry buyers = new ParticipantRegistry();
+        ParticipantRegistry sellers = new ParticipantRegistry();
+        shards = new AuctionHouseImp[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new AuctionHouseImp(parameters, buyers, sellers);
+        }
+    }
+
+    /**
+     * @return the index of the shard that holds lotNumber
+     */
+    public int shardOf(int lotNumber) {
+        return Math.floorMod(lotNumber, shards.length);
+    }
+
+    private AuctionHouseImp shard(int lotNumber) {
+        return shards[shardOf(lotNumber)];
+    }
+
+    /**
+     * @return the number of shards
+     */
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @return the number of lots with the given status, over all shards
+     */
+    public int lotCount(LotStatus status) {
+        int count = 0;
+        for (AuctionHouseImp shard : shards) {
+            count += shard.lotCount(status);
+        }
+        return count;
+    }
+
+    /**
+     * Leave a proxy bid on a lot, as given by AuctionHouseImp.setProxyBid.
+     */
+    public Status setProxyBid(String buyerName, int lotNumber, Money maximum) {
+        return shard(lotNumber).setProxyBid(buyerName, lotNumber, maximum);
+    }
+
+    /**
+     * @return the lots the buyer has noted interest in, in no particular
+     *         order
+     */
+    public List<CatalogueEntry> watchedLots(String buyerName) {
+        List<CatalogueEntry> watched = new ArrayList<>();
+        for (AuctionHouseImp shard : shards) {
+            watched.addAll(shard.watchedLots(buyerName));
+        }
+        return watched;
+    }
+
+    /**
+     * @return the lots in auction on which the buyer holds the highest bid,
+     *         in no particular order
+     */
+    public List<CatalogueEntry> leadingLots(String buyerName) {
+        List<CatalogueEntry> leading = new ArrayList<>();
+        for (AuctionHouseImp shard : shards) {
+            leading.addAll(shard.leadingLots(buyerName));
+        }
+        return leading;
+    }
+
+    /**
+     * A page of the bids accepted on a lot, newest first, as given by
+     * AuctionHouseImp.bidHistory.
+     */
+    public List<BidHistoryEntry> bidHistory(int lotNumber, int fromSequence, int pageSize) {
+        return shard(lotNumber).bidHistory(lotNumber, fromSequence, pageSize);
+    }
+
+    /**
+     * @return the buyer's last bids accepted on any lot, newest first; at
+     *         most BidHistory.RECENT of them
+     */
+    public List<BidHistoryEntry> recentBids(String buyerName) {
+        List<BidHistoryEntry> bids = new ArrayList<>();
+        for (AuctionHouseImp shard : shards) {
+            bids.addAll(shard.recentBids(buyerName));
+        }
+        bids.sort((a, b) -> Long.compare(b.timeMillis, a.timeMillis));
+        return bids.size() > BidHistory.RECENT ? new ArrayList<>(bids.subList(0, BidHistory.RECENT)) : bids;
+    }
+
+    /*
+     * Registries are shared, so registering through any one shard registers
+     * with all of them.
+     */
+
+    public Status registerBuyer(String name, String address, String bankAccount, String bankAuthCode) {
+        return shards[0].registerBuyer(name, address, bankAccount, bankAuthCode);
+    }
+
+    public Status registerSeller(String name, String address, String bankAccount) {
+        return shards[0].registerSeller(name, address, bankAccount);
+    }
+
+    public Status addLot(String sellerName, int number, String description, Money reservePrice) {
+        return shard(number).addLot(sellerName, number, description, reservePrice);
+    }
+
+    public List<CatalogueEntry> viewCatalogue() {
+        List<?>[] from = new List<?>[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            from[i] = shards[i].viewCatalogue();
+        }
+        MergedView v = view;
+        if (sameViews(v.from, from)) {
+            return v.entries;
+        }
+        logger.fine("Merging the catalogues of " + shards.length + " shards...");
+        @SuppressWarnings("unchecked")
+        List<CatalogueEntry>[] lists = (List<CatalogueEntry>[]) from;
+        List<CatalogueEntry> entries = Collections.unmodifiableList(merge(lists));
+        view = new MergedView(from, entries);
+        return entries;
+    }
+
+    private static boolean sameViews(List<?>[] a, List<?>[] b) {
+        if (a.length != b.length) return false;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) return false;
+        }
+        return true;
+    }
+
+    public List<CatalogueEntry> viewCatalogue(LotStatus status, int fromLotNumber, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        // Lots are spread evenly, so each shard is first asked for its share.
+        int share = pageSize / shards.length + 1;
+        List<ShardPages> pages = new ArrayList<>(shards.length);
+        for (AuctionHouseImp shard : shards) {
+            pages.add(new ShardPages(shard, status, fromLotNumber, share));
+        }
+        List<CatalogueEntry> merged = new ArrayList<>(Math.min(pageSize, 64));
+        while (merged.size() < pageSize) {
+            ShardPages min = null;
+            for (ShardPages p : pages) {
+                if (p.peek() != null && (min == null || p.peek().lotNumber < min.peek().lotNumber)) {
+                    min = p;
+                }
+            }
+            if (min == null) break;
+            merged.add(min.take());
+        }
+        return merged;
+    }
+
+    /*
+     * One shard's catalogue from a lot number on, fetched a page of
+     * pageSize at a time as the merge uses it up.
+     */
+    private static final class ShardPages {
+        final AuctionHouseImp shard;
+        final LotStatus status;
+        final int pageSize;
+        List<CatalogueEntry> page;
+        int next;
+
+        ShardPages(AuctionHouseImp shard, LotStatus status, int fromLotNumber, int pageSize) {
+            this.shard = shard;
+            this.status = status;
+            this.pageSize = pageSize;
+            page = shard.viewCatalogue(status, fromLotNumber, pageSize);
+        }
+
+        /**
+         * @return the shard's next entry, or null if it has no more
+         */
+        CatalogueEntry peek() {
+            if (next == page.size()) {
+                int last = next == 0 ? Integer.MAX_VALUE : page.get(next - 1).lotNumber;
+                if (page.size() < pageSize || last == Integer.MAX_VALUE) {
+                    return null;
+                }
+                page = shard.viewCatalogue(status, last + 1, pageSize);
+                next = 0;
+            }
+            return next < page.size() ? page.get(next) : null;
+        }
+
+        CatalogueEntry take() {
+            return page.get(next++);
+        }
+    }
+
+    /*
+     * Merge lists each in lot number order into one.
+     */
+    private static List<CatalogueEntry> merge(List<CatalogueEntry>[] lists) {
+        int total = 0;
+        for (List<CatalogueEntry> list : lists) {
+            total += list.size();
+        }
+        List<CatalogueEntry> merged = new ArrayList<>(total);
+        int[] next = new int[lists.length];
+        while (true) {
+            int min = -1;
+            for (int i = 0; i < lists.length; i++) {
+                if (next[i] < lists[i].size()
+                        && (min < 0 || lists[i].get(next[i]).lotNumber < lists[min].get(next[min]).lotNumber)) {
+                    min = i;
+                }
+            }
+            if (min < 0) break;
+            merged.add(lists[min].get(next[min]++));
+        }
+        return merged;
+    }
+
+    public Status noteInterest(String buyerName, int lotNumber) {
+        return shard(lotNumber).noteInterest(buyerName, lotNumber);
+    }
+
+    public Status openAuction(String auctioneerName, String auctioneerAddress, int lotNumber) {
+        return shard(lotNumber).openAuction(auctioneerName, auctioneerAddress, lotNumber);
+    }
+
+    public Status makeBid(String buyerName, int lotNumber, Money bid) {
+        return shard(lotNumber).makeBid(buyerName, lotNumber, bid);
+    }
+
+    public Status closeAuction(String auctioneerName, int lotNumber) {
+        return shard(lotNumber).closeAuction(auctioneerName, lotNumber);
+    }
+}
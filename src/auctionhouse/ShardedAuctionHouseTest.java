@@ -0,0 +1,117 @@
+/**
+ *
+ */
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShardedAuctionHouseTest {
+
+    private MockMessagingService messagingService;
+    private MockBankingService bankingService;
+    private ShardedAuctionHouse house;
+
+    @Before
+    public void setup() {
+        messagingService = new MockMessagingService();
+        bankingService = new MockBankingService();
+        house = new ShardedAuctionHouse(
+                MockServices.parameters(messagingService, bankingService),
+                4);
+        assertOK(house.registerSeller("SellerY", "@SellerY", "SY A/C"));
+        assertOK(house.registerBuyer("BuyerA", "@BuyerA", "BA A/C", "BA-auth"));
+    }
+
+    private static void assertOK(Status status) {
+        assertEquals(Status.Kind.OK, status.kind);
+    }
+
+    private static List<Integer> numbers(List<CatalogueEntry> entries) {
+        List<Integer> numbers = new ArrayList<>();
+        for (CatalogueEntry entry : entries) {
+            numbers.add(entry.lotNumber);
+        }
+        return numbers;
+    }
+
+    @Test
+    public void testRegistrationIsShared() {
+        assertEquals(Status.Kind.ERROR, house.registerBuyer("BuyerA", "@X", "X A/C", "X-auth").kind);
+        assertEquals(Status.Kind.ERROR, house.registerSeller("SellerY", "@X", "X A/C").kind);
+        for (int lot = 0; lot < 8; lot++) {
+            assertOK(house.addLot("SellerY", lot, "Lot " + lot, new Money("5.00")));
+            assertOK(house.noteInterest("BuyerA", lot));
+        }
+        assertEquals(Status.Kind.ERROR, house.addLot("SellerZ", 9, "Lot 9", new Money("5.00")).kind);
+    }
+
+    @Test
+    public void testCatalogueMergesShards() {
+        int[] added = { 7, -3, 12, 0, 5, 9, 2, -8, 1 };
+        for (int lot : added) {
+            assertOK(house.addLot("SellerY", lot, "Lot " + lot, new Money("5.00")));
+        }
+        List<CatalogueEntry> catalogue = house.viewCatalogue();
+        assertEquals(List.of(-8, -3, 0, 1, 2, 5, 7, 9, 12), numbers(catalogue));
+        assertSame(catalogue, house.viewCatalogue());
+
+        assertOK(house.openAuction("Auctioneer", "@Auctioneer", 5));
+        assertEquals(LotStatus.IN_AUCTION, house.viewCatalogue().get(5).status);
+
+        assertEquals(List.of(0, 1, 2), numbers(house.viewCatalogue(null, -1, 3)));
+        assertEquals(List.of(5), numbers(house.viewCatalogue(LotStatus.IN_AUCTION, 0, 10)));
+        assertEquals(List.of(7, 9, 12), numbers(house.viewCatalogue(LotStatus.UNSOLD, 6, 10)));
+    }
+
+    @Test
+    public void testPagesMergeLazily() {
+        List<Integer> expected = new ArrayList<>();
+        for (int lot = 0; lot < 100; lot++) {
+            assertOK(house.addLot("SellerY", lot, "Lot " + lot, new Money("5.00")));
+            expected.add(lot);
+        }
+        List<Integer> paged = new ArrayList<>();
+        List<CatalogueEntry> page;
+        int from = 0;
+        while (!(page = house.viewCatalogue(null, from, 7)).isEmpty()) {
+            assertEquals(Math.min(7, 100 - from), page.size());
+            paged.addAll(numbers(page));
+            from = page.get(page.size() - 1).lotNumber + 1;
+        }
+        assertEquals(expected, paged);
+
+        // Every lot in auction is in one shard, which is asked again for more.
+        List<Integer> inAuction = new ArrayList<>();
+        for (int lot = 1; lot < 100; lot += 4) {
+            assertOK(house.openAuction("Auctioneer", "@Auctioneer", lot));
+            inAuction.add(lot);
+        }
+        assertEquals(inAuction.subList(0, 20), numbers(house.viewCatalogue(LotStatus.IN_AUCTION, 0, 20)));
+        assertEquals(inAuction.subList(5, 25), numbers(house.viewCatalogue(LotStatus.IN_AUCTION, 20, 30)));
+    }
+
+    @Test
+    public void testAuctionInOneShard() {
+        assertOK(house.registerBuyer("BuyerB", "@BuyerB", "BB A/C", "BB-auth"));
+        assertOK(house.addLot("SellerY", 6, "Vase", new Money("10.00")));
+        assertOK(house.noteInterest("BuyerA", 6));
+        assertOK(house.noteInterest("BuyerB", 6));
+        assertOK(house.openAuction("Auctioneer", "@Auctioneer", 6));
+        assertOK(house.makeBid("BuyerA", 6, new Money("20.00")));
+        assertEquals(Status.Kind.ERROR, house.makeBid("BuyerB", 6, new Money("20.50")).kind);
+        assertOK(house.makeBid("BuyerB", 6, new Money("21.00")));
+        assertEquals(Status.Kind.SALE, house.closeAuction("Auctioneer", 6).kind);
+
+        bankingService.expectTransfer("BB A/C", "BB-auth", "AH A/C", new Money("23.10"));
+        bankingService.expectTransfer("AH A/C", "AH-auth", "SY A/C", new Money("17.85"));
+        bankingService.verify();
+        assertEquals(LotStatus.SOLD, house.viewCatalogue().get(0).status);
+    }
+}
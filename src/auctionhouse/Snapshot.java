@@ -0,0 +1,295 @@
+package auctionhouse;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary image of the state of an AuctionHouseImp, written and read through
+ * memory-mapped files.
+ * <p>
+ * A snapshot is taken while the house keeps running, so it is not a picture
+ * of one instant: changes made while it is written may or may not be in it.
+ * It therefore records the EventLog position reached before it started, and
+ * every change not certainly in the snapshot is in the log after that
+ * position. Restoring replays the log from there over the snapshot.
+ * <p>
+ * The file holds a header (magic number, format, log position), then the
+ * LotStore columns of each lot and the buyers, sellers and auctioneers in
+ * ID order, each record preceded by a 1 and each section ended by a 0, then
+ * the magic number again. Strings are a length and UTF-8 bytes, with length
+ * -1 for null; amounts are pence and participants are IDs.
+ * A new snapshot is written beside the old one and renamed over it when
+ * complete, so a crash never leaves a half-written snapshot in its place.
+ */
+public final class Snapshot {
+
+    private static final int MAGIC = 0x41485331;
+    private static final int FORMAT = 2;
+    private static final long CHUNK = 64L << 20;
+    private static final LotStatus[] STATUSES = LotStatus.values();
+
+    private Snapshot() {
+    }
+
+    /**
+     * Write the given house state to path.
+     * @param logPosition EventLog position reached before reading any state
+     */
+    static void write(
+            Path path,
+            long logPosition,
+            ParticipantRegistry buyers,
+            ParticipantRegistry sellers,
+            Registry<Auctioneer> auctioneers,
+            LotStore lots) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Output out = new Output(tmp)) {
+            out.putInt(MAGIC);
+            out.putInt(FORMAT);
+            out.putLong(logPosition);
+
+            // Lots first: IDs only grow, so every participant they refer to
+            // is then already registered when the participants are written.
+            int slots = lots.size();
+            for (int slot = 0; slot < slots; slot++) {
+                if (!lots.isCurrent(slot)) {
+                    continue;
+                }
+                HighestBid highest = lots.highestBid(slot);
+                InterestSet interested = lots.interested(slot);
+                int interestCount = interested == null ? 0 : interested.size();
+                out.putByte(1);
+                out.putInt(lots.number(slot));
+                out.putInt(lots.sellerId(slot));
+                out.putString(lots.description(slot));
+                out.putLong(lots.reservePence(slot));
+                out.putInt(lots.auctioneerId(slot));
+                out.putByte(lots.status(slot).ordinal());
+                out.putLong(highest.amount.pence());
+                out.putInt(highest.bidder);
+                out.putByte(highest.open ? 1 : 0);
+                out.putInt(interestCount);
+                for (int i = 0; i < interestCount; i++) {
+                    out.putInt(interested.get(i));
+                }
+            }
+            out.putByte(0);
+
+            int buyerCount = buyers.size();
+            for (int id = 0; id < buyerCount; id++) {
+                out.putByte(1);
+                out.putString(buyers.name(id));
+                out.putString(buyers.address(id));
+                out.putString(buyers.bankAccount(id));
+                out.putString(buyers.bankAuthCode(id));
+            }
+            out.putByte(0);
+
+            int sellerCount = sellers.size();
+            for (int id = 0; id < sellerCount; id++) {
+                out.putByte(1);
+                out.putString(sellers.name(id));
+                out.putString(sellers.address(id));
+                out.putString(sellers.bankAccount(id));
+            }
+            out.putByte(0);
+
+            int auctioneerCount = auctioneers.size();
+            for (int id = 0; id < auctioneerCount; id++) {
+                out.putByte(1);
+                out.putString(auctioneers.name(id));
+                out.putString(auctioneers.get(id).auctioneerAddress);
+            }
+            out.putByte(0);
+            out.putInt(MAGIC);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load the snapshot at path into the given, empty, house state.
+     * @return the EventLog position to replay from
+     */
+    static long read(
+            Path path,
+            ParticipantRegistry buyers,
+            ParticipantRegistry sellers,
+            Registry<Auctioneer> auctioneers,
+            LotStore lots,
+            Catalogue catalogue) throws IOException {
+        try (Input in = new Input(path)) {
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT) {
+                throw new IOException(path + " is not an auction house snapshot");
+            }
+            long logPosition = in.getLong();
+
+            while (in.getByte() != 0) {
+                int number = in.getInt();
+                int slot = catalogue.add(number, in.getInt(), in.getString(), in.getLong());
+                lots.setAuctioneerId(slot, in.getInt());
+                catalogue.setStatus(slot, STATUSES[in.getByte()]);
+                HighestBid highest = new HighestBid(Money.ofPence(in.getLong()), in.getInt(), in.getByte() == 1);
+                lots.updateHighestBid(slot, none -> highest);
+                int interestCount = in.getInt();
+                if (interestCount > 0) {
+                    InterestSet interested = lots.interestedOrCreate(slot);
+                    for (int i = 0; i < interestCount; i++) {
+                        interested.add(in.getInt());
+                    }
+                }
+            }
+            for (int id = 0; in.getByte() != 0; id++) {
+                String name = in.getString();
+                String address = in.getString();
+                String bankAccount = in.getString();
+                String bankAuthCode = in.getString();
+                // An ID left empty on restoring the log stays empty.
+                if (name != null && buyers.registerAt(id, name, address, bankAccount, bankAuthCode) != id) {
+                    throw new IOException("Buyer " + name + " in " + path + " is registered twice");
+                }
+            }
+            for (int id = 0; in.getByte() != 0; id++) {
+                String name = in.getString();
+                if (sellers.register(name, in.getString(), in.getString(), null) != id) {
+                    throw new IOException("Seller " + name + " in " + path + " is out of order");
+                }
+            }
+            for (int id = 0; in.getByte() != 0; id++) {
+                String name = in.getString();
+                if (auctioneers.register(name, new Auctioneer(in.getString())) != id) {
+                    throw new IOException("Auctioneer " + name + " in " + path + " is out of order");
+                }
+            }
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Snapshot " + path + " is corrupt");
+            }
+            return logPosition;
+        }
+    }
+
+    /*
+     * Maps the file a chunk at a time, growing it as needed, and cuts it
+     * back to what was written when closed.
+     */
+    private static final class Output implements AutoCloseable {
+        private final FileChannel channel;
+        private MappedByteBuffer buffer;
+        private long base;
+
+        Output(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        private long position() {
+            return buffer == null ? 0 : base + buffer.position();
+        }
+
+        private MappedByteBuffer ensure(int n) throws IOException {
+            if (n > CHUNK) {
+                throw new IOException("Value of " + n + " bytes is too large for a snapshot");
+            }
+            if (buffer == null || buffer.remaining() < n) {
+                long at = position();
+                if (buffer != null) {
+                    buffer.force();
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, at, CHUNK);
+                base = at;
+            }
+            return buffer;
+        }
+
+        void putByte(int b) throws IOException {
+            ensure(1).put((byte) b);
+        }
+
+        void putInt(int i) throws IOException {
+            ensure(4).putInt(i);
+        }
+
+        void putLong(long l) throws IOException {
+            ensure(8).putLong(l);
+        }
+
+        void putString(String s) throws IOException {
+            if (s == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            ensure(4 + bytes.length).putInt(bytes.length).put(bytes);
+        }
+
+        public void close() throws IOException {
+            try {
+                long end = position();
+                if (buffer != null) {
+                    buffer.force();
+                }
+                channel.truncate(end);
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private static final class Input implements AutoCloseable {
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer buffer;
+        private long base;
+
+        Input(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            size = channel.size();
+        }
+
+        private MappedByteBuffer ensure(int n) throws IOException {
+            if (buffer == null || buffer.remaining() < n) {
+                long at = buffer == null ? 0 : base + buffer.position();
+                if (n < 0 || at + n > size) {
+                    throw new EOFException("Snapshot ends early");
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, at, Math.min(Math.max(CHUNK, n), size - at));
+                base = at;
+            }
+            return buffer;
+        }
+
+        byte getByte() throws IOException {
+            return ensure(1).get();
+        }
+
+        int getInt() throws IOException {
+            return ensure(4).getInt();
+        }
+
+        long getLong() throws IOException {
+            return ensure(8).getLong();
+        }
+
+        String getString() throws IOException {
+            int length = getInt();
+            if (length < 0) {
+                return null;
+            }
+            MappedByteBuffer b = ensure(length);
+            byte[] bytes = new byte[length];
+            b.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
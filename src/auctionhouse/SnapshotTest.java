@@ -0,0 +1,132 @@
+/**
+ *
+ */
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that a house restored from a Snapshot and the EventLog written
+ * since matches the one that wrote them.
+ */
+public class SnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path logPath;
+    private Path snapshotPath;
+    private MockServices.RecordingBankingService bankingService;
+
+    private static void assertOK(Status status) {
+        assertEquals(Status.Kind.OK, status.kind);
+    }
+
+    @Before
+    public void setup() {
+        logPath = folder.getRoot().toPath().resolve("auctionhouse.log");
+        snapshotPath = folder.getRoot().toPath().resolve("auctionhouse.snapshot");
+        bankingService = new MockServices.RecordingBankingService();
+    }
+
+    private Parameters parameters() {
+        return MockServices.parameters(MockServices.SILENT, bankingService);
+    }
+
+    private static void firstHalf(AuctionHouse house) {
+        assertOK(house.registerSeller("SellerY", "@SellerY", "SY A/C"));
+        assertOK(house.registerBuyer("BuyerA", "@BuyerA", "BA A/C", "BA-auth"));
+        assertOK(house.registerBuyer("BuyerB", "@BuyerB", "BB A/C", "BB-auth"));
+        assertOK(house.addLot("SellerY", 2, "Bicycle", new Money("80.00")));
+        assertOK(house.addLot("SellerY", 1, "Tea pot", new Money("5.00")));
+        assertOK(house.noteInterest("BuyerA", 2));
+        assertOK(house.noteInterest("BuyerB", 2));
+        assertOK(house.openAuction("Auctioneer1", "@Auctioneer1", 2));
+        assertOK(house.makeBid("BuyerA", 2, new Money("70.00")));
+    }
+
+    private static void secondHalf(AuctionHouse house) {
+        assertOK(house.registerBuyer("BuyerC", "@BuyerC", "BC A/C", "BC-auth"));
+        assertOK(house.noteInterest("BuyerC", 2));
+        assertOK(house.makeBid("BuyerC", 2, new Money("90.00")));
+        assertOK(house.noteInterest("BuyerC", 1));
+        assertOK(house.openAuction("Auctioneer2", "@Auctioneer2", 1));
+        assertEquals(Status.Kind.NO_SALE, house.closeAuction("Auctioneer2", 1).kind);
+    }
+
+    private void assertRestored(AuctionHouse house) {
+        List<CatalogueEntry> catalogue = house.viewCatalogue();
+        assertEquals(2, catalogue.size());
+        assertEquals(LotStatus.UNSOLD, catalogue.get(0).status);
+        assertEquals(LotStatus.IN_AUCTION, catalogue.get(1).status);
+        assertTrue(bankingService.transfers().isEmpty());
+
+        assertEquals(Status.Kind.ERROR, house.registerBuyer("BuyerC", "@C", "C", "C").kind);
+        assertEquals(Status.Kind.ERROR, house.makeBid("BuyerA", 2, new Money("90.50")).kind);
+        assertOK(house.makeBid("BuyerB", 2, new Money("95.00")));
+        assertEquals(Status.Kind.SALE, house.closeAuction("Auctioneer1", 2).kind);
+        assertEquals("BB A/C AH A/C 104.50", bankingService.transfers().get(0));
+    }
+
+    @Test
+    public void testRestoreFromSnapshotAndLog() throws IOException {
+        try (EventLog log = new EventLog(logPath)) {
+            AuctionHouseImp house = new AuctionHouseImp(parameters(), snapshotPath, log);
+            firstHalf(house);
+            house.snapshot(snapshotPath);
+            secondHalf(house);
+        }
+        try (EventLog log = new EventLog(logPath)) {
+            assertRestored(new AuctionHouseImp(parameters(), snapshotPath, log));
+        }
+    }
+
+    @Test
+    public void testLogOverlappingSnapshot() throws IOException {
+        // A snapshot from a house without a log says to replay all of it,
+        // so every logged change is applied a second time.
+        AuctionHouseImp unlogged = new AuctionHouseImp(parameters());
+        firstHalf(unlogged);
+        secondHalf(unlogged);
+        unlogged.snapshot(snapshotPath);
+        try (EventLog log = new EventLog(logPath)) {
+            AuctionHouseImp house = new AuctionHouseImp(parameters(), log);
+            firstHalf(house);
+            secondHalf(house);
+        }
+        try (EventLog log = new EventLog(logPath)) {
+            assertRestored(new AuctionHouseImp(parameters(), snapshotPath, log));
+        }
+    }
+
+    @Test
+    public void testSnapshotter() throws Exception {
+        try (EventLog log = new EventLog(logPath)) {
+            AuctionHouseImp house = new AuctionHouseImp(parameters(), snapshotPath, log);
+            firstHalf(house);
+            secondHalf(house);
+            Snapshotter snapshotter = new Snapshotter(house, snapshotPath, 10);
+            try {
+                while (!Files.exists(snapshotPath)) {
+                    Thread.sleep(10);
+                }
+            } finally {
+                snapshotter.close();
+            }
+        }
+        try (EventLog log = new EventLog(logPath)) {
+            assertRestored(new AuctionHouseImp(parameters(), snapshotPath, log));
+        }
+    }
+}
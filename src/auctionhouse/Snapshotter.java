@@ -0,0 +1,63 @@
+package auctionhouse;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Takes a snapshot of a house every so often on a background thread, so
+ * that a restart only has to replay the most recent part of its EventLog.
+ * Bidding carries on while a snapshot is written.
+ */
+public class Snapshotter implements AutoCloseable {
+
+    private static Logger logger = Logger.getLogger("auctionhouse");
+
+    private final AuctionHouseImp house;
+    private final Path path;
+    private final ScheduledExecutorService executor;
+
+    /**
+     * @param house the house to save
+     * @param path the snapshot file, replaced by each new snapshot
+     * @param intervalMillis time between the end of one snapshot and the
+     *        start of the next
+     */
+    public Snapshotter(AuctionHouseImp house, Path path, long intervalMillis) {
+        this.house = house;
+        this.path = path;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "auctionhouse-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::takeSnapshot, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void takeSnapshot() {
+        long start = System.nanoTime();
+        try {
+            house.snapshot(path);
+            logger.fine("Snapshot written to " + path + " in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        } catch (IOException | RuntimeException e) {
+            // The previous snapshot is still in place; try again next time.
+            logger.log(Level.WARNING, "Writing snapshot " + path + " failed", e);
+        }
+    }
+
+    /**
+     * Stop taking snapshots, waiting for one in progress to finish.
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package auctionhouse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Append-only store of strings as UTF-8 bytes packed into large shared
+ * chunks, so that millions of short strings cost their bytes plus a long
+ * reference each instead of a String and array object apiece.
+ * <p>
+ * A reference holds the chunk number in its high 32 bits and the offset of
+ * the string within the chunk in its low 32 bits. Strings are never moved
+ * or removed. Adding is serialised; get() never locks and sees any string
+ * whose reference it was handed through a safe publication.
+ */
+public class StringArena {
+
+    private static final int CHUNK = 1 << 20;
+
+    private volatile byte[][] chunks = new byte[4][];
+    private int chunkCount;
+    private int used = CHUNK;
+
+    /**
+     * @return a reference from which get() returns s
+     */
+    public synchronized long add(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int needed = 4 + bytes.length;
+        if (used + needed > CHUNK) {
+            byte[][] c = chunks;
+            if (chunkCount == c.length) {
+                c = Arrays.copyOf(c, chunkCount * 2);
+            }
+            // A string longer than a chunk gets a chunk of its own.
+            c[chunkCount++] = new byte[Math.max(CHUNK, needed)];
+            chunks = c;
+            used = 0;
+        }
+        byte[] chunk = chunks[chunkCount - 1];
+        int offset = used;
+        chunk[offset] = (byte) (bytes.length >>> 24);
+        chunk[offset + 1] = (byte) (bytes.length >>> 16);
+        chunk[offset + 2] = (byte) (bytes.length >>> 8);
+        chunk[offset + 3] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, chunk, offset + 4, bytes.length);
+        used += needed;
+        return (long) (chunkCount - 1) << 32 | offset;
+    }
+
+    public String get(long ref) {
+        byte[] chunk = chunks[(int) (ref >>> 32)];
+        int offset = (int) ref;
+        int length = (chunk[offset] & 0xFF) << 24
+                | (chunk[offset + 1] & 0xFF) << 16
+                | (chunk[offset + 2] & 0xFF) << 8
+                | (chunk[offset + 3] & 0xFF);
+        return new String(chunk, offset + 4, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,50 @@
+package auctionhouse;
+
+/**
+ * One call into an AuctionHouse, as seen by a Tracer.
+ * <p>
+ * The fields are those of the call that apply: participant is the buyer,
+ * seller or auctioneer name, and value is the bid or reserve price in
+ * pence, or the page size of a paged catalogue view. Unused fields are null
+ * or -1. Events are mutable so that an AsyncTracer can reuse a fixed set of
+ * them; a Tracer must not keep one after trace() returns.
+ */
+public final class TraceEvent {
+
+    public enum Op {
+        REGISTER_BUYER,
+        REGISTER_SELLER,
+        ADD_LOT,
+        VIEW_CATALOGUE,
+        NOTE_INTEREST,
+        OPEN_AUCTION,
+        MAKE_BID,
+        CLOSE_AUCTION,
+        SET_PROXY_BID
+    }
+
+    public long timeNanos;
+    public long threadId;
+    public Op op;
+    public String participant;
+    public int lotNumber;
+    public long value;
+
+    void set(Op op, String participant, int lotNumber, long value) {
+        this.timeNanos = System.nanoTime();
+        this.threadId = Thread.currentThread().getId();
+        this.op = op;
+        this.participant = participant;
+        this.lotNumber = lotNumber;
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder(64).append(op);
+        if (participant != null) s.append(" participant=").append(participant);
+        if (lotNumber != -1) s.append(" lot=").append(lotNumber);
+        if (value != -1) s.append(" value=").append(value);
+        return s.append(" thread=").append(threadId).toString();
+    }
+}
@@ -0,0 +1,54 @@
+package auctionhouse;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Receives a structured TraceEvent for each call into an AuctionHouseImp.
+ * <p>
+ * The house asks enabled() before each call's event and builds nothing at
+ * all when it says no, so a disabled tracer costs one check per call and
+ * allocates nothing.
+ */
+public interface Tracer {
+
+    /**
+     * Traces nothing.
+     */
+    Tracer OFF = new Tracer() {
+        public boolean enabled() {
+            return false;
+        }
+        public void trace(TraceEvent.Op op, String participant, int lotNumber, long value) {
+        }
+    };
+
+    /**
+     * Logs each call with a banner to the "auctionhouse" logger at FINE,
+     * on the caller's thread, whenever that level is enabled.
+     */
+    Tracer LOG = new Tracer() {
+        private final Logger logger = Logger.getLogger("auctionhouse");
+        private final String LS = System.lineSeparator();
+
+        public boolean enabled() {
+            return logger.isLoggable(Level.FINE);
+        }
+        public void trace(TraceEvent.Op op, String participant, int lotNumber, long value) {
+            TraceEvent event = new TraceEvent();
+            event.set(op, participant, lotNumber, value);
+            logger.fine(LS
+                    + "-------------------------------------------------------------" + LS
+                    + "MESSAGE IN: " + event + LS
+                    + "-------------------------------------------------------------");
+        }
+    };
+
+    boolean enabled();
+
+    /**
+     * Record a call; only made when enabled() has just returned true.
+     * @see TraceEvent for the meaning of the arguments
+     */
+    void trace(TraceEvent.Op op, String participant, int lotNumber, long value);
+}
@@ -0,0 +1,91 @@
+/**
+ *
+ */
+package auctionhouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+public class TracerTest {
+
+    private static AuctionHouseImp newHouse() {
+        return new AuctionHouseImp(MockServices.parameters(new MockMessagingService(), new MockBankingService()));
+    }
+
+    @Test
+    public void testEventsReachSinkInOrder() throws InterruptedException {
+        List<String> seen = new ArrayList<>();
+        AuctionHouseImp house = newHouse();
+        AsyncTracer tracer = new AsyncTracer(64, e -> seen.add(e.op + " " + e.participant + " " + e.lotNumber + " " + e.value));
+        house.setTracer(tracer);
+        house.registerSeller("SellerY", "@SellerY", "SY A/C");
+        house.addLot("SellerY", 3, "Vase", new Money("12.50"));
+        house.viewCatalogue(LotStatus.UNSOLD, 0, 10);
+        tracer.close();
+
+        assertEquals(List.of(
+                "REGISTER_SELLER SellerY -1 -1",
+                "ADD_LOT SellerY 3 1250",
+                "VIEW_CATALOGUE null 0 10"), seen);
+        assertEquals(0, tracer.dropped());
+    }
+
+    @Test
+    public void testSlowSinkDropsRatherThanBlocks() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> seen = new ArrayList<>();
+        AsyncTracer tracer = new AsyncTracer(8, e -> {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            seen.add(e.lotNumber);
+        });
+        for (int lot = 0; lot < 100; lot++) {
+            tracer.trace(TraceEvent.Op.MAKE_BID, "BuyerA", lot, 100);
+        }
+        release.countDown();
+        tracer.close();
+
+        assertEquals(100 - seen.size(), tracer.dropped());
+        assertTrue(seen.size() <= 8);
+        for (int i = 0; i < seen.size(); i++) {
+            assertEquals(i, (int) seen.get(i));
+        }
+    }
+
+    @Test
+    public void testNoAllocationWhenOff() {
+        Logger logger = Logger.getLogger("auctionhouse");
+        Level level = logger.getLevel();
+        logger.setLevel(Level.INFO);
+        try {
+            AuctionHouseImp house = newHouse();
+            house.viewCatalogue();
+            com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long id = Thread.currentThread().getId();
+            for (int i = 0; i < 10_000; i++) {
+                house.viewCatalogue();
+            }
+            long before = threads.getThreadAllocatedBytes(id);
+            for (int i = 0; i < 100_000; i++) {
+                house.viewCatalogue();
+            }
+            long allocated = threads.getThreadAllocatedBytes(id) - before;
+            assertTrue("Allocated " + allocated + " bytes", allocated < 1024);
+        } finally {
+            logger.setLevel(level);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package auctionhouse;
+
+/**
+ * One payment, as passed to BankingService.transfer.
+ */
+public class Transfer {
+    /** As passed to IdempotentBankingService.transfer, or null for none. */
+    public final String idempotencyKey;
+    public final String senderAccount;
+    public final String senderAuthCode;
+    public final String receiverAccount;
+    public final Money amount;
+
+    public Transfer(String senderAccount, String senderAuthCode, String receiverAccount, Money amount) {
+        this(null, senderAccount, senderAuthCode, receiverAccount, amount);
+    }
+
+    public Transfer(
+            String idempotencyKey, String senderAccount, String senderAuthCode, String receiverAccount, Money amount) {
+        this.idempotencyKey = idempotencyKey;
+        this.senderAccount = senderAccount;
+        this.senderAuthCode = senderAuthCode;
+        this.receiverAccount = receiverAccount;
+        this.amount = amount;
+    }
+
+    @Override
+    public String toString() {
+        return senderAccount + " -> " + receiverAccount + " " + amount;
+    }
+}